@@ -1,12 +1,22 @@
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import controller.ControllerGraphic;
 import controller.ControllerImpl;
+import controller.ControllerOption;
 import controller.IController;
+import model.ConcurrentImageDatabase;
 import model.IImageDatabase;
 import model.ImageDatabase;
+import model.SpillingImageDatabase;
+import model.transformation.ParallelRows;
+import model.transformation.ResultCache;
 import view.GraphicView;
 import view.View;
 
@@ -19,29 +29,148 @@ public class Main {
    * The main method that starts the image processing program. If command line argument
    * starts with -file, then run the command line with file name. If command line argument
    * starts with -text, then takes the input from terminal. If command line argument is empty,
-   * then run the graphic view of this program.
+   * then run the graphic view of this program, whose transformations run one after another
+   * on a background thread showing their progress and may be cancelled. The -file and
+   * -text arguments may be followed by -threads and a positive number of threads to run
+   * the transformations with, by -fixed to run the blur, sharpen and matrix grayscale
+   * commands in fixed-point mode, by -fuse to run chains of per-pixel commands as one
+   * pass, by -simplify to fold chains of brighten and matrix commands into fewer
+   * commands, by -deferred to run only the commands whose images are saved, by
+   * -parallel to run independent commands at the same time, by -cache to take repeated
+   * transformations of the same image from a result cache, showing its hits and misses
+   * at the end, and by -stream to stream the rows of a load, its transformations and a
+   * PPM save. They may also be followed by -memory and a number of megabytes of images
+   * to keep in memory, spilling the least recently used images to a temporary directory
+   * and showing the spill and reload counts at the end.
    *
    * @param args Command-line arguments.
    * @throws IllegalArgumentException if the command line file doesn't exist
    *     or Invalid argument.
    */
   public static void main(String[] args) {
-    IImageDatabase m = new ImageDatabase();
+    long budget = getMemoryBudget(args);
+    IImageDatabase m;
+    if (budget < 0 && Arrays.asList(args).contains("-parallel")) {
+      // shared by the workers of the parallel commands without a lock
+      m = new ConcurrentImageDatabase();
+    } else if (budget < 0) {
+      m = new ImageDatabase();
+    } else {
+      m = new SpillingImageDatabase(budget);
+    }
     IController c;
     if (args.length == 0) {
-      c = new ControllerGraphic(m, new GraphicView());
+      c = new ControllerGraphic(m, new GraphicView(), getWorker(), getTileWorker());
     } else if (args.length > 1 && args[0].equals("-file")) {
+      Set<ControllerOption> options = setOptions(args, 2);
       try {
         FileInputStream file = new FileInputStream(args[1]);
-        c = new ControllerImpl(m, new View(System.out), new InputStreamReader(file));
+        c = new ControllerImpl(m, new View(System.out), new InputStreamReader(file),
+                options);
       } catch (FileNotFoundException e) {
         throw new IllegalArgumentException("File not found.");
       }
-    } else if (args.length == 1 && args[0].equals("-text")) {
-      c = new ControllerImpl(m, new View(System.out), new InputStreamReader(System.in));
+    } else if (args.length >= 1 && args[0].equals("-text")) {
+      Set<ControllerOption> options = setOptions(args, 1);
+      c = new ControllerImpl(m, new View(System.out), new InputStreamReader(System.in),
+              options);
     } else {
       throw new IllegalArgumentException("Try again.");
     }
     c.process();
+    if (c instanceof ControllerImpl && ((ControllerImpl) c).getResultCache() != null) {
+      ResultCache cache = ((ControllerImpl) c).getResultCache();
+      System.out.println("Cache hits: " + cache.getHits() + ", misses: "
+              + cache.getMisses() + ".");
+    }
+    if (m instanceof SpillingImageDatabase) {
+      SpillingImageDatabase spilling = (SpillingImageDatabase) m;
+      System.out.println("Images spilled: " + spilling.getSpillCount() + ", reloaded: "
+              + spilling.getReloadCount() + ".");
+      spilling.close();
+    }
+  }
+
+  // helper method to give the executor running the events of the graphical
+  // view, one after another on one background thread.
+  private static Executor getWorker() {
+    return Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "transform");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // helper method to give the executor computing the tiles shown by the
+  // graphical view, on daemon threads, one for each processor.
+  private static Executor getTileWorker() {
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "tile");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  // helper method to give the bytes of the -memory option of the arguments, or
+  // -1 if there is none.
+  private static long getMemoryBudget(String[] args) {
+    for (int i = 1; i + 1 < args.length; i++) {
+      if (args[i].equals("-memory")) {
+        try {
+          long megabytes = Long.parseLong(args[i + 1]);
+          if (megabytes < 0) {
+            throw new IllegalArgumentException("Try again.");
+          }
+          return megabytes << 20;
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Try again.");
+        }
+      }
+    }
+    return -1;
+  }
+
+  // helper method to read the options after the given index of the arguments,
+  // returns the options of the controller asked for.
+  private static Set<ControllerOption> setOptions(String[] args, int index) {
+    Set<ControllerOption> options = EnumSet.noneOf(ControllerOption.class);
+    while (index < args.length) {
+      if (args[index].equals("-threads") && index + 1 < args.length) {
+        try {
+          ParallelRows.setThreads(Integer.parseInt(args[index + 1]));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Try again.");
+        }
+        index += 2;
+      } else if (args[index].equals("-memory") && index + 1 < args.length) {
+        // read by getMemoryBudget before the image database is made
+        index += 2;
+      } else if (args[index].equals("-fixed")) {
+        options.add(ControllerOption.FIXED_POINT);
+        index++;
+      } else if (args[index].equals("-fuse")) {
+        options.add(ControllerOption.FUSE);
+        index++;
+      } else if (args[index].equals("-simplify")) {
+        options.add(ControllerOption.SIMPLIFY);
+        index++;
+      } else if (args[index].equals("-deferred")) {
+        options.add(ControllerOption.DEFERRED);
+        index++;
+      } else if (args[index].equals("-parallel")) {
+        options.add(ControllerOption.PARALLEL);
+        index++;
+      } else if (args[index].equals("-cache")) {
+        options.add(ControllerOption.CACHE);
+        index++;
+      } else if (args[index].equals("-stream")) {
+        options.add(ControllerOption.STREAM);
+        index++;
+      } else {
+        throw new IllegalArgumentException("Try again.");
+      }
+    }
+    return options;
   }
 }
\ No newline at end of file
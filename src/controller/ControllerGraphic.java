@@ -1,10 +1,16 @@
 package controller;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import controller.commands.CmdBrighten;
 import controller.commands.CmdGaussianBlur;
@@ -17,20 +23,28 @@ import controller.commands.CmdMatrixRed;
 import controller.commands.CmdMatrixSepia;
 import controller.commands.CmdSharpen;
 import controller.commands.ICmd;
+import controller.commands.ICmdCall;
 import controller.loadersaver.ConventionalLoader;
 import controller.loadersaver.ConventionalSaver;
 import controller.loadersaver.IImageLoader;
 import controller.loadersaver.IImageSaver;
+import controller.loadersaver.PPMFormat;
 import controller.loadersaver.PPMLoader;
 import controller.loadersaver.PPMSaver;
 import model.IImageDatabase;
 import model.images.IImageState;
+import model.images.PackedImage;
+import model.transformation.Downscale;
+import model.transformation.EdgeMode;
 import model.transformation.GreyscaleBlue;
 import model.transformation.GreyscaleGreen;
 import model.transformation.GreyscaleIntensity;
 import model.transformation.GreyscaleLuma;
 import model.transformation.GreyscaleRed;
 import model.transformation.GreyscaleValue;
+import model.transformation.ITransformation;
+import model.transformation.RegionRun;
+import model.transformation.RowProgress;
 import view.IView;
 import view.ViewListener;
 
@@ -39,29 +53,110 @@ import view.ViewListener;
  * The ControllerGraphic class implements the IController interface and acts as a controller
  * for the graphical view. It listens to events from the view
  * (implementing the ViewListener interface) and processes the user commands to modify
- * the image using various image processing commands.
+ * the image using various image processing commands. Besides blur and sharpen,
+ * the filters blur-clamp, blur-mirror, blur-wrap and the same for sharpen read
+ * the positions outside of the image by that EdgeMode, as in a script.
+ *
+ * <p>Each event is queued and handled by a task run on the executor of the
+ * controller, one after another in the order of the events when the executor
+ * runs its tasks in order on one thread, so the view stays responsive while a
+ * large image is transformed. A task handles all of the events waiting, which
+ * are coalesced first, see ViewEvents, and draws the image once after them, so
+ * clicks made while an image is transformed add one more pass at most. The
+ * rows done of the running transformation are shown as its progress, and a
+ * cancel event stops the running and the waiting events, leaving the image
+ * shown as it was. Only the tasks touch the image database, and the view is
+ * given the results from the thread of the tasks.
+ *
+ * <p>An image larger than the area of the view showing it gets a preview
+ * shrunk to fit that area, see Downscale. An edit then runs on the preview
+ * first, its transformation scaled to the preview, see atScale, and the
+ * preview is shown right away. The edits shown only on the preview then run
+ * on the full image one after another, each giving way to a new event, and
+ * the full image replaces the preview once they all ran. A save always runs
+ * them first, so the saved image is the full image, and a cancel drops them,
+ * showing the full image as it is. Until then the full image with the edits
+ * is also shown one tile at a time over the preview, see TiledResult, each
+ * tile computed from the part of the image around it on the executor of the
+ * tiles when the view asks for it, so the tiles in view come first.
  */
 public class ControllerGraphic implements IController, ViewListener {
 
   private final IImageDatabase model;
   private final IView view;
   private final Map<String, ICmd> cmd;
+  private final Executor worker;
+  private final Executor tileWorker;
+  private final ViewEvents events;
+  // the number of cancel events so far, and the progress of the running event
+  private final AtomicInteger cancelCount;
+  private volatile RowProgress running;
+  // the progress of the running call of an edit on the full image, if any
+  private volatile RowProgress refining;
+  // the state below is only used by the tasks
+  private int cancelsSeen;
   private String imageID;
+  // the preview of the image shown and its size relative to the image, the
+  // preview is null if the image is shown without one
+  private IImageState proxy;
+  private double scale;
+  // the calls of the edits shown on the preview, not run on the image yet
+  private final List<ICmdCall> refinements;
+  // the tiles of the image with those edits shown over the preview, if any
+  private TiledResult tiles;
 
   /**
-   * Constructor for the ControllerGraphic class.
+   * Constructor for the ControllerGraphic class, handling each event on the
+   * thread giving it.
    *
    * @param model The IImageDatabase representing the image database for image processing.
    * @param view The IView representing the graphical view with the user interface.
    * @throws IllegalArgumentException if either model or view is null.
    */
   public ControllerGraphic(IImageDatabase model, IView view) {
-    if (model == null || view == null) {
+    this(model, view, Runnable::run);
+  }
+
+  /**
+   * Constructor for the ControllerGraphic class, handling each event by a task
+   * run on the given executor. An executor running its tasks in order on one
+   * background thread keeps the view responsive and handles the events in
+   * order. The tiles of an edited image are computed on the same executor.
+   *
+   * @param model The IImageDatabase representing the image database for image processing.
+   * @param view The IView representing the graphical view with the user interface.
+   * @param worker The executor running the task of each event.
+   * @throws IllegalArgumentException if any of the arguments is null.
+   */
+  public ControllerGraphic(IImageDatabase model, IView view, Executor worker) {
+    this(model, view, worker, worker);
+  }
+
+  /**
+   * Constructor for the ControllerGraphic class, handling each event by a task
+   * run on the given executor and computing the tiles of an edited image on
+   * the other given executor, so the tiles in view are shown while the task
+   * runs the edits on the full image.
+   *
+   * @param model The IImageDatabase representing the image database for image processing.
+   * @param view The IView representing the graphical view with the user interface.
+   * @param worker The executor running the task of each event.
+   * @param tileWorker The executor computing the tiles of an edited image.
+   * @throws IllegalArgumentException if any of the arguments is null.
+   */
+  public ControllerGraphic(IImageDatabase model, IView view, Executor worker,
+                           Executor tileWorker) {
+    if (model == null || view == null || worker == null || tileWorker == null) {
       throw new IllegalArgumentException("Constructor argument cannot be null.");
     }
 
     this.model = model;
     this.view = view;
+    this.worker = worker;
+    this.tileWorker = tileWorker;
+    this.events = new ViewEvents();
+    this.cancelCount = new AtomicInteger();
+    this.refinements = new ArrayList<>();
 
     // adds the valid commands to map
     this.cmd = new HashMap<>();
@@ -74,6 +169,11 @@ public class ControllerGraphic implements IController, ViewListener {
     this.cmd.putIfAbsent("blue-component", new CmdGreyscale(new GreyscaleBlue()));
     this.cmd.putIfAbsent("blur", new CmdGaussianBlur());
     this.cmd.putIfAbsent("sharpen", new CmdSharpen());
+    for (EdgeMode edge : EdgeMode.values()) {
+      String name = edge.name().toLowerCase(Locale.ROOT);
+      this.cmd.putIfAbsent("blur-" + name, new CmdGaussianBlur(edge));
+      this.cmd.putIfAbsent("sharpen-" + name, new CmdSharpen(edge));
+    }
     this.cmd.putIfAbsent("red-grayscale", new CmdMatrixRed());
     this.cmd.putIfAbsent("green-grayscale", new CmdMatrixGreen());
     this.cmd.putIfAbsent("blue-grayscale", new CmdMatrixBlue());
@@ -91,48 +191,237 @@ public class ControllerGraphic implements IController, ViewListener {
     this.view.setVisible(true);
   }
 
-  // helper method to run the string of commands with commands object
-  private void processRun(String commands) {
-    Scanner scan = new Scanner(commands);
-    while (scan.hasNext()) {
-      String command = scan.next();
+  // helper method to queue the event and ask the executor to handle the
+  // events waiting. The step of a preview run on the full image gives way to
+  // the event, and runs again after it.
+  private void submit(ViewEvents.Kind kind, String argument) {
+    this.events.add(new ViewEvents.Event(kind, argument));
+    RowProgress step = this.refining;
+    if (step != null) {
+      step.cancel();
+    }
+    this.worker.execute(this::handleWaiting);
+  }
 
-      ICmd cmdToRun = this.cmd.getOrDefault(command, null);
-      if (cmdToRun == null) {
-        this.view.showMsg("Invalid command.\n");
+  // helper method to handle the events waiting, coalesced, one after another,
+  // showing the message of any error unless the event was cancelled. The image
+  // is drawn once after the events that change it, so no image in between is
+  // built for the view. Edits of a large image are shown on its preview first,
+  // and the image is drawn once they all ran on it. Stops at a cancel event.
+  private void handleWaiting() {
+    if (this.cancelCount.get() != this.cancelsSeen) {
+      this.cancelsSeen = this.cancelCount.get();
+      if (!this.refinements.isEmpty()) {
+        discardRefinements();
+        drawImage();
+      }
+    }
+
+    boolean changed = false;
+    for (ViewEvents.Event event : this.events.takeAll()) {
+      RowProgress progress = new RowProgress(this.view::showProgress);
+      this.running = progress;
+      if (this.cancelCount.get() != this.cancelsSeen) {
+        break;
+      }
+      boolean[] drawn = new boolean[1];
+      try {
+        progress.track(() -> drawn[0] = handle(event));
+        changed |= drawn[0];
+      } catch (Exception e) {
+        if (!progress.isCancelled()) {
+          this.view.showMsg(e.getMessage());
+        }
+      } finally {
+        this.view.showProgress(-1);
+      }
+    }
+    this.running = null;
+
+    if (this.cancelCount.get() == this.cancelsSeen && !this.refinements.isEmpty()) {
+      IImageState image = this.model.getImage(this.imageID);
+      this.view.drawPreview(createImage(this.proxy), image.getWidth(), image.getHeight());
+      drawTiles(image);
+      changed = refine(true);
+    }
+    if (changed) {
+      drawImage();
+    }
+  }
+
+  // helper method to handle one event on the image database, return whether
+  // the image is to be drawn.
+  private boolean handle(ViewEvents.Event event) {
+    switch (event.getKind()) {
+      case LOAD:
+        load(event.getArgument());
+        this.refinements.clear();
+        makeProxy();
+        return true;
+      case BRIGHTEN:
+        return edit("brighten " + event.getArgument());
+      case FILTER:
+        return edit(event.getArgument());
+      default:
+        // the saved image is always the full image
+        boolean refined = !this.refinements.isEmpty();
+        refine(false);
+        if (refined) {
+          makeProxy();
+        }
+        save(event.getArgument());
+        return refined;
+    }
+  }
+
+  // helper method to run the command on the image shown. With a preview, its
+  // transformation runs on the preview only, scaled to its size, and the call
+  // waits to run on the full image. Return whether the image is to be drawn.
+  private boolean edit(String command) {
+    Scanner scan = new Scanner(command + " " + this.imageID + " " + this.imageID);
+    ICmd cmdToRun = this.cmd.getOrDefault(scan.next(), null);
+    if (cmdToRun == null) {
+      this.view.showMsg("Invalid command.\n");
+      return false;
+    }
+    ICmdCall call = cmdToRun.parse(scan);
+    ITransformation transformation = call.getTransformation();
+    if (this.proxy == null || transformation == null) {
+      refine(false);
+      call.run(this.model);
+      makeProxy();
+      return true;
+    }
+    this.proxy = transformation.atScale(this.scale).run(this.proxy);
+    this.refinements.add(call);
+    return false;
+  }
+
+  // helper method to run the calls of the edits shown on the preview on the
+  // full image, in order. Yielding, each call runs as a step of its own that
+  // gives way to a waiting event or a cancel, the calls left running after
+  // them. Return whether all of the calls ran, and the preview is made again
+  // from the full image then.
+  private boolean refine(boolean yielding) {
+    while (!this.refinements.isEmpty()) {
+      ICmdCall call = this.refinements.get(0);
+      if (!yielding) {
+        call.run(this.model);
+        this.refinements.remove(0);
         continue;
       }
-      cmdToRun.execute(scan, this.model);
+
+      RowProgress progress = new RowProgress(this.view::showProgress);
+      this.running = progress;
+      this.refining = progress;
+      try {
+        if (this.events.hasWaiting() || this.cancelCount.get() != this.cancelsSeen) {
+          return false;
+        }
+        progress.track(() -> call.run(this.model));
+        this.refinements.remove(0);
+      } catch (Exception e) {
+        if (progress.isCancelled()) {
+          return false;
+        }
+        this.view.showMsg(e.getMessage());
+        discardRefinements();
+        return true;
+      } finally {
+        this.refining = null;
+        this.running = null;
+        this.view.showProgress(-1);
+      }
+    }
+    makeProxy();
+    return true;
+  }
+
+  // helper method to drop the calls of the edits not run on the full image yet,
+  // making the preview again from the full image.
+  private void discardRefinements() {
+    this.refinements.clear();
+    makeProxy();
+  }
+
+  // helper method to make the preview of the image shown, fitting the area of
+  // the view showing it, or no preview if the image fits or the view has no
+  // such area.
+  private void makeProxy() {
+    this.proxy = null;
+    Dimension viewport = this.view.getViewportSize();
+    if (viewport == null || viewport.width < 1 || viewport.height < 1) {
+      return;
+    }
+    IImageState image = this.model.getImage(this.imageID);
+    double fit = Downscale.toFit(image.getWidth(), image.getHeight(),
+            viewport.width, viewport.height);
+    if (fit < 1) {
+      this.scale = fit;
+      this.proxy = new Downscale(fit).run(image);
     }
   }
 
-  // helper method to show the error message accordingly when running the command
-  // and ask this view to show the according image.
-  private void handleEvent(String command) {
+  /**
+   * Handles the event when the running and the waiting events are requested
+   * to be cancelled. The image shown stays the image before them, or becomes
+   * the full image if edits were only shown on its preview.
+   */
+  @Override
+  public void handleCancelEvent() {
+    this.cancelCount.incrementAndGet();
+    this.events.clear();
+    RowProgress progress = this.running;
+    if (progress != null) {
+      progress.cancel();
+    }
+    this.worker.execute(this::handleWaiting);
+  }
+
+  // helper method to show the tiles of the image with the edits shown on the
+  // preview, computed from the image as it is, if the edits have a halo.
+  private void drawTiles(IImageState image) {
+    closeTiles();
+    List<ITransformation> chain = new ArrayList<>();
+    for (ICmdCall call : this.refinements) {
+      chain.add(call.getTransformation());
+    }
+    if (RegionRun.getHalo(chain) >= 0) {
+      this.tiles = new TiledResult(image, chain, this.tileWorker);
+      this.view.drawTiles(this.tiles);
+    }
+  }
+
+  // helper method to stop computing the tiles shown, if any
+  private void closeTiles() {
+    if (this.tiles != null) {
+      this.tiles.close();
+      this.tiles = null;
+    }
+  }
+
+  // helper method to draw the image shown, showing the message of any error
+  private void drawImage() {
+    closeTiles();
     try {
-      processRun(command);
-      this.view.draw(createImage(this.imageID));
+      this.view.draw(createImage(this.model.getImage(this.imageID)));
     } catch (Exception e) {
       this.view.showMsg(e.getMessage());
     }
   }
 
-  // helper method to create a BufferedImage from the IImageState associated with
-  // id of the image in this model
-  private BufferedImage createImage(String id) {
-    IImageState image = this.model.getImage(id);
+  // helper method to create a BufferedImage from the IImageState. A PackedImage
+  // is shown without any copy, any other image is copied in one go into the
+  // raster of a new one.
+  private BufferedImage createImage(IImageState image) {
+    if (image instanceof PackedImage) {
+      return ((PackedImage) image).asBufferedImage();
+    }
     int width = image.getWidth();
     int height = image.getHeight();
     BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-    for (int h = 0; h < height; h++) {
-      for (int w = 0; w < width; w++) {
-        int r = image.getRedChannel(w, h);
-        int g = image.getGreenChannel(w, h);
-        int b = image.getBlueChannel(w, h);
-        int argb = (r << 16) | (g << 8) | b;
-        output.setRGB(w, h, argb);
-      }
-    }
+    image.getRegion(0, 0, width, height,
+            ((DataBufferInt) output.getRaster().getDataBuffer()).getData());
     return output;
   }
 
@@ -149,24 +438,23 @@ public class ControllerGraphic implements IController, ViewListener {
       throw new IllegalArgumentException("No filepath.");
     }
 
+    submit(ViewEvents.Kind.LOAD, filepath);
+  }
+
+  // helper method to load the image of the file as the image shown
+  private void load(String filepath) {
     // initialize the imageID for the current showing image
     // since only one image will be shown on the view, no need to change
     // in following commands
     this.imageID = "image";
-    String extension = filepath.substring(filepath.lastIndexOf("."));
     IImageLoader loader;
-    try {
-      if (extension.equalsIgnoreCase(".ppm")) {
-        loader = new PPMLoader(filepath);
-      } else {
-        loader = new ConventionalLoader(filepath);
-      }
-      IImageState image = loader.loadImage();
-      this.model.addImage(this.imageID, image);
-      this.view.draw(createImage(this.imageID));
-    } catch (Exception e) {
-      this.view.showMsg(e.getMessage());
+    if (PPMFormat.ofFile(filepath) != null) {
+      loader = new PPMLoader(filepath);
+    } else {
+      loader = new ConventionalLoader(filepath);
     }
+    IImageState image = loader.loadImage();
+    this.model.addImage(this.imageID, image);
   }
 
   /**
@@ -181,9 +469,7 @@ public class ControllerGraphic implements IController, ViewListener {
     if (increment == null) {
       throw new IllegalArgumentException("No increment.");
     }
-    String command = "brighten " + increment + " "
-            + this.imageID + " " + this.imageID;
-    handleEvent(command);
+    submit(ViewEvents.Kind.BRIGHTEN, increment);
   }
 
   /**
@@ -198,8 +484,7 @@ public class ControllerGraphic implements IController, ViewListener {
     if (filterName == null) {
       throw new IllegalArgumentException("No filter.");
     }
-    String command = filterName + " " + this.imageID + " " + this.imageID;
-    handleEvent(command);
+    submit(ViewEvents.Kind.FILTER, filterName);
   }
 
   /**
@@ -215,20 +500,20 @@ public class ControllerGraphic implements IController, ViewListener {
       throw new IllegalArgumentException("No filepath.");
     }
 
-    try {
-      IImageState image = this.model.getImage(this.imageID);
-      String extension = filepath.substring(filepath.lastIndexOf("."));
-
-      IImageSaver saver;
-      if (extension.equalsIgnoreCase(".ppm")) {
-        saver = new PPMSaver(filepath, image, new StringBuilder());
-      } else {
-        saver = new ConventionalSaver(filepath, image,
-                new ByteArrayOutputStream());
-      }
-      saver.run();
-    } catch (Exception e) {
-      this.view.showMsg(e.getMessage());
+    submit(ViewEvents.Kind.SAVE, filepath);
+  }
+
+  // helper method to save the image shown into the file
+  private void save(String filepath) {
+    IImageState image = this.model.getImage(this.imageID);
+    PPMFormat format = PPMFormat.ofFile(filepath);
+
+    IImageSaver saver;
+    if (format != null) {
+      saver = new PPMSaver(filepath, format, image);
+    } else {
+      saver = new ConventionalSaver(filepath, image);
     }
+    saver.run();
   }
 }
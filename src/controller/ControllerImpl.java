@@ -1,8 +1,20 @@
 package controller;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import controller.commands.CmdBrighten;
 import controller.commands.CmdGaussianBlur;
@@ -17,7 +29,18 @@ import controller.commands.CmdMatrixSepia;
 import controller.commands.CmdSave;
 import controller.commands.CmdSharpen;
 import controller.commands.ICmd;
+import controller.commands.ICmdCall;
+import controller.commands.InvalidCall;
+import controller.script.DeferredPlan;
+import controller.script.ScriptOptimizer;
+import controller.script.ScriptScheduler;
+import controller.script.ScriptStep;
+import model.ConcurrentImageDatabase;
 import model.IImageDatabase;
+import model.SynchronizedImageDatabase;
+import model.transformation.EdgeMode;
+import model.transformation.ParallelRows;
+import model.transformation.ResultCache;
 import model.transformation.GreyscaleBlue;
 import model.transformation.GreyscaleGreen;
 import model.transformation.GreyscaleIntensity;
@@ -29,12 +52,22 @@ import view.IView;
 /**
  * This class implements the IController interface to process user commands
  * and interact with the image database model and the view.
+ *
+ * <p>The blur and sharpen commands read the positions outside of the image as
+ * zero. The blur-clamp, blur-mirror and blur-wrap commands, and the same for
+ * sharpen, read them by that EdgeMode instead, taking the same ids.
  */
 public class ControllerImpl implements IController {
   private final Readable in;
   private final IImageDatabase model;
   private final IView view;
   private final Map<String, ICmd> cmd;
+  private final ScriptOptimizer optimizer;
+  private final boolean wholeScript;
+  private final boolean deferred;
+  private final boolean parallel;
+  private final ResultCache cache;
+  private final Set<String> requested;
 
   /**
    * Constructs a ControllerImpl object with the provided image database model,
@@ -47,13 +80,58 @@ public class ControllerImpl implements IController {
    * @throws IllegalArgumentException if any of the constructor arguments is null.
    */
   public ControllerImpl(IImageDatabase model, IView view, Readable in) {
-    if (model == null || view == null || in == null) {
+    this(model, view, in, false);
+  }
+
+  /**
+   * Constructs a ControllerImpl object with the provided image database model,
+   * view, and input source, whose blur, sharpen and matrix grayscale commands
+   * run in fixed-point mode if asked to. And update a valid command map with
+   * valid command names.
+   *
+   * @param model The image database model to be used for managing image data.
+   * @param view The view to display information and messages to the user.
+   * @param in The input source where to read user commands from.
+   * @param fixedPoint true to run the kernel and matrix commands in fixed-point mode.
+   * @throws IllegalArgumentException if any of the constructor arguments is null.
+   */
+  public ControllerImpl(IImageDatabase model, IView view, Readable in, boolean fixedPoint) {
+    this(model, view, in, fixedPoint ? EnumSet.of(ControllerOption.FIXED_POINT)
+            : EnumSet.noneOf(ControllerOption.class));
+  }
+
+  /**
+   * Constructs a ControllerImpl object with the provided image database model,
+   * view, input source and the options to run the commands with. And update a
+   * valid command map with valid command names. With any option other than
+   * the fixed-point mode and the result cache, the whole script is read before
+   * any of it runs.
+   *
+   * @param model The image database model to be used for managing image data.
+   * @param view The view to display information and messages to the user.
+   * @param in The input source where to read user commands from.
+   * @param options The options to run the commands with.
+   * @throws IllegalArgumentException if any of the constructor arguments is null.
+   */
+  public ControllerImpl(IImageDatabase model, IView view, Readable in,
+                        Set<ControllerOption> options) {
+    if (model == null || view == null || in == null || options == null) {
       throw new IllegalArgumentException("Constructor argument cannot be null.");
     }
 
     this.model = model;
     this.view = view;
     this.in = in;
+    this.optimizer = new ScriptOptimizer(options);
+    this.deferred = options.contains(ControllerOption.DEFERRED);
+    this.parallel = options.contains(ControllerOption.PARALLEL);
+    this.wholeScript = this.deferred || this.parallel || options.contains(ControllerOption.FUSE)
+            || options.contains(ControllerOption.SIMPLIFY)
+            || options.contains(ControllerOption.STREAM);
+    this.requested = new HashSet<>();
+    this.cache = options.contains(ControllerOption.CACHE)
+            ? new ResultCache(ResultCache.DEFAULT_CAPACITY) : null;
+    boolean fixedPoint = options.contains(ControllerOption.FIXED_POINT);
 
     this.cmd = new HashMap<>();
     this.cmd.putIfAbsent("save", new CmdSave());
@@ -65,14 +143,44 @@ public class ControllerImpl implements IController {
     this.cmd.putIfAbsent("red-component", new CmdGreyscale(new GreyscaleRed()));
     this.cmd.putIfAbsent("green-component", new CmdGreyscale(new GreyscaleGreen()));
     this.cmd.putIfAbsent("blue-component", new CmdGreyscale(new GreyscaleBlue()));
-    this.cmd.putIfAbsent("blur", new CmdGaussianBlur());
-    this.cmd.putIfAbsent("sharpen", new CmdSharpen());
-    this.cmd.putIfAbsent("red-grayscale", new CmdMatrixRed());
-    this.cmd.putIfAbsent("green-grayscale", new CmdMatrixGreen());
-    this.cmd.putIfAbsent("blue-grayscale", new CmdMatrixBlue());
-    this.cmd.putIfAbsent("intensity-grayscale", new CmdMatrixIntensity());
-    this.cmd.putIfAbsent("luma-grayscale", new CmdMatrixLuma());
-    this.cmd.putIfAbsent("sepia-grayscale", new CmdMatrixSepia());
+    this.cmd.putIfAbsent("blur", new CmdGaussianBlur(EdgeMode.ZERO, fixedPoint));
+    this.cmd.putIfAbsent("sharpen", new CmdSharpen(EdgeMode.ZERO, fixedPoint));
+    for (EdgeMode edge : EdgeMode.values()) {
+      String name = edge.name().toLowerCase(Locale.ROOT);
+      this.cmd.putIfAbsent("blur-" + name, new CmdGaussianBlur(edge, fixedPoint));
+      this.cmd.putIfAbsent("sharpen-" + name, new CmdSharpen(edge, fixedPoint));
+    }
+    this.cmd.putIfAbsent("red-grayscale", new CmdMatrixRed(fixedPoint));
+    this.cmd.putIfAbsent("green-grayscale", new CmdMatrixGreen(fixedPoint));
+    this.cmd.putIfAbsent("blue-grayscale", new CmdMatrixBlue(fixedPoint));
+    this.cmd.putIfAbsent("intensity-grayscale", new CmdMatrixIntensity(fixedPoint));
+    this.cmd.putIfAbsent("luma-grayscale", new CmdMatrixLuma(fixedPoint));
+    this.cmd.putIfAbsent("sepia-grayscale", new CmdMatrixSepia(fixedPoint));
+  }
+
+  /**
+   * Requests the last image the script adds with the id to be computed and
+   * kept in the image database by the deferred mode, even if no command
+   * saves it. Has no effect on the other modes, which compute every image.
+   *
+   * @param idImage The id of the image to keep.
+   * @throws IllegalArgumentException if the id is null.
+   */
+  public void requestImage(String idImage) {
+    if (idImage == null) {
+      throw new IllegalArgumentException("Image id cannot be null");
+    }
+    this.requested.add(idImage);
+  }
+
+  /**
+   * Return the result cache the transformation commands run through, whose
+   * hit and miss counters tell how many images were taken from it.
+   *
+   * @return The result cache, or null if not run with the cache option.
+   */
+  public ResultCache getResultCache() {
+    return this.cache;
   }
 
   /**
@@ -83,6 +191,10 @@ public class ControllerImpl implements IController {
   @Override
   public void process() {
     Scanner scan = new Scanner(this.in);
+    if (this.wholeScript) {
+      processScript(scan);
+      return;
+    }
     while (scan.hasNext()) {
 
       String command = scan.next();
@@ -99,11 +211,174 @@ public class ControllerImpl implements IController {
       }
 
       try {
-        cmdToRun.execute(scan, this.model);
+        cmdToRun.parse(scan).run(this.model, this.cache);
         this.view.showMsg("Command executed.\n");
       } catch (Exception e) {
         this.view.showMsg(e.getMessage());
       }
     }
   }
+
+  // helper method to read the whole script into calls, and run the steps the
+  // optimizer rewrites them into. Each command of the script still shows the
+  // message it shows when run on its own.
+  private void processScript(Scanner scan) {
+    List<ICmdCall> calls = new ArrayList<>();
+    boolean quit = false;
+    while (scan.hasNext()) {
+      String command = scan.next();
+      if (command.equalsIgnoreCase("exit")) {
+        quit = true;
+        break;
+      }
+      calls.add(parse(command, scan));
+    }
+
+    DeferredPlan plan = this.deferred ? new DeferredPlan(calls, this.requested) : null;
+    Map<ICmdCall, Integer> positions = new IdentityHashMap<>();
+    for (int i = 0; i < calls.size(); i++) {
+      positions.put(calls.get(i), i);
+    }
+    List<ScriptStep> steps = this.optimizer.optimize(plan == null ? calls
+            : plan.getNeededCalls());
+    Set<ICmdCall> failed = ConcurrentHashMap.newKeySet();
+
+    int next = 0;
+    if (this.parallel) {
+      IImageDatabase database = this.model instanceof ConcurrentImageDatabase ? this.model
+              : new SynchronizedImageDatabase(this.model);
+      ExecutorService pool = Executors.newFixedThreadPool(ParallelRows.getThreads());
+      try {
+        List<CompletableFuture<List<String>>> results = new ScriptScheduler(pool).schedule(
+                steps, step -> getRemoved(step, plan, positions),
+                step -> runStep(step, database, failed, plan, positions));
+        for (int i = 0; i < steps.size(); i++) {
+          next = showSkipped(next, positions.get(steps.get(i).getCalls().get(0)));
+          showAll(results.get(i).join());
+          next = positions.get(last(steps.get(i))) + 1;
+        }
+      } finally {
+        pool.shutdown();
+      }
+    } else {
+      for (ScriptStep step : steps) {
+        next = showSkipped(next, positions.get(step.getCalls().get(0)));
+        showAll(runStep(step, this.model, failed, plan, positions));
+        next = positions.get(last(step)) + 1;
+      }
+    }
+    showSkipped(next, calls.size());
+    if (quit) {
+      this.view.showMsg("Quitting.");
+    }
+  }
+
+  // helper method to show that the calls from next to the end, exclusive, are
+  // skipped, and give the end.
+  private int showSkipped(int next, int end) {
+    for (int i = next; i < end; i++) {
+      this.view.showMsg("Command skipped.\n");
+    }
+    return Math.max(next, end);
+  }
+
+  // helper method to show the messages in order
+  private void showAll(List<String> messages) {
+    for (String message : messages) {
+      this.view.showMsg(message);
+    }
+  }
+
+  // helper method to get the last call of a step
+  private static ICmdCall last(ScriptStep step) {
+    List<ICmdCall> stepCalls = step.getCalls();
+    return stepCalls.get(stepCalls.size() - 1);
+  }
+
+  // helper method to get the ids of the images the deferred plan removes after
+  // the calls of the step.
+  private static Set<String> getRemoved(ScriptStep step, DeferredPlan plan,
+                                        Map<ICmdCall, Integer> positions) {
+    Set<String> removed = new HashSet<>();
+    if (plan != null) {
+      for (ICmdCall call : step.getCalls()) {
+        removed.addAll(plan.getFreedAfter(positions.get(call)));
+      }
+    }
+    return removed;
+  }
+
+  // helper method to check whether a call of the step from the index adds the
+  // image of the id, which must then not be removed.
+  private static boolean isAddedFrom(List<ICmdCall> stepCalls, int from, String id) {
+    for (int i = from; i < stepCalls.size(); i++) {
+      if (id.equals(stepCalls.get(i).getDestination())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // helper method to parse one command into a call, a command that cannot be
+  // parsed gives a call failing with the message of the command.
+  private ICmdCall parse(String command, Scanner scan) {
+    ICmd cmdToParse = this.cmd.getOrDefault(command, null);
+    if (cmdToParse == null) {
+      return new InvalidCall(new IllegalStateException("Invalid command.\n"));
+    }
+    try {
+      return cmdToParse.parse(scan);
+    } catch (RuntimeException e) {
+      return new InvalidCall(e);
+    }
+  }
+
+  // helper method to run a step of the script on the database and give its
+  // messages, falling back to its calls one by one if its replacement fails or
+  // relies on a call that failed. The calls that fail are added to the failed
+  // calls. With a deferred plan, the images no later call reads are removed
+  // after the step. A call that failed leaves its image as it was, as when the
+  // script runs without options.
+  private List<String> runStep(ScriptStep step, IImageDatabase database,
+                               Set<ICmdCall> failed, DeferredPlan plan,
+                               Map<ICmdCall, Integer> positions) {
+    List<String> messages = new ArrayList<>(step.getRewrites());
+    List<ICmdCall> stepCalls = step.getCalls();
+    ICmdCall replacement = step.getReplacement();
+    boolean replaced = false;
+    if (replacement != null && Collections.disjoint(step.getAssumed(), failed)) {
+      try {
+        replacement.run(database, this.cache);
+        for (int i = 0; i < stepCalls.size(); i++) {
+          messages.add("Command executed.\n");
+        }
+        replaced = true;
+      } catch (Exception e) {
+        // run the calls themselves to show their own messages
+      }
+    }
+    if (!replaced) {
+      for (ICmdCall call : stepCalls) {
+        try {
+          call.run(database, this.cache);
+          messages.add("Command executed.\n");
+        } catch (Exception e) {
+          failed.add(call);
+          messages.add(e.getMessage());
+        }
+      }
+    }
+
+    if (plan != null) {
+      for (int i = 0; i < stepCalls.size(); i++) {
+        ICmdCall call = stepCalls.get(i);
+        for (String id : plan.getFreedAfter(positions.get(call))) {
+          if (!isAddedFrom(stepCalls, i + 1, id)) {
+            database.removeImage(id);
+          }
+        }
+      }
+    }
+    return messages;
+  }
 }
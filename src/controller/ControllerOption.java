@@ -0,0 +1,56 @@
+package controller;
+
+/**
+ * The options a ControllerImpl can run its commands with. The options other
+ * than the fixed-point mode and the result cache read the whole script before
+ * running any of it, so they suit scripts read from a file rather than typed
+ * in, and they only keep in the image database the images the rest of the
+ * script reads.
+ */
+public enum ControllerOption {
+  /**
+   * Run the blur, sharpen and matrix grayscale commands in fixed-point mode.
+   */
+  FIXED_POINT,
+
+  /**
+   * Run chains of per-pixel commands, each reading the image of the one before
+   * it, as one pass when the images between them are never read again.
+   */
+  FUSE,
+
+  /**
+   * Fold chains of brighten and matrix commands into fewer commands when that
+   * provably gives the same images, and report each fold.
+   */
+  SIMPLIFY,
+
+  /**
+   * Only run the commands whose images reach a save or a requested image,
+   * showing the others as skipped, and remove each image the script adds
+   * once the last command reading it has run.
+   */
+  DEFERRED,
+
+  /**
+   * Run the commands that use no image id or file another one adds, removes
+   * or saves at the same time on a worker pool, showing the messages in the
+   * order of the script. A ConcurrentImageDatabase is shared by the workers
+   * as it is, any other image database is locked around each access.
+   */
+  PARALLEL,
+
+  /**
+   * Keep the images the transformation commands give in a result cache, so a
+   * command running the same operation on the same image as an earlier one
+   * takes its image from the cache instead of computing it again.
+   */
+  CACHE,
+
+  /**
+   * Run a load, the transformations of its image and the save of the result
+   * into a PPM file as one stream of rows, when the images between them are
+   * never read again, so no whole image of them is held in memory.
+   */
+  STREAM
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import model.images.IImageState;
+import model.transformation.ITransformation;
+import model.transformation.RegionRun;
+import view.ITileSource;
+
+/**
+ * The TiledResult class gives the tiles of the image a chain of
+ * transformations gives from an image, each tile computed from the part of
+ * the image around it by RegionRun on the executor of the tiles when it is
+ * first asked for. The chain must have a halo.
+ *
+ * <p>At most MAX_TILES computed tiles are kept, the least recently asked for
+ * being dropped first and computed again if asked for again, so a huge image
+ * never has all of its tiles in memory. Once closed, no more tiles are
+ * computed.
+ */
+final class TiledResult implements ITileSource {
+  static final int TILE_SIZE = 256;
+  static final int MAX_TILES = 256;
+
+  private final IImageState image;
+  private final List<ITransformation> chain;
+  private final Executor executor;
+  // the computed tiles by key, the least recently asked for first
+  private final Map<Long, BufferedImage> tiles;
+  private final Set<Long> computing;
+  private volatile boolean closed;
+
+  /**
+   * Constructs a TiledResult object with the image, the chain to run on it and
+   * the executor computing the tiles.
+   *
+   * @param image The image to run the chain on.
+   * @param chain The transformations, the first one to run first.
+   * @param executor The executor computing the tiles.
+   * @throws IllegalArgumentException if any of the arguments is null or the
+   *     chain has no halo.
+   */
+  TiledResult(IImageState image, List<ITransformation> chain, Executor executor) {
+    if (image == null || chain == null || executor == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    if (RegionRun.getHalo(chain) < 0) {
+      throw new IllegalArgumentException("Transformations without a halo.");
+    }
+    this.image = image;
+    this.chain = List.copyOf(chain);
+    this.executor = executor;
+    this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+        return size() > MAX_TILES;
+      }
+    };
+    this.computing = ConcurrentHashMap.newKeySet();
+  }
+
+  @Override
+  public int getWidth() {
+    return this.image.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.image.getHeight();
+  }
+
+  @Override
+  public int getTileSize() {
+    return TILE_SIZE;
+  }
+
+  @Override
+  public BufferedImage getTile(int column, int row, Runnable ready) {
+    if (column < 0 || row < 0 || (long) column * TILE_SIZE >= getWidth()
+            || (long) row * TILE_SIZE >= getHeight()) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+    if (ready == null) {
+      throw new IllegalArgumentException("Null action.");
+    }
+    Long key = ((long) row << 32) | column;
+    BufferedImage tile = computed(key);
+    if (tile != null || this.closed || !this.computing.add(key)) {
+      return tile;
+    }
+
+    this.executor.execute(() -> {
+      try {
+        if (!this.closed) {
+          BufferedImage computed = compute(column, row);
+          synchronized (this.tiles) {
+            this.tiles.put(key, computed);
+          }
+          ready.run();
+        }
+      } catch (RuntimeException e) {
+        // the tile stays missing, the image replaces the tiles once computed
+      } finally {
+        this.computing.remove(key);
+      }
+    });
+    // an executor running the task right away has computed the tile
+    return computed(key);
+  }
+
+  /**
+   * Stops computing the tiles and drops the computed ones.
+   */
+  void close() {
+    this.closed = true;
+    synchronized (this.tiles) {
+      this.tiles.clear();
+    }
+  }
+
+  // helper method to get a computed tile, or null
+  private BufferedImage computed(Long key) {
+    synchronized (this.tiles) {
+      return this.tiles.get(key);
+    }
+  }
+
+  // helper method to compute the tile at the column and the row of tiles
+  private BufferedImage compute(int column, int row) {
+    int x = column * TILE_SIZE;
+    int y = row * TILE_SIZE;
+    int w = Math.min(TILE_SIZE, getWidth() - x);
+    int h = Math.min(TILE_SIZE, getHeight() - y);
+    IImageState region = RegionRun.run(this.chain, this.image, x, y, w, h);
+    BufferedImage tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+    region.getRegion(0, 0, w, h, ((DataBufferInt) tile.getRaster().getDataBuffer()).getData());
+    return tile;
+  }
+}
@@ -0,0 +1,136 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ViewEvents class queues the events of the graphical view waiting to be
+ * handled by the controller, and coalesces the events taken together so only
+ * the latest state asked for is computed.
+ *
+ * <p>Consecutive brighten events whose increments have the same sign are
+ * merged into one brighten by their sum. Clamping the channel values to 0 and
+ * 255 after each one gives the same values as clamping once after the sum
+ * when every increment goes the same way, which is not the case otherwise.
+ * No event is dropped, not even the edits a load would replace, since the
+ * load may fail and leave their result shown.
+ */
+final class ViewEvents {
+
+  /**
+   * The kinds of the events of the graphical view.
+   */
+  enum Kind { LOAD, BRIGHTEN, FILTER, SAVE }
+
+  /**
+   * An event of the graphical view, its kind and its argument.
+   */
+  static final class Event {
+    private final Kind kind;
+    private final String argument;
+
+    Event(Kind kind, String argument) {
+      this.kind = kind;
+      this.argument = argument;
+    }
+
+    Kind getKind() {
+      return this.kind;
+    }
+
+    String getArgument() {
+      return this.argument;
+    }
+  }
+
+  private final List<Event> queue;
+
+  /**
+   * Constructs a ViewEvents object holding no events.
+   */
+  ViewEvents() {
+    this.queue = new ArrayList<>();
+  }
+
+  /**
+   * Adds an event after the events waiting.
+   *
+   * @param event The event to add.
+   */
+  synchronized void add(Event event) {
+    this.queue.add(event);
+  }
+
+  /**
+   * Takes all of the events waiting, coalesced, leaving none.
+   *
+   * @return The coalesced events, the first one first.
+   */
+  synchronized List<Event> takeAll() {
+    List<Event> events = coalesce(this.queue);
+    this.queue.clear();
+    return events;
+  }
+
+  /**
+   * Return whether any event is waiting.
+   *
+   * @return true if an event is waiting.
+   */
+  synchronized boolean hasWaiting() {
+    return !this.queue.isEmpty();
+  }
+
+  /**
+   * Drops all of the events waiting.
+   */
+  synchronized void clear() {
+    this.queue.clear();
+  }
+
+  /**
+   * Coalesces the events, merging consecutive brighten events going the same
+   * way.
+   *
+   * @param events The events, the first one first.
+   * @return The coalesced events, the first one first.
+   */
+  static List<Event> coalesce(List<Event> events) {
+    List<Event> result = new ArrayList<>();
+    for (Event event : events) {
+      if (event.getKind() == Kind.BRIGHTEN && !result.isEmpty()) {
+        Event merged = merge(result.get(result.size() - 1), event);
+        if (merged != null) {
+          result.set(result.size() - 1, merged);
+          continue;
+        }
+      }
+      result.add(event);
+    }
+    return result;
+  }
+
+  // helper method to merge two brighten events into one, or null if they are
+  // not both brighten events by integers going the same way.
+  private static Event merge(Event first, Event second) {
+    if (first.getKind() != Kind.BRIGHTEN || second.getKind() != Kind.BRIGHTEN) {
+      return null;
+    }
+    int a;
+    int b;
+    try {
+      a = Integer.parseInt(first.getArgument());
+      b = Integer.parseInt(second.getArgument());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if ((a < 0 && b > 0) || (a > 0 && b < 0)) {
+      return null;
+    }
+    long sum = (long) a + b;
+    if (sum != (int) sum) {
+      return null;
+    }
+    return new Event(Kind.BRIGHTEN, Long.toString(sum));
+  }
+}
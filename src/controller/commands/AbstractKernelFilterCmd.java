@@ -2,9 +2,8 @@ package controller.commands;
 
 import java.util.Scanner;
 
-import model.IImageDatabase;
-import model.images.IImageState;
 import model.transformation.BlurSharpen;
+import model.transformation.EdgeMode;
 import model.transformation.ITransformation;
 
 /**
@@ -15,42 +14,76 @@ import model.transformation.ITransformation;
 public abstract class AbstractKernelFilterCmd implements ICmd {
 
   private double[][] kernel;
+  private final EdgeMode edge;
+  private final boolean fixedPoint;
 
   /**
-   * Constructs an AbstractKernelFilterCmd object with the specified kernel.
+   * Constructs an AbstractKernelFilterCmd object with the specified kernel,
+   * reading the positions outside of the image as zero.
    *
    * @param kernel The 2D double array representing the kernel to be used for the filter.
    * @throws IllegalArgumentException if the kernel is null or has invalid dimensions.
    */
   public AbstractKernelFilterCmd(double[][] kernel) {
+    this(kernel, EdgeMode.ZERO);
+  }
+
+  /**
+   * Constructs an AbstractKernelFilterCmd object with the specified kernel and
+   * the edge mode the filter reads the positions outside of the image with.
+   *
+   * @param kernel The 2D double array representing the kernel to be used for the filter.
+   * @param edge The edge mode for the positions outside of the image.
+   * @throws IllegalArgumentException if the kernel is null or has invalid dimensions,
+   *     or the edge mode is null.
+   */
+  public AbstractKernelFilterCmd(double[][] kernel, EdgeMode edge) {
+    this(kernel, edge, false);
+  }
+
+  /**
+   * Constructs an AbstractKernelFilterCmd object with the specified kernel and
+   * the edge mode the filter reads the positions outside of the image with,
+   * whose filter runs in fixed-point mode if asked to.
+   *
+   * @param kernel The 2D double array representing the kernel to be used for the filter.
+   * @param edge The edge mode for the positions outside of the image.
+   * @param fixedPoint true to run the filter in fixed-point mode.
+   * @throws IllegalArgumentException if the kernel is null or has invalid dimensions,
+   *     or the edge mode is null.
+   */
+  public AbstractKernelFilterCmd(double[][] kernel, EdgeMode edge, boolean fixedPoint) {
     if (kernel == null || kernel.length < 3 || kernel.length % 2 == 0) {
       throw new IllegalArgumentException("Invalid filter kernel.");
     }
+    if (edge == null) {
+      throw new IllegalArgumentException("Invalid edge mode.");
+    }
     this.kernel = kernel;
+    this.edge = edge;
+    this.fixedPoint = fixedPoint;
   }
 
   /**
-   * Executes the command to apply a kernel-based filter to an image in the image database.
-   * and add a new IImageState object to model
+   * Reads the ids of the command into a call of the kernel-based filter.
    *
    * @param scan The scanner used to read command-line input.
-   * @param m The image database model to perform the operation on.
-   * @throws IllegalArgumentException if either the scanner or the model is null.
-   * @throws IllegalStateException if there's an issue during the execution of the command.
+   * @return The call of the filter.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
    */
   @Override
-  public void execute(Scanner scan, IImageDatabase m) {
-    if (scan == null || m == null) {
+  public ICmdCall parse(Scanner scan) {
+    if (scan == null) {
       throw new IllegalArgumentException("Null model/command line.");
     }
 
     try {
       String idImage = scan.next();
       String dest = scan.next();
-      IImageState image = m.getImage(idImage);
-      ITransformation blurSharpen = new BlurSharpen(this.kernel);
-      IImageState newImage = blurSharpen.run(image);
-      m.addImage(dest, newImage);
+      ITransformation blurSharpen = new BlurSharpen(this.kernel, this.edge, this.fixedPoint);
+      return new TransformationCall(blurSharpen, idImage, dest,
+              "Cannot use kernel to filter the image.\n");
     } catch (Exception e) {
       throw new IllegalStateException("Cannot use kernel to filter the image.\n");
     }
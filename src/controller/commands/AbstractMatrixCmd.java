@@ -2,8 +2,6 @@ package controller.commands;
 
 import java.util.Scanner;
 
-import model.IImageDatabase;
-import model.images.IImageState;
 import model.transformation.ITransformation;
 import model.transformation.MatrixGreyscale;
 
@@ -14,6 +12,7 @@ import model.transformation.MatrixGreyscale;
  */
 public abstract class AbstractMatrixCmd implements ICmd {
   private double[][] kernel;
+  private final boolean fixedPoint;
 
   /**
    * Constructs an AbstractMatrixCmd object with the specified 3x3 grayscale kernel.
@@ -25,36 +24,47 @@ public abstract class AbstractMatrixCmd implements ICmd {
    *     are not 3x3.
    */
   public AbstractMatrixCmd(double[][] kernel) {
+    this(kernel, false);
+  }
+
+  /**
+   * Constructs an AbstractMatrixCmd object with the specified 3x3 grayscale kernel,
+   * whose transformation runs in fixed-point mode if asked to.
+   *
+   * @param kernel The 3x3 double array representing the kernel for the
+   *     grayscale transformation.
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   * @throws IllegalArgumentException if the kernel is null or its dimensions
+   *     are not 3x3.
+   */
+  public AbstractMatrixCmd(double[][] kernel, boolean fixedPoint) {
     if (kernel == null || kernel.length != 3 || kernel[0].length != 3) {
       throw new IllegalArgumentException("Invalid grayscale kernel.");
     }
     this.kernel = kernel;
+    this.fixedPoint = fixedPoint;
   }
 
   /**
-   * Applies the matrix-based grayscale transformation to the input image and
-   * stores the transformed image in the image database with the specified
-   * destination identifier.
+   * Reads the ids of the command into a call of the matrix-based grayscale transformation.
    *
    * @param scan The scanner used to read command-line input.
-   * @param m The image database model to perform the operation on.
-   * @throws IllegalArgumentException if either the scanner or the model is null.
-   * @throws IllegalStateException if there's an issue during the execution
-   *     of the command.
+   * @return The call of the grayscale transformation.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
    */
   @Override
-  public void execute(Scanner scan, IImageDatabase m) {
-    if (scan == null || m == null) {
+  public ICmdCall parse(Scanner scan) {
+    if (scan == null) {
       throw new IllegalArgumentException("Null model/command line.");
     }
 
     try {
       String idImage = scan.next();
       String dest = scan.next();
-      IImageState image = m.getImage(idImage);
-      ITransformation matrixGray = new MatrixGreyscale(this.kernel);
-      IImageState newImage = matrixGray.run(image);
-      m.addImage(dest, newImage);
+      ITransformation matrixGray = new MatrixGreyscale(this.kernel, this.fixedPoint);
+      return new TransformationCall(matrixGray, idImage, dest,
+              "Cannot use kernel to grayscale the image.\n");
     } catch (Exception e) {
       throw new IllegalStateException("Cannot use kernel to grayscale the image.\n");
     }
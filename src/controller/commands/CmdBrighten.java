@@ -2,10 +2,7 @@ package controller.commands;
 
 import java.util.Scanner;
 
-import model.IImageDatabase;
-import model.images.IImageState;
 import model.transformation.BrighterDarker;
-import model.transformation.ITransformation;
 
 /**
  * This class implements the ICmd interface to apply a brightened or darkened
@@ -14,17 +11,17 @@ import model.transformation.ITransformation;
 public class CmdBrighten implements ICmd {
 
   /**
-   * Executes the command to apply a brightened or darken transformation
-   * to an image in the image database.
+   * Reads the increment and the ids of the brighten or darken command
+   * into a call of the transformation.
    *
    * @param scan The scanner used to read command-line input.
-   * @param m The image database model to perform the operation on.
-   * @throws IllegalArgumentException if either the scanner or the model is null.
-   * @throws IllegalStateException if there's an issue during the execution of the command.
+   * @return The call of the brighten or darken transformation.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
    */
   @Override
-  public void execute(Scanner scan, IImageDatabase m) {
-    if (scan == null || m == null) {
+  public ICmdCall parse(Scanner scan) {
+    if (scan == null) {
       throw new IllegalArgumentException("Null model/command line.");
     }
 
@@ -36,10 +33,8 @@ public class CmdBrighten implements ICmd {
     try {
       String idImage = scan.next();
       String dest = scan.next();
-      IImageState image = m.getImage(idImage);
-      ITransformation brighter = new BrighterDarker(value);
-      IImageState newImage = brighter.run(image);
-      m.addImage(dest, newImage);
+      return new TransformationCall(new BrighterDarker(value), idImage, dest,
+              "Cannot brighten/darken the image.\n");
     } catch (Exception e) {
       throw new IllegalStateException("Cannot brighten/darken the image.\n");
     }
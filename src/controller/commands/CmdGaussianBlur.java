@@ -1,5 +1,7 @@
 package controller.commands;
 
+import model.transformation.EdgeMode;
+
 /**
  * The CmdGaussianBlur class represents a command that applies a Gaussian blur
  * filter to an image in the image database. It extends the AbstractKernelFilterCmd class,
@@ -13,10 +15,34 @@ public class CmdGaussianBlur extends AbstractKernelFilterCmd implements ICmd {
    * Gaussian blur effect.
    */
   public CmdGaussianBlur() {
+    this(EdgeMode.ZERO);
+  }
+
+  /**
+   * Constructs a CmdGaussianBlur object with the pre-defined Gaussian blur kernel and the
+   * edge mode the filter reads the positions outside of the image with.
+   *
+   * @param edge The edge mode for the positions outside of the image.
+   * @throws IllegalArgumentException if the edge mode is null.
+   */
+  public CmdGaussianBlur(EdgeMode edge) {
+    this(edge, false);
+  }
+
+  /**
+   * Constructs a CmdGaussianBlur object with the pre-defined Gaussian blur kernel and the
+   * edge mode the filter reads the positions outside of the image with, whose
+   * filter runs in fixed-point mode if asked to.
+   *
+   * @param edge The edge mode for the positions outside of the image.
+   * @param fixedPoint true to run the filter in fixed-point mode.
+   * @throws IllegalArgumentException if the edge mode is null.
+   */
+  public CmdGaussianBlur(EdgeMode edge, boolean fixedPoint) {
     super(new double[][]{
             {1.0 / 16, 1.0 / 8, 1.0 / 16},
             {1.0 / 8, 1.0 / 4, 1.0 / 8},
             {1.0 / 16, 1.0 / 8, 1.0 / 16}
-    });
+    }, edge, fixedPoint);
   }
 }
@@ -2,8 +2,6 @@ package controller.commands;
 
 import java.util.Scanner;
 
-import model.IImageDatabase;
-import model.images.IImageState;
 import model.transformation.ITransformation;
 
 /**
@@ -27,26 +25,23 @@ public class CmdGreyscale implements ICmd {
   }
 
   /**
-   * Executes the command to apply a greyscale transformation to an image and add it to
-   * the image database.
+   * Reads the ids of the greyscale command into a call of the transformation.
    *
    * @param scan The scanner used to read command-line input.
-   * @param m The image database model to perform the operation on.
-   * @throws IllegalArgumentException if either the scanner or the model is null.
-   * @throws IllegalStateException if there's an issue during the execution of the command.
+   * @return The call of the greyscale transformation.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
    */
   @Override
-  public void execute(Scanner scan, IImageDatabase m) {
-    if (scan == null || m == null) {
+  public ICmdCall parse(Scanner scan) {
+    if (scan == null) {
       throw new IllegalArgumentException("Null model/command line.");
     }
 
     try {
       String idImage = scan.next();
       String dest = scan.next();
-      IImageState image = m.getImage(idImage);
-      IImageState newImage = this.s.run(image);
-      m.addImage(dest, newImage);
+      return new TransformationCall(this.s, idImage, dest, "Cannot greyscale the image.\n");
     } catch (Exception e) {
       throw new IllegalStateException("Cannot greyscale the image.\n");
     }
@@ -1,12 +1,15 @@
 package controller.commands;
 
+import java.util.List;
 import java.util.Scanner;
 
 import controller.loadersaver.ConventionalLoader;
 import controller.loadersaver.IImageLoader;
+import controller.loadersaver.PPMFormat;
 import controller.loadersaver.PPMLoader;
 import model.IImageDatabase;
 import model.images.IImageState;
+import model.transformation.ITransformation;
 
 /**
  * This class implements the ICmd interface to load an image in the image file
@@ -15,33 +18,77 @@ import model.images.IImageState;
 public class CmdLoad implements ICmd {
 
   /**
-   * Executes the command to load an image in image file into the image database.
+   * Reads the file name and the id of the load command into a call that loads
+   * the image in the image file into the image database.
    *
    * @param scan The scanner used to read command-line input.
-   * @param m The image database model to perform the operation on.
-   * @throws IllegalArgumentException if either the scanner or the model is null.
-   * @throws IllegalStateException if there's an issue during the execution of the command.
+   * @return The call of the load command.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
    */
   @Override
-  public void execute(Scanner scan, IImageDatabase m) {
-    if (scan == null || m == null) {
+  public ICmdCall parse(Scanner scan) {
+    if (scan == null) {
       throw new IllegalArgumentException("Null model/command line.");
     }
 
     try {
       String filename = scan.next();
       String idImage = scan.next();
-      String extension = filename.substring(filename.lastIndexOf("."));
-      IImageLoader loader;
-      if (extension.equalsIgnoreCase(".ppm")) {
-        loader = new PPMLoader(filename);
-      } else {
-        loader = new ConventionalLoader(filename);
-      }
-      IImageState image = loader.loadImage();
-      m.addImage(idImage, image);
+      return new LoadCall(filename, idImage);
     } catch (Exception e) {
       throw new IllegalStateException("Cannot load the image.\n");
     }
   }
+
+  // the call of the load command, reading no image of the image database.
+  private static class LoadCall implements ICmdCall {
+    private final String filename;
+    private final String idImage;
+
+    LoadCall(String filename, String idImage) {
+      this.filename = filename;
+      this.idImage = idImage;
+    }
+
+    @Override
+    public List<String> getSources() {
+      return List.of();
+    }
+
+    @Override
+    public String getDestination() {
+      return this.idImage;
+    }
+
+    @Override
+    public List<String> getFiles() {
+      return List.of(this.filename);
+    }
+
+    @Override
+    public ITransformation getTransformation() {
+      return null;
+    }
+
+    @Override
+    public void run(IImageDatabase m) {
+      if (m == null) {
+        throw new IllegalArgumentException("Null model/command line.");
+      }
+
+      try {
+        IImageLoader loader;
+        if (PPMFormat.ofFile(this.filename) != null) {
+          loader = new PPMLoader(this.filename);
+        } else {
+          loader = new ConventionalLoader(this.filename);
+        }
+        IImageState image = loader.loadImage();
+        m.addImage(this.idImage, image);
+      } catch (Exception e) {
+        throw new IllegalStateException("Cannot load the image.\n");
+      }
+    }
+  }
 }
@@ -11,10 +11,20 @@ public class CmdMatrixBlue extends AbstractMatrixCmd implements ICmd {
    * Constructs a CmdMatrixBlue object with the specific 3x3 kernel.
    */
   public CmdMatrixBlue() {
+    this(false);
+  }
+
+  /**
+   * Constructs a CmdMatrixBlue object with the specific 3x3 kernel, whose
+   * transformation runs in fixed-point mode if asked to.
+   *
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   */
+  public CmdMatrixBlue(boolean fixedPoint) {
     super(new double[][] {
             {0, 0, 1},
             {0, 0, 1},
             {0, 0, 1}
-    });
+    }, fixedPoint);
   }
 }
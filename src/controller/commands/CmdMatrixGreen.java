@@ -11,10 +11,20 @@ public class CmdMatrixGreen extends AbstractMatrixCmd implements ICmd {
    * Constructs a CmdMatrixGreen object with the specific 3x3 kernel.
    */
   public CmdMatrixGreen() {
+    this(false);
+  }
+
+  /**
+   * Constructs a CmdMatrixGreen object with the specific 3x3 kernel, whose
+   * transformation runs in fixed-point mode if asked to.
+   *
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   */
+  public CmdMatrixGreen(boolean fixedPoint) {
     super(new double[][] {
             {0, 1, 0},
             {0, 1, 0},
             {0, 1, 0}
-    });
+    }, fixedPoint);
   }
 }
@@ -11,10 +11,20 @@ public class CmdMatrixIntensity extends AbstractMatrixCmd implements ICmd {
    * Constructs a CmdMatrixIntensity object with the specific 3x3 kernel.
    */
   public CmdMatrixIntensity() {
+    this(false);
+  }
+
+  /**
+   * Constructs a CmdMatrixIntensity object with the specific 3x3 kernel, whose
+   * transformation runs in fixed-point mode if asked to.
+   *
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   */
+  public CmdMatrixIntensity(boolean fixedPoint) {
     super(new double[][] {
             {1.0 / 3, 1.0 / 3, 1.0 / 3},
             {1.0 / 3, 1.0 / 3, 1.0 / 3},
             {1.0 / 3, 1.0 / 3, 1.0 / 3}
-    });
+    }, fixedPoint);
   }
 }
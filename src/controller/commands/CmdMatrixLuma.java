@@ -11,10 +11,20 @@ public class CmdMatrixLuma extends AbstractMatrixCmd implements ICmd {
    * Constructs a CmdMatrixLuma object with the specific 3x3 kernel.
    */
   public CmdMatrixLuma() {
+    this(false);
+  }
+
+  /**
+   * Constructs a CmdMatrixLuma object with the specific 3x3 kernel, whose
+   * transformation runs in fixed-point mode if asked to.
+   *
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   */
+  public CmdMatrixLuma(boolean fixedPoint) {
     super(new double[][] {
             {0.2126, 0.7152, 0.0722},
             {0.2126, 0.7152, 0.0722},
             {0.2126, 0.7152, 0.0722}
-    });
+    }, fixedPoint);
   }
 }
@@ -11,10 +11,20 @@ public class CmdMatrixRed extends AbstractMatrixCmd implements ICmd {
    * Constructs a CmdMatrixRed object with the specific 3x3 kernel.
    */
   public CmdMatrixRed() {
+    this(false);
+  }
+
+  /**
+   * Constructs a CmdMatrixRed object with the specific 3x3 kernel, whose
+   * transformation runs in fixed-point mode if asked to.
+   *
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   */
+  public CmdMatrixRed(boolean fixedPoint) {
     super(new double[][] {
             {1, 0, 0},
             {1, 0, 0},
             {1, 0, 0}
-    });
+    }, fixedPoint);
   }
 }
@@ -12,10 +12,20 @@ public class CmdMatrixSepia extends AbstractMatrixCmd implements ICmd {
    * that applies the sepia-toned transformation.
    */
   public CmdMatrixSepia() {
+    this(false);
+  }
+
+  /**
+   * Constructs a CmdMatrixSepia object with the specific 3x3 kernel, whose
+   * transformation runs in fixed-point mode if asked to.
+   *
+   * @param fixedPoint true to run the transformation in fixed-point mode.
+   */
+  public CmdMatrixSepia(boolean fixedPoint) {
     super(new double[][] {
             {0.393, 0.769, 0.189},
             {0.349, 0.686, 0.168},
             {0.272, 0.534, 0.131}
-    });
+    }, fixedPoint);
   }
 }
@@ -1,50 +1,97 @@
 package controller.commands;
 
-import java.io.ByteArrayOutputStream;
+import java.util.List;
 import java.util.Scanner;
 
 import controller.loadersaver.ConventionalSaver;
 import controller.loadersaver.IImageSaver;
+import controller.loadersaver.PPMFormat;
 import controller.loadersaver.PPMSaver;
 import model.IImageDatabase;
 import model.images.IImageState;
+import model.transformation.ITransformation;
 
 /**
  * This class implements the ICmd interface to save an image in the PPM or
- * conventional format.
+ * conventional format. A ".ppm" file is saved as plain text P3, a ".pnm"
+ * file as binary P6 and a ".pgm" file as binary greyscale P5.
  */
 public class CmdSave implements ICmd {
 
   /**
-   * Executes the command to save an image in the PPM or conventional format.
+   * Reads the file name and the id of the save command into a call that saves
+   * the image in the PPM or conventional format.
    *
    * @param scan The scanner used to read command-line input.
-   * @param m The image database model to perform the operation on.
-   * @throws IllegalArgumentException if either the scanner or the model is null.
-   * @throws IllegalStateException if there's an issue during the execution of the command.
+   * @return The call of the save command.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
    */
   @Override
-  public void execute(Scanner scan, IImageDatabase m) {
-    if (scan == null || m == null) {
+  public ICmdCall parse(Scanner scan) {
+    if (scan == null) {
       throw new IllegalArgumentException("Null model/command line.");
     }
 
     try {
       String filename = scan.next();
       String idImage = scan.next();
-      IImageState image = m.getImage(idImage);
-      String extension = filename.substring(filename.lastIndexOf("."));
-
-      IImageSaver saver;
-      if (extension.equalsIgnoreCase(".ppm")) {
-        saver = new PPMSaver(filename, image, new StringBuilder());
-      } else {
-        saver = new ConventionalSaver(filename, image,
-                new ByteArrayOutputStream());
-      }
-      saver.run();
+      return new SaveCall(filename, idImage);
     } catch (Exception e) {
       throw new IllegalStateException("Cannot save the image.\n");
     }
   }
+
+  // the call of the save command, adding no image to the image database.
+  private static class SaveCall implements ICmdCall {
+    private final String filename;
+    private final String idImage;
+
+    SaveCall(String filename, String idImage) {
+      this.filename = filename;
+      this.idImage = idImage;
+    }
+
+    @Override
+    public List<String> getSources() {
+      return List.of(this.idImage);
+    }
+
+    @Override
+    public String getDestination() {
+      return null;
+    }
+
+    @Override
+    public List<String> getFiles() {
+      return List.of(this.filename);
+    }
+
+    @Override
+    public ITransformation getTransformation() {
+      return null;
+    }
+
+    @Override
+    public void run(IImageDatabase m) {
+      if (m == null) {
+        throw new IllegalArgumentException("Null model/command line.");
+      }
+
+      try {
+        IImageState image = m.getImage(this.idImage);
+        PPMFormat format = PPMFormat.ofFile(this.filename);
+
+        IImageSaver saver;
+        if (format != null) {
+          saver = new PPMSaver(this.filename, format, image);
+        } else {
+          saver = new ConventionalSaver(this.filename, image);
+        }
+        saver.run();
+      } catch (Exception e) {
+        throw new IllegalStateException("Cannot save the image.\n");
+      }
+    }
+  }
 }
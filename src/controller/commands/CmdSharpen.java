@@ -1,5 +1,7 @@
 package controller.commands;
 
+import model.transformation.EdgeMode;
+
 /**
  * The CmdSharpen class represents a command that applies a sharpening
  * filter to an image in the image database. It extends the AbstractKernelFilterCmd class
@@ -13,12 +15,36 @@ public class CmdSharpen extends AbstractKernelFilterCmd implements ICmd {
    * sharpening effect.
    */
   public CmdSharpen() {
+    this(EdgeMode.ZERO);
+  }
+
+  /**
+   * Constructs a CmdSharpen object with the pre-defined sharpening kernel and the
+   * edge mode the filter reads the positions outside of the image with.
+   *
+   * @param edge The edge mode for the positions outside of the image.
+   * @throws IllegalArgumentException if the edge mode is null.
+   */
+  public CmdSharpen(EdgeMode edge) {
+    this(edge, false);
+  }
+
+  /**
+   * Constructs a CmdSharpen object with the pre-defined sharpening kernel and the
+   * edge mode the filter reads the positions outside of the image with, whose
+   * filter runs in fixed-point mode if asked to.
+   *
+   * @param edge The edge mode for the positions outside of the image.
+   * @param fixedPoint true to run the filter in fixed-point mode.
+   * @throws IllegalArgumentException if the edge mode is null.
+   */
+  public CmdSharpen(EdgeMode edge, boolean fixedPoint) {
     super(new double[][] {
             {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
             {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
             {- 1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, - 1.0 / 8},
             {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
             {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
-    });
+    }, edge, fixedPoint);
   }
 }
@@ -11,12 +11,29 @@ import model.IImageDatabase;
 public interface ICmd {
 
   /**
-   * Executes the command to perform a specific operation on the image database.
+   * Reads the arguments of the command from the scanner into a call that can
+   * be run on an image database later.
+   *
+   * @param scan The scanner used to read command-line input.
+   * @return The parsed call of this command.
+   * @throws IllegalArgumentException if the scanner is null.
+   * @throws IllegalStateException if the arguments of the command are not valid.
+   */
+  ICmdCall parse(Scanner scan);
+
+  /**
+   * Executes the command to perform a specific operation on the image database,
+   * by parsing the call of the command and running it right away.
    *
    * @param scan The scanner used to read command-line input.
    * @param model The image database model to perform the operation on.
    * @throws IllegalArgumentException if either the scanner or the model is null.
    * @throws IllegalStateException if there's an issue during the execution of the command.
    */
-  void execute(Scanner scan, IImageDatabase model);
+  default void execute(Scanner scan, IImageDatabase model) {
+    if (scan == null || model == null) {
+      throw new IllegalArgumentException("Null model/command line.");
+    }
+    parse(scan).run(model);
+  }
 }
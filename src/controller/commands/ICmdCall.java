@@ -0,0 +1,69 @@
+package controller.commands;
+
+import java.util.List;
+
+import model.IImageDatabase;
+import model.transformation.ITransformation;
+import model.transformation.ResultCache;
+
+/**
+ * This interface represents one parsed call of a command, holding the ids of
+ * the images it reads and writes, so that a script of calls can be looked at
+ * before it runs.
+ */
+public interface ICmdCall {
+
+  /**
+   * Return the ids of the images this call reads from the image database.
+   *
+   * @return The ids of the images read, empty if none.
+   */
+  List<String> getSources();
+
+  /**
+   * Return the id of the image this call adds to the image database.
+   *
+   * @return The id of the image written, or null if none.
+   */
+  String getDestination();
+
+  /**
+   * Return the paths of the files this call reads or writes.
+   *
+   * @return The paths of the files, empty if none.
+   */
+  List<String> getFiles();
+
+  /**
+   * Return the transformation this call runs on its only source image to
+   * give its destination image.
+   *
+   * @return The transformation of this call, or null if it is not a call
+   *     that transforms one image into another.
+   */
+  ITransformation getTransformation();
+
+  /**
+   * Runs this call on the image database.
+   *
+   * @param model The image database model to perform the operation on.
+   * @throws IllegalArgumentException if the model is null.
+   * @throws IllegalStateException if there's an issue during the execution of the call.
+   */
+  void run(IImageDatabase model);
+
+  /**
+   * Runs this call on the image database, taking the transformed image from
+   * the result cache when it holds one. Calls that transform no image run as
+   * they do without a cache.
+   *
+   * @param model The image database model to perform the operation on.
+   * @param cache The result cache to look the transformed image up in, or null
+   *     to always run the transformation.
+   * @throws IllegalArgumentException if the model is null.
+   * @throws IllegalStateException if there's an issue during the execution of the call.
+   */
+  default void run(IImageDatabase model, ResultCache cache) {
+    run(model);
+  }
+}
@@ -0,0 +1,54 @@
+package controller.commands;
+
+import java.util.List;
+
+import model.IImageDatabase;
+import model.transformation.ITransformation;
+
+/**
+ * This class implements the ICmdCall interface for a command that could not
+ * be parsed, such as an unknown command or a command missing its arguments.
+ * Running it throws the exception the parsing failed with, so its message is
+ * shown at the place of the command in the script.
+ */
+public class InvalidCall implements ICmdCall {
+  private final RuntimeException failure;
+
+  /**
+   * Constructs an InvalidCall object with the exception the parsing failed with.
+   *
+   * @param failure The exception to throw when the call runs.
+   * @throws IllegalArgumentException if the exception is null.
+   */
+  public InvalidCall(RuntimeException failure) {
+    if (failure == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.failure = failure;
+  }
+
+  @Override
+  public List<String> getSources() {
+    return List.of();
+  }
+
+  @Override
+  public String getDestination() {
+    return null;
+  }
+
+  @Override
+  public List<String> getFiles() {
+    return List.of();
+  }
+
+  @Override
+  public ITransformation getTransformation() {
+    return null;
+  }
+
+  @Override
+  public void run(IImageDatabase model) {
+    throw this.failure;
+  }
+}
@@ -0,0 +1,128 @@
+package controller.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.loadersaver.ConventionalLoader;
+import controller.loadersaver.IImageLoader;
+import controller.loadersaver.PPMFormat;
+import controller.loadersaver.PPMLoader;
+import controller.loadersaver.PPMSaver;
+import model.IImageDatabase;
+import model.images.IRowSource;
+import model.transformation.ITransformation;
+
+/**
+ * This class implements the ICmdCall interface for a call that loads an image
+ * file, runs transformations on it one after another and saves the result
+ * into a PPM file in the format of its extension, see PPMFormat, streaming
+ * the rows from the loader through the transformations to the saver. No
+ * image is added to the image database, and only the rows each stage needs
+ * are held at a time. The file is written under a temporary name and moved
+ * into place once it is whole, so a call that fails leaves the saved file as
+ * it was.
+ */
+public class StreamCall implements ICmdCall {
+  private final String loadFile;
+  private final List<ITransformation> transformations;
+  private final String saveFile;
+
+  /**
+   * Constructs a StreamCall object with the file to load, the transformations
+   * to run in order and the PPM file to save.
+   *
+   * @param loadFile The path of the image file to load.
+   * @param transformations The transformations to run, the first one first.
+   * @param saveFile The path of the PPM file to save.
+   * @throws IllegalArgumentException if any of the arguments is null or the
+   *     transformations hold null.
+   */
+  public StreamCall(String loadFile, List<ITransformation> transformations,
+                    String saveFile) {
+    if (loadFile == null || transformations == null || saveFile == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.transformations = new ArrayList<>(transformations);
+    if (this.transformations.contains(null)) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.loadFile = loadFile;
+    this.saveFile = saveFile;
+  }
+
+  @Override
+  public List<String> getSources() {
+    return List.of();
+  }
+
+  @Override
+  public String getDestination() {
+    return null;
+  }
+
+  @Override
+  public List<String> getFiles() {
+    return List.of(this.loadFile, this.saveFile);
+  }
+
+  @Override
+  public ITransformation getTransformation() {
+    return null;
+  }
+
+  @Override
+  public void run(IImageDatabase model) {
+    if (model == null) {
+      throw new IllegalArgumentException("Null model/command line.");
+    }
+
+    Path temporary = null;
+    try {
+      Path target = Paths.get(this.saveFile).toAbsolutePath();
+      temporary = Files.createTempFile(target.getParent(), ".stream", ".tmp");
+      PPMSaver saver;
+      IRowSource rows = loader().loadRows();
+      try {
+        for (ITransformation transformation : this.transformations) {
+          rows = transformation.stream(rows);
+        }
+        saver = new PPMSaver(temporary.toString(), PPMFormat.ofFile(this.saveFile), rows);
+      } catch (RuntimeException e) {
+        // the saver closes the rows once it has them, until then they are ours
+        rows.close();
+        throw e;
+      }
+      saver.run();
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot save the image.\n");
+    } finally {
+      deleteTemporary(temporary);
+    }
+  }
+
+  // helper method to get the loader of the file to load by its extension
+  private IImageLoader loader() {
+    if (PPMFormat.ofFile(this.loadFile) != null) {
+      return new PPMLoader(this.loadFile);
+    }
+    return new ConventionalLoader(this.loadFile);
+  }
+
+  // helper method to delete the temporary file if it was not moved into place
+  private static void deleteTemporary(Path temporary) {
+    if (temporary == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(temporary);
+    } catch (IOException e) {
+      // a temporary file left behind does not change the saved file
+    }
+  }
+}
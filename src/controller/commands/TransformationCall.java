@@ -0,0 +1,83 @@
+package controller.commands;
+
+import java.util.List;
+
+import model.IImageDatabase;
+import model.images.IImageState;
+import model.transformation.ITransformation;
+import model.transformation.ResultCache;
+
+/**
+ * This class implements the ICmdCall interface for a call that runs a
+ * transformation on one image of the image database and adds the transformed
+ * image under the destination id.
+ */
+public class TransformationCall implements ICmdCall {
+  private final ITransformation transformation;
+  private final String source;
+  private final String destination;
+  private final String failure;
+
+  /**
+   * Constructs a TransformationCall object with the transformation to run, the
+   * ids of the image to read and to write, and the message of the exception
+   * thrown when the call fails.
+   *
+   * @param transformation The transformation to run on the source image.
+   * @param source The id of the image to transform.
+   * @param destination The id to add the transformed image with.
+   * @param failure The message of the exception thrown when the call fails.
+   * @throws IllegalArgumentException if any of the arguments is null.
+   */
+  public TransformationCall(ITransformation transformation, String source,
+                            String destination, String failure) {
+    if (transformation == null || source == null || destination == null || failure == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.transformation = transformation;
+    this.source = source;
+    this.destination = destination;
+    this.failure = failure;
+  }
+
+  @Override
+  public List<String> getSources() {
+    return List.of(this.source);
+  }
+
+  @Override
+  public String getDestination() {
+    return this.destination;
+  }
+
+  @Override
+  public List<String> getFiles() {
+    return List.of();
+  }
+
+  @Override
+  public ITransformation getTransformation() {
+    return this.transformation;
+  }
+
+  @Override
+  public void run(IImageDatabase model) {
+    run(model, null);
+  }
+
+  @Override
+  public void run(IImageDatabase model, ResultCache cache) {
+    if (model == null) {
+      throw new IllegalArgumentException("Null model/command line.");
+    }
+
+    try {
+      IImageState image = model.getImage(this.source);
+      IImageState newImage = cache == null ? this.transformation.run(image)
+              : cache.run(this.transformation, image);
+      model.addImage(this.destination, newImage);
+    } catch (Exception e) {
+      throw new IllegalStateException(this.failure);
+    }
+  }
+}
@@ -1,7 +1,12 @@
 package controller.loadersaver;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.FileInputStream;
 import java.io.IOException;
 
@@ -9,12 +14,19 @@ import javax.imageio.ImageIO;
 
 import model.images.IImage;
 import model.images.IImageState;
-import model.images.ImageImpl;
+import model.images.PackedImage;
 
 /**
  * The ConventionalLoader class implements the IImageLoader interface to load
  * an image in the conventional format (e.g., JPEG, PNG) into the image database.
  * It implements IImageLoader interface
+ *
+ * <p>The pixels of the decoded image are copied a row at a time straight from
+ * the array backing its raster when the raster has one of the common layouts,
+ * TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR, TYPE_INT_RGB, TYPE_INT_ARGB or
+ * TYPE_BYTE_GRAY, without any color model conversion. Alpha is dropped, and
+ * grey pixels keep the value stored in the file for all three channels. Any
+ * other layout is converted a row at a time by getRGB.
  */
 public class ConventionalLoader implements IImageLoader {
 
@@ -56,18 +68,91 @@ public class ConventionalLoader implements IImageLoader {
 
     int width = input.getWidth();
     int height = input.getHeight();
-    IImage result = new ImageImpl(width, height);
+    IImage result = new PackedImage(width, height);
 
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int argb = input.getRGB(j, i);
-        Color c = new Color(argb);
-        int r = c.getRed();
-        int g = c.getGreen();
-        int b = c.getBlue();
-        result.setPixel(j, i, r, g, b);
+    if (!copyRaster(input, result)) {
+      int[] row = new int[width];
+      for (int i = 0; i < height; i++) {
+        input.getRGB(0, i, width, 1, row, 0, width);
+        for (int j = 0; j < width; j++) {
+          row[j] &= 0xFFFFFF;
+        }
+        result.setRow(i, row);
       }
     }
     return result;
   }
+
+  // helper method to copy the pixels straight from the array of the raster if
+  // it has one of the common layouts, false if it has not.
+  private static boolean copyRaster(BufferedImage input, IImage result) {
+    Raster raster = input.getRaster();
+    DataBuffer buffer = raster.getDataBuffer();
+    if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+            || buffer.getNumBanks() != 1) {
+      return false;
+    }
+    switch (input.getType()) {
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        if (!(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+          return false;
+        }
+        copyPacked(((DataBufferInt) buffer).getData(), buffer.getOffset(),
+                ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride(),
+                result);
+        return true;
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+      case BufferedImage.TYPE_BYTE_GRAY:
+        if (!(raster.getSampleModel() instanceof ComponentSampleModel)) {
+          return false;
+        }
+        copyComponents(((DataBufferByte) buffer).getData(), buffer.getOffset(),
+                (ComponentSampleModel) raster.getSampleModel(), result);
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  // helper method to copy the rows of packed 0xAARRGGBB or 0xRRGGBB values
+  private static void copyPacked(int[] data, int offset, int stride, IImage result) {
+    int width = result.getWidth();
+    int[] row = new int[width];
+    for (int i = 0; i < result.getHeight(); i++) {
+      int start = offset + i * stride;
+      for (int j = 0; j < width; j++) {
+        row[j] = data[start + j] & 0xFFFFFF;
+      }
+      result.setRow(i, row);
+    }
+  }
+
+  // helper method to copy the rows of byte samples, the red, green and blue
+  // bands of a color image, ignoring any alpha band, or the one band of a
+  // grey image
+  private static void copyComponents(byte[] data, int offset, ComponentSampleModel model,
+                                     IImage result) {
+    int width = result.getWidth();
+    int pixelStride = model.getPixelStride();
+    int stride = model.getScanlineStride();
+    int[] bands = model.getBandOffsets();
+    int[] row = new int[width];
+    for (int i = 0; i < result.getHeight(); i++) {
+      int start = offset + i * stride;
+      if (bands.length == 1) {
+        for (int j = 0, at = start + bands[0]; j < width; j++, at += pixelStride) {
+          int v = data[at] & 0xFF;
+          row[j] = (v << 16) | (v << 8) | v;
+        }
+      } else {
+        for (int j = 0, at = start; j < width; j++, at += pixelStride) {
+          row[j] = ((data[at + bands[0]] & 0xFF) << 16)
+                  | ((data[at + bands[1]] & 0xFF) << 8) | (data[at + bands[2]] & 0xFF);
+        }
+      }
+      result.setRow(i, row);
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package controller.loadersaver;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -12,11 +13,17 @@ import model.images.IImageState;
 /**
  * The ConventionalSaver class represents an image saver that saves an image
  * in a conventional format, such as PNG, JPEG, or BMP.
+ *
+ * <p>The packed values of the image are copied in one go into the int array
+ * backing the raster of the BufferedImage handed to the encoder. Only a saver
+ * given an OutputStream writes the pixel values to it as well, a row at a
+ * time, followed by a message once the image is saved.
  */
 public class ConventionalSaver implements IImageSaver {
 
   private final String pathToSave;
   private final IImageState image;
+  // the stream to write the pixel values and the message to, or null
   private final OutputStream out;
 
   /**
@@ -37,6 +44,23 @@ public class ConventionalSaver implements IImageSaver {
     this.image = image;
   }
 
+  /**
+   * Constructs a ConventionalSaver object saving the image without writing
+   * the pixel values or any message anywhere else.
+   *
+   * @param pathToSave The path where the image file will be saved.
+   * @param image The IImageState object containing pixel data to be saved.
+   * @throws IllegalArgumentException if any of the parameters is null.
+   */
+  public ConventionalSaver(String pathToSave, IImageState image) {
+    if (pathToSave == null || image == null) {
+      throw new IllegalArgumentException("Constructor cannot be null.");
+    }
+    this.out = null;
+    this.pathToSave = pathToSave;
+    this.image = image;
+  }
+
   /**
    * Saves the image data in a conventional format to the specified destination.
    *
@@ -47,15 +71,12 @@ public class ConventionalSaver implements IImageSaver {
     int width = this.image.getWidth();
     int height = this.image.getHeight();
     BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-    for (int h = 0; h < height; h++) {
-      for (int w = 0; w < width; w++) {
-        int r = image.getRedChannel(w, h);
-        int g = image.getGreenChannel(w, h);
-        int b = image.getBlueChannel(w, h);
-        int argb = (r << 16) | (g << 8) | b;
-        output.setRGB(w, h, argb);
-        writeToHelper(r + " " + g + " " + b + "\n");
-      }
+    // a new TYPE_INT_RGB image holds its pixels packed as 0xRRGGBB, row-major
+    // with no padding, the same as the region of the whole image
+    int[] data = ((DataBufferInt) output.getRaster().getDataBuffer()).getData();
+    this.image.getRegion(0, 0, width, height, data);
+    if (this.out != null) {
+      echoValues(data, width, height);
     }
     String extension = this.pathToSave.substring(this.pathToSave.indexOf(".") + 1);
     try {
@@ -68,8 +89,24 @@ public class ConventionalSaver implements IImageSaver {
     }
   }
 
+  // helper method to write the values of each pixel, a row at a time
+  private void echoValues(int[] data, int width, int height) {
+    StringBuilder text = new StringBuilder();
+    for (int h = 0; h < height; h++) {
+      text.setLength(0);
+      for (int i = h * width; i < (h + 1) * width; i++) {
+        text.append((data[i] >> 16) & 0xFF).append(' ').append((data[i] >> 8) & 0xFF)
+                .append(' ').append(data[i] & 0xFF).append('\n');
+      }
+      writeToHelper(text.toString());
+    }
+  }
+
   // helper
   private void writeToHelper(String content) {
+    if (this.out == null) {
+      return;
+    }
     try {
       this.out.write(content.getBytes());
     } catch (IOException e) {
@@ -1,6 +1,8 @@
 package controller.loadersaver;
 
 import model.images.IImageState;
+import model.images.IRowSource;
+import model.images.ImageRows;
 
 /**
  * The IImageLoader interface represents a generic image loader.
@@ -13,4 +15,15 @@ public interface IImageLoader {
    * @return The IImageState object representing the state of the loaded image.
    */
   IImageState loadImage();
+
+  /**
+   * Loads an image as rows read one at a time. By default the whole image is
+   * loaded first, loaders that can read the rows as they are needed override
+   * it.
+   *
+   * @return The rows of the loaded image.
+   */
+  default IRowSource loadRows() {
+    return new ImageRows(loadImage());
+  }
 }
@@ -0,0 +1,78 @@
+package controller.loadersaver;
+
+/**
+ * This enum represents the formats of the PPM family of files that can be
+ * loaded and saved, each one chosen by the extension of the file to save.
+ * Loading a file reads its format from its magic number, whatever its
+ * extension.
+ */
+public enum PPMFormat {
+  /** Plain text RGB values, the magic number P3, saved to ".ppm" files. */
+  PLAIN("P3", 3, ".ppm"),
+  /** Binary greyscale values, the magic number P5, saved to ".pgm" files. */
+  GREY("P5", 1, ".pgm"),
+  /** Binary RGB values, the magic number P6, saved to ".pnm" files. */
+  RAW("P6", 3, ".pnm");
+
+  private final String magic;
+  private final int samples;
+  private final String extension;
+
+  PPMFormat(String magic, int samples, String extension) {
+    this.magic = magic;
+    this.samples = samples;
+    this.extension = extension;
+  }
+
+  /**
+   * Return the magic number starting the files of this format.
+   *
+   * @return The magic number of this format.
+   */
+  public String getMagic() {
+    return this.magic;
+  }
+
+  /**
+   * Return the number of values of each pixel in the files of this format.
+   *
+   * @return 1 for greyscale files, 3 for RGB files.
+   */
+  public int getSamples() {
+    return this.samples;
+  }
+
+  /**
+   * Return the format saved to the file by its extension, ignoring case.
+   *
+   * @param filename The name of the file.
+   * @return The format of the file, or null if it is not a PPM family file.
+   */
+  public static PPMFormat ofFile(String filename) {
+    if (filename == null) {
+      return null;
+    }
+    String lower = filename.toLowerCase();
+    for (PPMFormat format : values()) {
+      if (lower.endsWith(format.extension)) {
+        return format;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the format of the magic number.
+   *
+   * @param magic The magic number starting a file.
+   * @return The format of the magic number, or null if there is none.
+   */
+  public static PPMFormat ofMagic(String magic) {
+    for (PPMFormat format : values()) {
+      if (format.magic.equals(magic)) {
+        return format;
+      }
+    }
+    return null;
+  }
+}
@@ -1,16 +1,28 @@
 package controller.loadersaver;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import model.images.IImage;
-import model.images.ImageImpl;
+import model.images.IRowSource;
+import model.images.ImageRows;
 
 /**
  * The PPMLoader class represents an image loader specifically for PPM files.
- * It implements the IImageLoader interface, PPM files should be in P3 format
- * and contain color information in RGB format.
+ * It implements the IImageLoader interface, PPM files should be in the P3
+ * plain text format or in the P6 binary format and contain color information
+ * in RGB format, or in the P5 binary format and contain greyscale values.
+ *
+ * <p>The file is read through a buffer of bytes as the rows are asked for, and
+ * its numbers are decoded straight from the bytes by a PPMTokenizer, skipping
+ * the comments wherever they start. Loading the rows of a file holds one row
+ * and the buffer at a time. The values of a file whose largest value is not
+ * 255 are scaled to 0 to 255. The values of a binary file are read from the
+ * file channel a row at a time, one byte a value, or two big-endian bytes
+ * when the largest value is over 255.
  */
 public class PPMLoader implements IImageLoader {
 
@@ -36,50 +48,174 @@ public class PPMLoader implements IImageLoader {
    *
    * @return The IImageState object representing the state of the loaded image.
    * @throws IllegalStateException if the file is not found or an error occurs
-   *     while reading it or the PPM file is not in P3 format.
+   *     while reading it or the PPM file is not in P3, P5 or P6 format.
    */
   @Override
   public IImage loadImage() {
-    Scanner sc;
+    return ImageRows.collect(loadRows());
+  }
 
+  /**
+   * Opens the PPM file and reads its header, giving the rows of the image to
+   * be read from the file as they are asked for. The file is closed once the
+   * rows are closed, or once a row cannot be read.
+   *
+   * @return The rows of the image of the file.
+   * @throws IllegalStateException if the file is not found or an error occurs
+   *     while reading it or the PPM file is not in P3, P5 or P6 format.
+   */
+  @Override
+  public IRowSource loadRows() {
+    PPMTokenizer tokenizer;
     try {
-      sc = new Scanner(new FileInputStream(this.filePath));
+      tokenizer = new PPMTokenizer(FileChannel.open(Paths.get(this.filePath),
+              StandardOpenOption.READ));
     }
-    catch (FileNotFoundException e) {
+    catch (IOException | InvalidPathException e) {
       throw new IllegalStateException("No such file.");
     }
-    StringBuilder builder = new StringBuilder();
 
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
+    try {
+      return new PPMRows(tokenizer);
+    } catch (RuntimeException e) {
+      tokenizer.close();
+      throw e;
+    }
+  }
+
+  // the rows of a P3, P5 or P6 file, decoded from its tokens or its bytes as
+  // they are read. Values of a file whose largest value is not 255 are scaled
+  // to 0 to 255, rounding to the nearest value.
+  private static class PPMRows implements IRowSource {
+    private final PPMTokenizer tokenizer;
+    private final PPMFormat format;
+    private final int width;
+    private final int height;
+    private final int maxValue;
+    // the scaled value of each value of the file, null if the largest is 255
+    private final int[] scale;
+    // the bytes of a row of a binary file, null for a plain text file
+    private final byte[] raw;
+    private final int bytesPerValue;
+    private int nextRow;
+
+    // reads the magic number, the size and the largest value of the file
+    PPMRows(PPMTokenizer tokenizer) {
+      this.tokenizer = tokenizer;
+      this.format = PPMFormat.ofMagic(tokenizer.nextToken());
+      if (this.format == null) {
+        throw new IllegalStateException("Invalid PPM file: file should begin with P3, P5 or P6");
+      }
+      this.width = tokenizer.nextInt();
+      this.height = tokenizer.nextInt();
+      if (this.width < 1 || this.height < 1) {
+        throw new IllegalStateException("Invalid PPM file: image size invalid.");
+      }
+      this.maxValue = tokenizer.nextInt();
+      if (this.maxValue < 1) {
+        throw new IllegalStateException("Invalid PPM file: largest value invalid.");
+      }
+      this.scale = this.maxValue == 255 ? null : scaleTable(this.maxValue);
+      this.bytesPerValue = this.maxValue > 255 ? 2 : 1;
+      if (this.format == PPMFormat.PLAIN) {
+        this.raw = null;
+      } else {
+        long rowBytes = (long) this.width * this.format.getSamples() * this.bytesPerValue;
+        if (rowBytes > Integer.MAX_VALUE - 8) {
+          throw new IllegalStateException("Invalid PPM file: image size invalid.");
+        }
+        tokenizer.endHeader();
+        this.raw = new byte[(int) rowBytes];
+      }
+    }
+
+    @Override
+    public int getWidth() {
+      return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+      return this.height;
+    }
+
+    @Override
+    public void nextRow(int[] dst) {
+      if (dst == null || dst.length < this.width) {
+        throw new IllegalArgumentException("Not enough channel values.");
+      }
+      if (this.nextRow >= this.height) {
+        throw new IllegalStateException("No rows left.");
       }
+      try {
+        if (this.raw == null) {
+          for (int w = 0; w < this.width; w++) {
+            int r = nextValue();
+            int g = nextValue();
+            int b = nextValue();
+            dst[w] = (r << 16) | (g << 8) | b;
+          }
+        } else {
+          this.tokenizer.nextBytes(this.raw, this.raw.length);
+          decodeRow(dst);
+        }
+      } catch (RuntimeException e) {
+        close();
+        throw e;
+      }
+      this.nextRow++;
     }
 
-    //now set up the scanner to read from the string we just built
-    sc = new Scanner(builder.toString());
+    @Override
+    public void close() {
+      this.tokenizer.close();
+    }
 
-    String token;
-    token = sc.next();
-    if (!token.equals("P3")) {
-      throw new IllegalStateException("Invalid PPM file: plain RAW file should begin with P3");
+    // helper method to read the next value, scaled to 0 to 255
+    private int nextValue() {
+      int value = this.tokenizer.nextInt();
+      if (value > this.maxValue) {
+        throw new IllegalStateException("Invalid PPM file: channel value invalid.");
+      }
+      return this.scale == null ? value : this.scale[value];
     }
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    IImage result = new ImageImpl(width, height);
-    int maxValue = sc.nextInt();
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        result.setPixel(j, i, r, g, b);
+
+    // helper method to decode the bytes of a binary row into packed values
+    private void decodeRow(int[] dst) {
+      if (this.format == PPMFormat.GREY) {
+        for (int w = 0; w < this.width; w++) {
+          int v = rawValue(w);
+          dst[w] = (v << 16) | (v << 8) | v;
+        }
+      } else {
+        for (int w = 0, i = 0; w < this.width; w++, i += 3) {
+          dst[w] = (rawValue(i) << 16) | (rawValue(i + 1) << 8) | rawValue(i + 2);
+        }
       }
     }
-    return result;
-  }
 
+    // helper method to give the value at the index of the binary row, scaled
+    // to 0 to 255
+    private int rawValue(int index) {
+      int value;
+      if (this.bytesPerValue == 1) {
+        value = this.raw[index] & 0xFF;
+      } else {
+        value = ((this.raw[2 * index] & 0xFF) << 8) | (this.raw[2 * index + 1] & 0xFF);
+      }
+      if (value > this.maxValue) {
+        throw new IllegalStateException("Invalid PPM file: channel value invalid.");
+      }
+      return this.scale == null ? value : this.scale[value];
+    }
+
+    // helper method to give the scaled value of each value up to the largest
+    private static int[] scaleTable(int maxValue) {
+      int[] table = new int[maxValue + 1];
+      for (int v = 0; v <= maxValue; v++) {
+        table[v] = (int) ((v * 255L + maxValue / 2) / maxValue);
+      }
+      return table;
+    }
+  }
 }
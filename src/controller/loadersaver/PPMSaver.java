@@ -1,18 +1,50 @@
 package controller.loadersaver;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import model.images.IImageState;
+import model.images.IRowSource;
+import model.images.ImageRows;
 
 /**
  * This class implements the IImageSaver interface to save an image in the PPM format.
+ * The image is written a row at a time, so saving rows streamed from a loader
+ * and transformations holds one row of them at a time.
+ *
+ * <p>The image is saved as plain text P3 values, or as binary P6 RGB values
+ * or P5 greyscale values, see PPMFormat. The rows are encoded into one buffer
+ * of bytes, the digits of the text values copied from a table, and the buffer
+ * is written to the file channel in bulk whenever the next row may not fit. A
+ * pixel saved as greyscale keeps its value if its channels are equal and is
+ * given its luma otherwise.
+ *
+ * <p>Only a saver given an Appendable writes the text values to it as well,
+ * a row at a time. Saving without one builds no String for the values.
  */
 public class PPMSaver implements IImageSaver {
+  // the ASCII digits of each value from 0 to 255, three bytes a value
+  private static final byte[] DIGITS = new byte[256 * 3];
+  private static final int[] DIGIT_LENGTHS = new int[256];
+
+  static {
+    for (int v = 0; v < 256; v++) {
+      byte[] digits = Integer.toString(v).getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(digits, 0, DIGITS, v * 3, digits.length);
+      DIGIT_LENGTHS[v] = digits.length;
+    }
+  }
+
   private final String pathToSave;
+  // the image to save, or null when saving streamed rows
   private final IImageState image;
+  private final IRowSource rows;
   private final Appendable out;
+  private final PPMFormat format;
 
   /**
    * Constructs a PPMSaver object with the provided parameters.
@@ -29,6 +61,61 @@ public class PPMSaver implements IImageSaver {
     this.out = out;
     this.pathToSave = pathToSave;
     this.image = image;
+    this.rows = null;
+    this.format = PPMFormat.PLAIN;
+  }
+
+  /**
+   * Constructs a PPMSaver object saving the image in the given format, without
+   * writing the values anywhere else.
+   *
+   * @param pathToSave The path where the PPM file will be saved.
+   * @param format The format of the file to save.
+   * @param image The image state containing pixel data to be saved to the path.
+   * @throws IllegalArgumentException if any of the parameters is null.
+   */
+  public PPMSaver(String pathToSave, PPMFormat format, IImageState image) {
+    if (pathToSave == null || image == null || format == null) {
+      throw new IllegalArgumentException("Constructor cannot be null.");
+    }
+    this.out = null;
+    this.pathToSave = pathToSave;
+    this.image = image;
+    this.rows = null;
+    this.format = format;
+  }
+
+  /**
+   * Constructs a PPMSaver object saving the rows as they are read, without
+   * writing the values anywhere else. The rows are closed once saved.
+   *
+   * @param pathToSave The path where the PPM file will be saved.
+   * @param rows The rows of the image to save, none of them read yet.
+   * @throws IllegalArgumentException if any of the parameters is null.
+   */
+  public PPMSaver(String pathToSave, IRowSource rows) {
+    this(pathToSave, PPMFormat.PLAIN, rows);
+  }
+
+  /**
+   * Constructs a PPMSaver object saving the rows in the given format as they
+   * are read, without writing the values anywhere else. The rows are closed
+   * once saved.
+   *
+   * @param pathToSave The path where the PPM file will be saved.
+   * @param format The format of the file to save.
+   * @param rows The rows of the image to save, none of them read yet.
+   * @throws IllegalArgumentException if any of the parameters is null.
+   */
+  public PPMSaver(String pathToSave, PPMFormat format, IRowSource rows) {
+    if (pathToSave == null || rows == null || format == null) {
+      throw new IllegalArgumentException("Constructor cannot be null.");
+    }
+    this.out = null;
+    this.pathToSave = pathToSave;
+    this.image = null;
+    this.rows = rows;
+    this.format = format;
   }
 
   /**
@@ -38,32 +125,123 @@ public class PPMSaver implements IImageSaver {
    */
   @Override
   public void run() throws IllegalStateException {
-    BufferedWriter writer;
+    IRowSource rows = this.image != null ? new ImageRows(this.image) : this.rows;
+    FileChannel channel;
     try {
-      writer = new BufferedWriter(new FileWriter(this.pathToSave));
-    } catch (IOException e) {
+      channel = FileChannel.open(Paths.get(this.pathToSave), StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    } catch (Exception e) {
+      rows.close();
       throw new IllegalStateException(e.getMessage());
     }
 
-    try {
-      int height = this.image.getHeight();
-      int width = this.image.getWidth();
-      String start = "P3\n" + width + " " + height + "\n255\n";
-      writer.write(start);
-      this.out.append(start);
+    try (rows; channel) {
+      int height = rows.getHeight();
+      int width = rows.getWidth();
+      String start = this.format.getMagic() + "\n" + width + " " + height + "\n255\n";
+      echo(start);
+      // the most bytes a row may take, twelve a pixel for plain text
+      int rowBytes = width * (this.format == PPMFormat.PLAIN ? 12 : this.format.getSamples());
+      ByteBuffer buffer = ByteBuffer.allocate(Math.max(rowBytes, 1 << 16));
+      byte[] bytes = buffer.array();
+      buffer.put(start.getBytes(StandardCharsets.US_ASCII));
+      int[] row = new int[width];
       for (int h = 0; h < height; h++) {
-        for (int w = 0; w < width; w++) {
-          int r = image.getRedChannel(w, h);
-          int g = image.getGreenChannel(w, h);
-          int b = image.getBlueChannel(w, h);
-          String pixel = r + " " + g + " " + b + "\n";
-          writer.write(pixel);
-          this.out.append(pixel);
+        rows.nextRow(row);
+        if (buffer.remaining() < rowBytes) {
+          writeFully(channel, buffer);
         }
+        int from = buffer.position();
+        int to;
+        if (this.format == PPMFormat.PLAIN) {
+          to = encodeText(row, width, bytes, from);
+          echo(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        } else if (this.format == PPMFormat.GREY) {
+          to = encodeGrey(row, width, bytes, from);
+        } else {
+          to = encodeRaw(row, width, bytes, from);
+        }
+        buffer.position(to);
       }
-      writer.close();
+      writeFully(channel, buffer);
     } catch (Exception e) {
       throw new IllegalStateException(e.getMessage());
     }
   }
+
+  // helper method to write a row as text values into the bytes from the index,
+  // a line a pixel, giving the index after the row
+  private static int encodeText(int[] row, int width, byte[] bytes, int index) {
+    for (int w = 0; w < width; w++) {
+      int rgb = row[w];
+      index = encodeDigits((rgb >> 16) & 0xFF, bytes, index);
+      bytes[index++] = ' ';
+      index = encodeDigits((rgb >> 8) & 0xFF, bytes, index);
+      bytes[index++] = ' ';
+      index = encodeDigits(rgb & 0xFF, bytes, index);
+      bytes[index++] = '\n';
+    }
+    return index;
+  }
+
+  // helper method to copy the digits of a value from the table, giving the
+  // index after them
+  private static int encodeDigits(int value, byte[] bytes, int index) {
+    int length = DIGIT_LENGTHS[value];
+    int at = value * 3;
+    bytes[index] = DIGITS[at];
+    if (length > 1) {
+      bytes[index + 1] = DIGITS[at + 1];
+      if (length > 2) {
+        bytes[index + 2] = DIGITS[at + 2];
+      }
+    }
+    return index + length;
+  }
+
+  // helper method to write a row as greyscale bytes, giving the index after it
+  private static int encodeGrey(int[] row, int width, byte[] bytes, int index) {
+    for (int w = 0; w < width; w++) {
+      bytes[index++] = (byte) grey(row[w]);
+    }
+    return index;
+  }
+
+  // helper method to write a row as RGB bytes, giving the index after it
+  private static int encodeRaw(int[] row, int width, byte[] bytes, int index) {
+    for (int w = 0; w < width; w++) {
+      int rgb = row[w];
+      bytes[index++] = (byte) (rgb >> 16);
+      bytes[index++] = (byte) (rgb >> 8);
+      bytes[index++] = (byte) rgb;
+    }
+    return index;
+  }
+
+  // helper method to write the buffered bytes to the channel, emptying it
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  // helper method to give the greyscale value of a packed value
+  private static int grey(int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    if (r == g && g == b) {
+      return r;
+    }
+    return (int) Math.round(0.2126 * r + 0.7152 * g + 0.0722 * b);
+  }
+
+  // helper method to write the text to the output, if there is one
+  private void echo(String text) throws IOException {
+    if (this.out != null) {
+      this.out.append(text);
+    }
+  }
 }
@@ -0,0 +1,188 @@
+package controller.loadersaver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The PPMTokenizer class reads the ASCII tokens of a PPM file straight from
+ * the bytes of the file, through a buffer of its own. Whitespace separates the
+ * tokens, and a comment runs from a '#' to the end of its line wherever it
+ * starts. Numbers are decoded digit by digit, without making any String.
+ *
+ * <p>The values of a binary file follow its header as raw bytes, which are
+ * read in bulk, the buffered ones first and then straight from the channel.
+ */
+class PPMTokenizer implements AutoCloseable {
+  // the largest value a PPM file may hold
+  static final int MAX_VALUE = 65535;
+
+  private final ReadableByteChannel channel;
+  private final byte[] buffer;
+  private final ByteBuffer wrapped;
+  private int position;
+  private int limit;
+
+  /**
+   * Constructs a PPMTokenizer object reading the given channel.
+   *
+   * @param channel The channel of the PPM file.
+   */
+  PPMTokenizer(ReadableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = new byte[1 << 16];
+    this.wrapped = ByteBuffer.wrap(this.buffer);
+  }
+
+  /**
+   * Reads the next token as text.
+   *
+   * @return The next token.
+   * @throws IllegalStateException if there is no token left or the file
+   *     cannot be read.
+   */
+  String nextToken() {
+    int c = skipBlanks();
+    if (c < 0) {
+      throw new IllegalStateException("Invalid PPM file: file too short.");
+    }
+    StringBuilder token = new StringBuilder();
+    while (c >= 0 && !isBlank(c) && c != '#') {
+      token.append((char) c);
+      this.position++;
+      c = peek();
+    }
+    return token.toString();
+  }
+
+  /**
+   * Reads the next token as a number from 0 to MAX_VALUE.
+   *
+   * @return The number of the next token.
+   * @throws IllegalStateException if there is no token left, it is not such a
+   *     number or the file cannot be read.
+   */
+  int nextInt() {
+    int c = skipBlanks();
+    if (c < '0' || c > '9') {
+      throw new IllegalStateException(c < 0 ? "Invalid PPM file: file too short."
+              : "Invalid PPM file: value is not a number.");
+    }
+    int value = 0;
+    while (true) {
+      if (this.position == this.limit && !fill()) {
+        return value;
+      }
+      int digit = this.buffer[this.position] - '0';
+      if (digit < 0 || digit > 9) {
+        c = this.buffer[this.position];
+        if (!isBlank(c) && c != '#') {
+          throw new IllegalStateException("Invalid PPM file: value is not a number.");
+        }
+        return value;
+      }
+      value = value * 10 + digit;
+      if (value > MAX_VALUE) {
+        throw new IllegalStateException("Invalid PPM file: value too large.");
+      }
+      this.position++;
+    }
+  }
+
+  /**
+   * Reads the single whitespace byte ending the header of a binary file.
+   *
+   * @throws IllegalStateException if the next byte is not whitespace or the
+   *     file cannot be read.
+   */
+  void endHeader() {
+    int c = peek();
+    if (c < 0 || !isBlank(c)) {
+      throw new IllegalStateException("Invalid PPM file: header not ended.");
+    }
+    this.position++;
+  }
+
+  /**
+   * Reads the next bytes of the file into the array, as they are.
+   *
+   * @param dst The array to read into.
+   * @param length The number of bytes to read.
+   * @throws IllegalStateException if the file ends before all of the bytes
+   *     or cannot be read.
+   */
+  void nextBytes(byte[] dst, int length) {
+    int buffered = Math.min(this.limit - this.position, length);
+    System.arraycopy(this.buffer, this.position, dst, 0, buffered);
+    this.position += buffered;
+    ByteBuffer target = ByteBuffer.wrap(dst, buffered, length - buffered);
+    try {
+      while (target.hasRemaining()) {
+        if (this.channel.read(target) < 0) {
+          throw new IllegalStateException("Invalid PPM file: file too short.");
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read the file.");
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      // nothing more is read from the file
+    }
+  }
+
+  // helper method to skip the whitespace and the comments, giving the first
+  // byte of the next token without reading it, or -1 at the end of the file.
+  private int skipBlanks() {
+    while (true) {
+      int c = peek();
+      if (c == '#') {
+        while (c >= 0 && c != '\n' && c != '\r') {
+          this.position++;
+          c = peek();
+        }
+      } else if (c >= 0 && isBlank(c)) {
+        this.position++;
+      } else {
+        return c;
+      }
+    }
+  }
+
+  // helper method to give the next byte without reading it, -1 at the end
+  private int peek() {
+    if (this.position == this.limit && !fill()) {
+      return -1;
+    }
+    return this.buffer[this.position] & 0xFF;
+  }
+
+  // helper method to read more bytes into the buffer, false at the end
+  private boolean fill() {
+    try {
+      int read;
+      do {
+        this.wrapped.clear();
+        read = this.channel.read(this.wrapped);
+      } while (read == 0);
+      if (read < 0) {
+        return false;
+      }
+      this.position = 0;
+      this.limit = read;
+      return true;
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read the file.");
+    }
+  }
+
+  // helper method to check whether a byte is whitespace
+  private static boolean isBlank(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0B;
+  }
+}
@@ -0,0 +1,145 @@
+package controller.script;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import controller.commands.ICmdCall;
+
+/**
+ * The DeferredPlan class works out which calls of a whole script need to run,
+ * and when each image the script adds can be removed again. The calls form a
+ * graph where a call depends on every call before it adding an image it
+ * reads, not only the last one, since a call that fails leaves the image of
+ * the call before it. The calls adding no image, such as save, are needed, as
+ * well as the calls adding a requested image, and so is every call a needed
+ * call depends on. Any other call is skipped.
+ *
+ * <p>The image of an id the script adds is removed once the last needed call
+ * reading the id has run, unless the id is requested or that call adds it
+ * again. Images the script reads but does not add are never removed.
+ */
+public class DeferredPlan {
+  private final List<ICmdCall> calls;
+  private final boolean[] needed;
+  private final List<List<String>> freed;
+
+  /**
+   * Constructs a DeferredPlan object for the calls of a script and the ids
+   * whose last image must be kept.
+   *
+   * @param calls The parsed calls of the script, in order.
+   * @param requested The ids of the images to compute and keep.
+   * @throws IllegalArgumentException if any of the arguments is null.
+   */
+  public DeferredPlan(List<ICmdCall> calls, Set<String> requested) {
+    if (calls == null || requested == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.calls = new ArrayList<>(calls);
+    int n = this.calls.size();
+
+    // the calls before each call adding each image it reads. A call that
+    // fails leaves the image as it was, so a call may read the image of any
+    // of them, not only of the last one.
+    List<List<Integer>> writers = new ArrayList<>();
+    Map<String, List<Integer>> writersOf = new HashMap<>();
+    for (int i = 0; i < n; i++) {
+      ICmdCall call = this.calls.get(i);
+      List<Integer> callWriters = new ArrayList<>();
+      for (String source : call.getSources()) {
+        callWriters.addAll(writersOf.getOrDefault(source, List.of()));
+      }
+      writers.add(callWriters);
+      if (call.getDestination() != null) {
+        writersOf.computeIfAbsent(call.getDestination(), id -> new ArrayList<>()).add(i);
+      }
+    }
+
+    // walk back from the calls adding no image and the requested images
+    this.needed = new boolean[n];
+    for (int i = n - 1; i >= 0; i--) {
+      String destination = this.calls.get(i).getDestination();
+      if (destination == null || requested.contains(destination)) {
+        this.needed[i] = true;
+      }
+      if (this.needed[i]) {
+        for (int writer : writers.get(i)) {
+          this.needed[writer] = true;
+        }
+      }
+    }
+
+    // the last needed call reading each image the script adds
+    Map<String, Integer> lastReader = new HashMap<>();
+    for (int i = 0; i < n; i++) {
+      if (this.needed[i]) {
+        for (String source : this.calls.get(i).getSources()) {
+          if (writersOf.containsKey(source)) {
+            lastReader.put(source, i);
+          }
+        }
+      }
+    }
+    this.freed = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      this.freed.add(new ArrayList<>());
+    }
+    for (Map.Entry<String, Integer> entry : lastReader.entrySet()) {
+      String id = entry.getKey();
+      int reader = entry.getValue();
+      if (!requested.contains(id) && !id.equals(this.calls.get(reader).getDestination())) {
+        this.freed.get(reader).add(id);
+      }
+    }
+  }
+
+  /**
+   * Return whether the call at the index of the script needs to run.
+   *
+   * @param index The index of the call in the script.
+   * @return true if the call is needed, false if it is skipped.
+   * @throws IllegalArgumentException if the index is not of a call of the script.
+   */
+  public boolean isNeeded(int index) {
+    checkIndex(index);
+    return this.needed[index];
+  }
+
+  /**
+   * Return the calls of the script that need to run, in order.
+   *
+   * @return The needed calls.
+   */
+  public List<ICmdCall> getNeededCalls() {
+    List<ICmdCall> result = new ArrayList<>();
+    for (int i = 0; i < this.calls.size(); i++) {
+      if (this.needed[i]) {
+        result.add(this.calls.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the ids of the images to remove once the call at the index of the
+   * script has run, as no call after it reads them.
+   *
+   * @param index The index of the call in the script.
+   * @return The ids of the images to remove, empty if none.
+   * @throws IllegalArgumentException if the index is not of a call of the script.
+   */
+  public List<String> getFreedAfter(int index) {
+    checkIndex(index);
+    return new ArrayList<>(this.freed.get(index));
+  }
+
+  // helper method to check the index is of a call of the script
+  private void checkIndex(int index) {
+    if (index < 0 || index >= this.calls.size()) {
+      throw new IllegalArgumentException("Invalid call index.");
+    }
+  }
+}
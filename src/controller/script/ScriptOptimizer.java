@@ -0,0 +1,421 @@
+package controller.script;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import controller.ControllerOption;
+import controller.commands.ICmdCall;
+import controller.commands.StreamCall;
+import controller.commands.TransformationCall;
+import controller.loadersaver.PPMFormat;
+import model.transformation.AbstractTransformation;
+import model.transformation.BrighterDarker;
+import model.transformation.ComposedTransformation;
+import model.transformation.ITransformation;
+import model.transformation.MatrixGreyscale;
+
+/**
+ * The ScriptOptimizer class rewrites a whole script of parsed calls into the
+ * steps to run, following the options it is given. Both rewrites below work
+ * on chains of consecutive calls of per-pixel transformations where each call
+ * reads the image the call before it adds, and the images between them are
+ * never read or added anew by the rest of the script. The
+ * first image of a chain is read and its last image added as by the calls it
+ * replaces.
+ *
+ * <p>With the FUSE option, a chain is run as one ComposedTransformation, so
+ * the images between the calls are not made.
+ *
+ * <p>With the SIMPLIFY option, two neighbouring transformations of a chain are
+ * folded into one when that gives the same image:
+ * <ul>
+ *   <li>Two brighten transformations by values of the same sign are one
+ *   brighten by their sum, since clamping the first one never changes the
+ *   second one's clamping. With values of opposite signs, they are folded
+ *   only when the value range of the image shows the first one never clamps.
+ *   The range of each image is followed through the script by ValueRange.</li>
+ *   <li>A matrix followed by a matrix whose rows each pick one channel is one
+ *   matrix made of the picked rows of the first one, since picking a channel
+ *   commutes with the rounding and clamping of the first one. Other products
+ *   of two matrices are not folded, as the first matrix rounds its channels
+ *   and adding up the products in another order may round them differently.</li>
+ * </ul>
+ * Each fold is reported by the step it is in. A fold that relies on a value
+ * range holds on to the calls the range was found from, and is not used if
+ * any of them fails.
+ *
+ * <p>With the STREAM option, a load followed by transformations, each reading
+ * the image of the call before it, and a save of the last image into a PPM
+ * file is run as one StreamCall when none of their images is read or added
+ * anew after the save. The rows then go from the file loaded through the transformations to
+ * the file saved without any whole image being made, other than for the
+ * transformations that cannot be streamed.
+ */
+public class ScriptOptimizer {
+  private final Set<ControllerOption> options;
+
+  /**
+   * Constructs a ScriptOptimizer object with the options to optimize with.
+   *
+   * @param options The options of the controller running the script.
+   * @throws IllegalArgumentException if the options are null.
+   */
+  public ScriptOptimizer(Set<ControllerOption> options) {
+    if (options == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.options = options.isEmpty() ? EnumSet.noneOf(ControllerOption.class)
+            : EnumSet.copyOf(options);
+  }
+
+  /**
+   * Rewrites the calls of a script into the steps to run.
+   *
+   * @param calls The parsed calls of the script, in order.
+   * @return The steps to run, in order, which together stand for every call.
+   * @throws IllegalArgumentException if the calls are null.
+   */
+  public List<ScriptStep> optimize(List<ICmdCall> calls) {
+    if (calls == null) {
+      throw new IllegalArgumentException("Null script.");
+    }
+    boolean fuse = this.options.contains(ControllerOption.FUSE);
+    boolean simplify = this.options.contains(ControllerOption.SIMPLIFY);
+    boolean stream = this.options.contains(ControllerOption.STREAM);
+    Map<String, KnownRange> ranges = new HashMap<>();
+    List<ScriptStep> steps = new ArrayList<>();
+    int i = 0;
+    while (i < calls.size()) {
+      int streamEnd = stream ? streamEnd(calls, i) : -1;
+      if (streamEnd > 0) {
+        List<ICmdCall> pipeline = calls.subList(i, streamEnd);
+        steps.add(new ScriptStep(pipeline, streamed(pipeline)));
+        for (ICmdCall call : pipeline) {
+          updateRange(ranges, call);
+        }
+        i = streamEnd;
+        continue;
+      }
+      int end = fuse || simplify ? chainEnd(calls, i) : i + 1;
+      List<ICmdCall> chain = calls.subList(i, end);
+      if (chain.size() > 1) {
+        KnownRange known = ranges.getOrDefault(chain.get(0).getSources().get(0),
+                KnownRange.UNKNOWN);
+        List<Fold> folds = simplify ? fold(chain, known, i) : unfolded(chain);
+        if (fuse) {
+          steps.add(fuse(chain, folds));
+        } else {
+          for (Fold fold : folds) {
+            steps.add(fold.toStep());
+          }
+        }
+      } else {
+        steps.add(new ScriptStep(chain.get(0)));
+      }
+      for (ICmdCall call : chain) {
+        updateRange(ranges, call);
+      }
+      i = end;
+    }
+    return steps;
+  }
+
+  // helper method to find the end, exclusive, of a load at the start index
+  // followed by transformations, each reading the image of the call before it,
+  // and a save of the last image into a PPM family file, see PPMFormat, whose
+  // images are all dead after the save. Returns -1 if there is none.
+  private static int streamEnd(List<ICmdCall> calls, int start) {
+    ICmdCall load = calls.get(start);
+    if (!load.getSources().isEmpty() || load.getDestination() == null
+            || load.getFiles().size() != 1) {
+      return -1;
+    }
+    String last = load.getDestination();
+    int end = start + 1;
+    while (end < calls.size() && calls.get(end).getTransformation() != null
+            && calls.get(end).getSources().equals(List.of(last))
+            && calls.get(end).getDestination() != null) {
+      last = calls.get(end).getDestination();
+      end++;
+    }
+    if (end >= calls.size()) {
+      return -1;
+    }
+    ICmdCall save = calls.get(end);
+    if (save.getDestination() != null || !save.getSources().equals(List.of(last))
+            || save.getFiles().size() != 1
+            || PPMFormat.ofFile(save.getFiles().get(0)) == null) {
+      return -1;
+    }
+    for (int i = start; i < end; i++) {
+      if (!isDead(calls, calls.get(i).getDestination(), end + 1)) {
+        return -1;
+      }
+    }
+    return end + 1;
+  }
+
+  // helper method to make the call streaming a load, its transformations and a
+  // save from one file into the other.
+  private static ICmdCall streamed(List<ICmdCall> pipeline) {
+    List<ITransformation> transformations = new ArrayList<>();
+    for (ICmdCall call : pipeline.subList(1, pipeline.size() - 1)) {
+      transformations.add(call.getTransformation());
+    }
+    return new StreamCall(pipeline.get(0).getFiles().get(0), transformations,
+            pipeline.get(pipeline.size() - 1).getFiles().get(0));
+  }
+
+  // helper method to find the end, exclusive, of the longest chain of per-pixel
+  // calls starting at the given index whose images in between are dead.
+  private static int chainEnd(List<ICmdCall> calls, int start) {
+    if (!isPointCall(calls.get(start))) {
+      return start + 1;
+    }
+    int end = start + 1;
+    while (end < calls.size() && isPointCall(calls.get(end))
+            && calls.get(end).getSources().get(0).equals(calls.get(end - 1).getDestination())
+            && intermediatesDead(calls, start, end + 1)) {
+      end++;
+    }
+    return end;
+  }
+
+  // helper method to check that the images added by the chain of calls from
+  // start to end, exclusive, other than the last one are not read after it.
+  private static boolean intermediatesDead(List<ICmdCall> calls, int start, int end) {
+    String last = calls.get(end - 1).getDestination();
+    for (int i = start; i < end - 1; i++) {
+      String id = calls.get(i).getDestination();
+      if (!id.equals(last) && !isDead(calls, id, end)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // helper method to check that the image of the id is dead at the index of
+  // the calls, no call from there reading it or adding it anew. A call adding
+  // it anew may fail and leave the image as it was, so the image is not dead
+  // then, and it is left in the database as when the script runs without
+  // options.
+  private static boolean isDead(List<ICmdCall> calls, String id, int from) {
+    for (int i = from; i < calls.size(); i++) {
+      if (calls.get(i).getSources().contains(id) || id.equals(calls.get(i).getDestination())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // helper method to check that a call runs a per-pixel transformation from
+  // one image to another.
+  private static boolean isPointCall(ICmdCall call) {
+    return call.getTransformation() instanceof AbstractTransformation
+            && call.getSources().size() == 1 && call.getDestination() != null;
+  }
+
+  // helper method to keep every call of the chain as it is
+  private static List<Fold> unfolded(List<ICmdCall> chain) {
+    List<Fold> folds = new ArrayList<>();
+    for (int i = 0; i < chain.size(); i++) {
+      folds.add(new Fold(chain.subList(i, i + 1), stage(chain.get(i)), null, Set.of()));
+    }
+    return folds;
+  }
+
+  // helper method to fold the neighbouring transformations of the chain, the
+  // offset being the index of the chain in the script.
+  private static List<Fold> fold(List<ICmdCall> chain, KnownRange known, int offset) {
+    List<Fold> folds = new ArrayList<>();
+    ValueRange range = known.range;
+    Set<ICmdCall> assumed = new HashSet<>();
+    AbstractTransformation current = stage(chain.get(0));
+    int start = 0;
+    for (int k = 1; k <= chain.size(); k++) {
+      AbstractTransformation next = k < chain.size() ? stage(chain.get(k)) : null;
+      AbstractTransformation folded = next == null ? null : foldSameSign(current, next);
+      if (folded == null && next != null) {
+        folded = foldNoClamp(current, next, range);
+        if (folded != null) {
+          assumed.addAll(known.assumed);
+          assumed.addAll(chain.subList(0, start));
+        }
+      }
+      if (folded != null) {
+        current = folded;
+        continue;
+      }
+      String rewrite = k - start < 2 ? null : String.format(
+              "Folded commands %d to %d into one %s.\n", offset + start + 1, offset + k,
+              current instanceof BrighterDarker
+                      ? "brighten by " + ((BrighterDarker) current).getValue()
+                      : "color matrix");
+      folds.add(new Fold(chain.subList(start, k), current, rewrite, new HashSet<>(assumed)));
+      range = range.after(current);
+      assumed.clear();
+      current = next;
+      start = k;
+    }
+    return folds;
+  }
+
+  // helper method to fold two transformations that are one whatever the range
+  // of the image, null if they are not.
+  private static AbstractTransformation foldSameSign(AbstractTransformation first,
+                                                     AbstractTransformation second) {
+    if (first instanceof BrighterDarker && second instanceof BrighterDarker) {
+      long a = ((BrighterDarker) first).getValue();
+      long b = ((BrighterDarker) second).getValue();
+      if ((a >= 0 && b >= 0 || a <= 0 && b <= 0) && fitsInt(a + b)) {
+        return new BrighterDarker((int) (a + b));
+      }
+    }
+    if (first instanceof MatrixGreyscale && second instanceof MatrixGreyscale) {
+      double[][] kernel = ((MatrixGreyscale) first).getKernel();
+      double[][] picks = ((MatrixGreyscale) second).getKernel();
+      double[][] folded = new double[3][];
+      for (int i = 0; i < 3; i++) {
+        int pick = pickedChannel(picks[i]);
+        if (pick < 0) {
+          return null;
+        }
+        folded[i] = kernel[pick];
+      }
+      return new MatrixGreyscale(folded, ((MatrixGreyscale) first).isFixedPoint());
+    }
+    return null;
+  }
+
+  // helper method to fold two brighten transformations of opposite signs when
+  // the range shows the first one never clamps, null if it may.
+  private static AbstractTransformation foldNoClamp(AbstractTransformation first,
+                                                    AbstractTransformation second,
+                                                    ValueRange range) {
+    if (!(first instanceof BrighterDarker && second instanceof BrighterDarker)) {
+      return null;
+    }
+    long a = ((BrighterDarker) first).getValue();
+    long b = ((BrighterDarker) second).getValue();
+    for (int c = 0; c < 3; c++) {
+      if (range.getLow(c) + a < 0 || range.getHigh(c) + a > 255) {
+        return null;
+      }
+    }
+    return fitsInt(a + b) ? new BrighterDarker((int) (a + b)) : null;
+  }
+
+  // helper method to get the channel a row of a matrix picks, -1 if it does
+  // not pick exactly one channel.
+  private static int pickedChannel(double[] row) {
+    int pick = -1;
+    for (int j = 0; j < 3; j++) {
+      if (row[j] == 1 && pick < 0) {
+        pick = j;
+      } else if (row[j] != 0) {
+        return -1;
+      }
+    }
+    return pick;
+  }
+
+  // helper method to check that a sum is an int
+  private static boolean fitsInt(long value) {
+    return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+  }
+
+  // helper method to get the per-pixel transformation of a call of a chain
+  private static AbstractTransformation stage(ICmdCall call) {
+    return (AbstractTransformation) call.getTransformation();
+  }
+
+  // helper method to fuse the folded transformations of a chain into one step
+  private static ScriptStep fuse(List<ICmdCall> chain, List<Fold> folds) {
+    List<AbstractTransformation> stages = new ArrayList<>();
+    List<String> rewrites = new ArrayList<>();
+    Set<ICmdCall> assumed = new HashSet<>();
+    for (Fold fold : folds) {
+      stages.add(fold.stage);
+      if (fold.rewrite != null) {
+        rewrites.add(fold.rewrite);
+      }
+      assumed.addAll(fold.assumed);
+    }
+    ITransformation transformation = stages.size() == 1 ? stages.get(0)
+            : new ComposedTransformation(stages);
+    return new ScriptStep(chain, replacement(chain, transformation), rewrites, assumed);
+  }
+
+  // helper method to make the call replacing a chain with the transformation
+  private static ICmdCall replacement(List<ICmdCall> chain, ITransformation transformation) {
+    return new TransformationCall(transformation, chain.get(0).getSources().get(0),
+            chain.get(chain.size() - 1).getDestination(), "Cannot run the fused commands.\n");
+  }
+
+  // helper method to follow the range of the image a call adds. The range of
+  // a transformed image holds if the calls it was found from did not fail,
+  // any other image may hold any value.
+  private static void updateRange(Map<String, KnownRange> ranges, ICmdCall call) {
+    String destination = call.getDestination();
+    if (destination == null) {
+      return;
+    }
+    ITransformation transformation = call.getTransformation();
+    if (transformation == null || call.getSources().size() != 1) {
+      ranges.remove(destination);
+      return;
+    }
+    KnownRange source = ranges.getOrDefault(call.getSources().get(0), KnownRange.UNKNOWN);
+    ValueRange range = source.range.after(transformation);
+    if (range.equals(ValueRange.FULL)) {
+      ranges.remove(destination);
+      return;
+    }
+    Set<ICmdCall> assumed = new HashSet<>(source.assumed);
+    assumed.add(call);
+    ranges.put(destination, new KnownRange(range, assumed));
+  }
+
+  // a value range of an image and the calls that must not fail for it to hold
+  private static class KnownRange {
+    static final KnownRange UNKNOWN = new KnownRange(ValueRange.FULL, Set.of());
+
+    private final ValueRange range;
+    private final Set<ICmdCall> assumed;
+
+    KnownRange(ValueRange range, Set<ICmdCall> assumed) {
+      this.range = range;
+      this.assumed = assumed;
+    }
+  }
+
+  // consecutive calls of a chain folded into one transformation
+  private static class Fold {
+    private final List<ICmdCall> calls;
+    private final AbstractTransformation stage;
+    private final String rewrite;
+    private final Set<ICmdCall> assumed;
+
+    Fold(List<ICmdCall> calls, AbstractTransformation stage, String rewrite,
+         Set<ICmdCall> assumed) {
+      this.calls = calls;
+      this.stage = stage;
+      this.rewrite = rewrite;
+      this.assumed = assumed;
+    }
+
+    // the step running the folded calls
+    ScriptStep toStep() {
+      if (this.calls.size() == 1) {
+        return new ScriptStep(this.calls.get(0));
+      }
+      return new ScriptStep(this.calls, replacement(this.calls, this.stage),
+              List.of(this.rewrite), this.assumed);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package controller.script;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import controller.commands.ICmdCall;
+
+/**
+ * The ScriptScheduler class runs the steps of a script on a worker pool, each
+ * step as soon as every earlier step it conflicts with is done. Two steps
+ * conflict when one of them adds or removes an image id the other one reads,
+ * adds or removes, or when they use the same file. Steps that do not conflict
+ * give the same images whatever order they run in, so the image database ends
+ * up the same as when the steps run one after another.
+ *
+ * <p>The results of the steps are given back in the order of the steps, so
+ * the caller can show the messages of the script in order.
+ */
+public class ScriptScheduler {
+  private final Executor executor;
+
+  /**
+   * Constructs a ScriptScheduler object running the steps on the executor.
+   *
+   * @param executor The executor of the worker pool.
+   * @throws IllegalArgumentException if the executor is null.
+   */
+  public ScriptScheduler(Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.executor = executor;
+  }
+
+  /**
+   * Runs the task of each step on the worker pool after the earlier steps it
+   * conflicts with.
+   *
+   * @param steps The steps of the script, in order.
+   * @param removed The ids of the images the task of a step removes, on top of
+   *     those the calls of the step add.
+   * @param task The task running a step and giving its result.
+   * @param <T> The type of the results of the steps.
+   * @return The results of the steps, in the order of the steps.
+   * @throws IllegalArgumentException if any of the arguments is null.
+   */
+  public <T> List<CompletableFuture<T>> schedule(List<ScriptStep> steps,
+                                                Function<ScriptStep, Set<String>> removed,
+                                                Function<ScriptStep, T> task) {
+    if (steps == null || removed == null || task == null) {
+      throw new IllegalArgumentException("Null script.");
+    }
+    List<Resources> resources = new ArrayList<>();
+    List<CompletableFuture<T>> results = new ArrayList<>();
+    for (ScriptStep step : steps) {
+      Resources used = new Resources(step, removed.apply(step));
+      List<CompletableFuture<T>> before = new ArrayList<>();
+      for (int i = 0; i < resources.size(); i++) {
+        if (resources.get(i).conflictsWith(used)) {
+          before.add(results.get(i));
+        }
+      }
+      resources.add(used);
+      CompletableFuture<?>[] waited = before.toArray(new CompletableFuture<?>[0]);
+      results.add(CompletableFuture.allOf(waited)
+              .thenApplyAsync(done -> task.apply(step), this.executor));
+    }
+    return results;
+  }
+
+  // the image ids and files a step uses
+  private static class Resources {
+    private final Set<String> reads = new HashSet<>();
+    private final Set<String> writes = new HashSet<>();
+    private final Set<String> files = new HashSet<>();
+
+    Resources(ScriptStep step, Set<String> removed) {
+      for (ICmdCall call : step.getCalls()) {
+        this.reads.addAll(call.getSources());
+        if (call.getDestination() != null) {
+          this.writes.add(call.getDestination());
+        }
+        for (String file : call.getFiles()) {
+          this.files.add(normalize(file));
+        }
+      }
+      this.writes.addAll(removed);
+    }
+
+    // whether the two steps must run in the order of the script
+    boolean conflictsWith(Resources other) {
+      return intersect(this.writes, other.reads) || intersect(this.reads, other.writes)
+              || intersect(this.writes, other.writes) || intersect(this.files, other.files);
+    }
+
+    // helper method to check whether two sets share an element
+    private static boolean intersect(Set<String> a, Set<String> b) {
+      for (String element : a) {
+        if (b.contains(element)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // helper method to give the same name to the paths of the same file
+    private static String normalize(String file) {
+      try {
+        return Paths.get(file).toAbsolutePath().normalize().toString();
+      } catch (InvalidPathException e) {
+        return file;
+      }
+    }
+  }
+}
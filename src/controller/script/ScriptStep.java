@@ -0,0 +1,113 @@
+package controller.script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import controller.commands.ICmdCall;
+
+/**
+ * The ScriptStep class represents one step of an optimized script, the calls
+ * of the script it stands for and the call that replaces them, if any. When
+ * the replacement fails, or an earlier call it relies on failed, the calls are
+ * run one by one instead, so each of them reports its own failure the same way
+ * as without the optimization.
+ */
+public class ScriptStep {
+  private final List<ICmdCall> calls;
+  private final ICmdCall replacement;
+  private final List<String> rewrites;
+  private final Set<ICmdCall> assumed;
+
+  /**
+   * Constructs a ScriptStep object running the given call as it is.
+   *
+   * @param call The call of the script.
+   * @throws IllegalArgumentException if the call is null.
+   */
+  public ScriptStep(ICmdCall call) {
+    this(Collections.singletonList(call), null);
+  }
+
+  /**
+   * Constructs a ScriptStep object with the calls of the script it stands for
+   * and the call that replaces them.
+   *
+   * @param calls The calls of the script, in order.
+   * @param replacement The call that gives the same result as the calls, or
+   *     null to run the calls themselves.
+   * @throws IllegalArgumentException if the calls are null, empty or hold null.
+   */
+  public ScriptStep(List<ICmdCall> calls, ICmdCall replacement) {
+    this(calls, replacement, List.of(), Set.of());
+  }
+
+  /**
+   * Constructs a ScriptStep object with the calls of the script it stands for,
+   * the call that replaces them, the rewrites made to find it, and the calls
+   * before it that must not have failed for the replacement to be used.
+   *
+   * @param calls The calls of the script, in order.
+   * @param replacement The call that gives the same result as the calls, or
+   *     null to run the calls themselves.
+   * @param rewrites The messages reporting the rewrites of the calls.
+   * @param assumed The earlier calls the replacement relies on.
+   * @throws IllegalArgumentException if any argument other than the replacement
+   *     is null, or the calls are empty or hold null.
+   */
+  public ScriptStep(List<ICmdCall> calls, ICmdCall replacement, List<String> rewrites,
+                    Set<ICmdCall> assumed) {
+    if (rewrites == null || assumed == null) {
+      throw new IllegalArgumentException("Invalid script calls.");
+    }
+    if (calls == null || calls.isEmpty()) {
+      throw new IllegalArgumentException("Invalid script calls.");
+    }
+    this.calls = new ArrayList<>(calls);
+    if (this.calls.contains(null)) {
+      throw new IllegalArgumentException("Invalid script calls.");
+    }
+    this.replacement = replacement;
+    this.rewrites = new ArrayList<>(rewrites);
+    this.assumed = new HashSet<>(assumed);
+  }
+
+  /**
+   * Return the calls of the script this step stands for.
+   *
+   * @return The calls of the script, in order.
+   */
+  public List<ICmdCall> getCalls() {
+    return new ArrayList<>(this.calls);
+  }
+
+  /**
+   * Return the call that replaces the calls of this step.
+   *
+   * @return The replacing call, or null if the calls run as they are.
+   */
+  public ICmdCall getReplacement() {
+    return this.replacement;
+  }
+
+  /**
+   * Return the messages reporting the rewrites made to find the replacement.
+   *
+   * @return The messages of the rewrites, empty if none.
+   */
+  public List<String> getRewrites() {
+    return new ArrayList<>(this.rewrites);
+  }
+
+  /**
+   * Return the earlier calls of the script the replacement relies on. If any
+   * of them failed, the calls of this step are run themselves.
+   *
+   * @return The calls the replacement relies on, empty if none.
+   */
+  public Set<ICmdCall> getAssumed() {
+    return new HashSet<>(this.assumed);
+  }
+}
@@ -0,0 +1,128 @@
+package controller.script;
+
+import java.util.Arrays;
+
+import model.transformation.BrighterDarker;
+import model.transformation.ITransformation;
+import model.transformation.MatrixGreyscale;
+
+/**
+ * The ValueRange class represents the smallest and the largest value each
+ * channel of an image can hold, as far as the script shows. Channels are
+ * numbered 0 for red, 1 for green and 2 for blue. The range after a
+ * transformation is found from the range before it by interval arithmetic for
+ * the brighten and matrix transformations, and is the full range for any
+ * other transformation.
+ */
+public final class ValueRange {
+  /**
+   * The range of an image nothing is known about.
+   */
+  public static final ValueRange FULL = new ValueRange(new int[]{0, 0, 0},
+          new int[]{255, 255, 255});
+
+  private final int[] low;
+  private final int[] high;
+
+  /**
+   * Constructs a ValueRange object with the smallest and the largest value of
+   * each channel.
+   *
+   * @param low The smallest value of the red, green and blue channels.
+   * @param high The largest value of the red, green and blue channels.
+   * @throws IllegalArgumentException if the arrays are null, not of three values,
+   *     or a range is empty or not inside of 0 to 255.
+   */
+  public ValueRange(int[] low, int[] high) {
+    if (low == null || high == null || low.length != 3 || high.length != 3) {
+      throw new IllegalArgumentException("Invalid value range.");
+    }
+    for (int c = 0; c < 3; c++) {
+      if (low[c] < 0 || low[c] > high[c] || high[c] > 255) {
+        throw new IllegalArgumentException("Invalid value range.");
+      }
+    }
+    this.low = low.clone();
+    this.high = high.clone();
+  }
+
+  /**
+   * Return the smallest value of the channel.
+   *
+   * @param channel The channel, 0 for red, 1 for green and 2 for blue.
+   * @return The smallest value of the channel.
+   */
+  public int getLow(int channel) {
+    return this.low[channel];
+  }
+
+  /**
+   * Return the largest value of the channel.
+   *
+   * @param channel The channel, 0 for red, 1 for green and 2 for blue.
+   * @return The largest value of the channel.
+   */
+  public int getHigh(int channel) {
+    return this.high[channel];
+  }
+
+  /**
+   * Return the range of the image given by running the transformation on an
+   * image of this range.
+   *
+   * @param transformation The transformation to run.
+   * @return The range of the transformed image.
+   */
+  public ValueRange after(ITransformation transformation) {
+    int[] newLow = new int[3];
+    int[] newHigh = new int[3];
+    if (transformation instanceof BrighterDarker) {
+      long value = ((BrighterDarker) transformation).getValue();
+      for (int c = 0; c < 3; c++) {
+        newLow[c] = clamp(this.low[c] + value);
+        newHigh[c] = clamp(this.high[c] + value);
+      }
+    } else if (transformation instanceof MatrixGreyscale) {
+      MatrixGreyscale matrix = (MatrixGreyscale) transformation;
+      double[][] kernel = matrix.getKernel();
+      // rounding, and the error of the fixed-point mode, stay inside of one
+      // past the range of the exact sums.
+      double error = matrix.isFixedPoint() ? matrix.getFixedPointError() : 0;
+      for (int c = 0; c < 3; c++) {
+        double min = 0;
+        double max = 0;
+        for (int j = 0; j < 3; j++) {
+          min += Math.min(kernel[c][j] * this.low[j], kernel[c][j] * this.high[j]);
+          max += Math.max(kernel[c][j] * this.low[j], kernel[c][j] * this.high[j]);
+        }
+        newLow[c] = clamp((long) Math.floor(min - error));
+        newHigh[c] = clamp((long) Math.ceil(max + error));
+      }
+    } else {
+      return FULL;
+    }
+    return new ValueRange(newLow, newHigh);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof ValueRange)) {
+      return false;
+    }
+    ValueRange that = (ValueRange) other;
+    return Arrays.equals(this.low, that.low) && Arrays.equals(this.high, that.high);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(this.low) + Arrays.hashCode(this.high);
+  }
+
+  // helper method to clamp a value into the channel values
+  private static int clamp(long value) {
+    return (int) Math.min(Math.max(0, value), 255);
+  }
+}
@@ -0,0 +1,93 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import model.images.FrozenImage;
+import model.images.IImageState;
+
+/**
+ * The ConcurrentImageDatabase class represents an image database that several
+ * controllers on several threads may share. Each image is frozen when it is
+ * added, so it can no longer change once another thread can see it. A
+ * PackedImage, the image every loader and transformation gives, is frozen
+ * without copying its pixels.
+ *
+ * <p>The images are held in a ConcurrentHashMap, so getting an image takes no
+ * lock and adding or removing one only locks the bin of its id, whatever the
+ * number of images held. Writers share the read side of a read-write lock,
+ * so they never wait for each other, while a snapshot takes the write side
+ * and so copies the images with no write half done.
+ */
+public class ConcurrentImageDatabase implements IImageDatabase {
+  private final Map<String, IImageState> images;
+  // shared by the writers, held alone by a snapshot
+  private final ReadWriteLock snapshotLock;
+
+  /**
+   * Constructs a ConcurrentImageDatabase object holding no images.
+   */
+  public ConcurrentImageDatabase() {
+    this.images = new ConcurrentHashMap<>();
+    this.snapshotLock = new ReentrantReadWriteLock();
+  }
+
+  @Override
+  public void addImage(String idImage, IImageState image)
+          throws IllegalArgumentException {
+    if (idImage == null || image == null) {
+      throw new IllegalArgumentException("Cannot load null image.");
+    }
+    IImageState frozen = FrozenImage.of(image);
+    this.snapshotLock.readLock().lock();
+    try {
+      this.images.put(idImage, frozen);
+    } finally {
+      this.snapshotLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public IImageState getImage(String idImage)
+          throws IllegalStateException {
+    if (idImage == null) {
+      throw new IllegalArgumentException("Image id cannot be null");
+    }
+    IImageState image = this.images.get(idImage);
+    if (image == null) {
+      throw new IllegalStateException("No image with this id.");
+    }
+    return image;
+  }
+
+  @Override
+  public void removeImage(String idImage) throws IllegalArgumentException {
+    if (idImage == null) {
+      throw new IllegalArgumentException("Image id cannot be null");
+    }
+    this.snapshotLock.readLock().lock();
+    try {
+      this.images.remove(idImage);
+    } finally {
+      this.snapshotLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Return the images of this database at one point in time, by id. Writers
+   * wait while the snapshot is taken, and later changes to the database are
+   * not seen in it.
+   *
+   * @return The unmodifiable map of the images by id.
+   */
+  public Map<String, IImageState> snapshot() {
+    this.snapshotLock.writeLock().lock();
+    try {
+      return Map.copyOf(this.images);
+    } finally {
+      this.snapshotLock.writeLock().unlock();
+    }
+  }
+}
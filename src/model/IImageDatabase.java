@@ -32,4 +32,13 @@ public interface IImageDatabase {
    *     the given idImage.
    */
   IImageState getImage(String idImage);
+
+  /**
+   * Removes the image with the specified ID from the image database, if
+   * there is one.
+   *
+   * @param idImage The unique identifier of the image to be removed.
+   * @throws IllegalArgumentException if the idImage parameter is null.
+   */
+  void removeImage(String idImage);
 }
@@ -43,4 +43,12 @@ public class ImageDatabase implements IImageDatabase {
     }
     return image;
   }
+
+  @Override
+  public void removeImage(String idImage) throws IllegalArgumentException {
+    if (idImage == null) {
+      throw new IllegalArgumentException("Image id cannot be null");
+    }
+    this.imageMap.remove(idImage);
+  }
 }
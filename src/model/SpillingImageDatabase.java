@@ -0,0 +1,324 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+
+/**
+ * The SpillingImageDatabase class represents an image database that keeps at
+ * most a budget of bytes of images in memory, four bytes a pixel. When adding
+ * or reloading an image goes over the budget, the least recently used images
+ * are written to raw files in a spill directory and dropped from memory. A
+ * spilled image is read back from its file the next time it is asked for, so
+ * the database holds the same images as an ImageDatabase would.
+ *
+ * <p>A spill file holds the width and the height of the image followed by the
+ * red, green and blue bytes of each pixel in row-major order, three bytes a
+ * pixel. An image that cannot be spilled stays in memory. Every operation
+ * holds the lock of this object, so several threads may use the database at
+ * the same time.
+ *
+ * <p>A spill directory the database creates is its own, and is deleted with
+ * the spill files when the database is closed.
+ */
+public class SpillingImageDatabase implements IImageDatabase, AutoCloseable {
+  private final long budget;
+  private final Path directory;
+  // true if this database created the directory, and so deletes it on close
+  private final boolean ownsDirectory;
+  // the images in memory, the least recently used first
+  private final LinkedHashMap<String, IImageState> resident;
+  private final Map<String, Path> spilled;
+  private long bytes;
+  private long spilledBytes;
+  private long nextFile;
+  private int spillCount;
+  private int reloadCount;
+
+  /**
+   * Constructs a SpillingImageDatabase object keeping at most the given bytes
+   * of images in memory and spilling the others into a new temporary
+   * directory, deleted when the database is closed.
+   *
+   * @param budget The largest number of bytes of the images kept in memory.
+   * @throws IllegalArgumentException if the budget is negative or the
+   *     directory cannot be created.
+   */
+  public SpillingImageDatabase(long budget) {
+    this(budget, createTemporaryDirectory(), true);
+  }
+
+  /**
+   * Constructs a SpillingImageDatabase object keeping at most the given bytes
+   * of images in memory and spilling the others into the given directory,
+   * which is created if it does not exist.
+   *
+   * @param budget The largest number of bytes of the images kept in memory.
+   * @param directory The directory to write the spill files into.
+   * @throws IllegalArgumentException if the budget is negative, the directory
+   *     is null or cannot be created.
+   */
+  public SpillingImageDatabase(long budget, Path directory) {
+    this(budget, directory, directory != null && !Files.isDirectory(directory));
+  }
+
+  // creates the directory if it does not exist, owning it if asked to
+  private SpillingImageDatabase(long budget, Path directory, boolean ownsDirectory) {
+    if (budget < 0 || directory == null) {
+      throw new IllegalArgumentException("Constructor argument invalid.");
+    }
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot create the spill directory.");
+    }
+    this.budget = budget;
+    this.directory = directory;
+    this.ownsDirectory = ownsDirectory;
+    this.resident = new LinkedHashMap<>(16, 0.75f, true);
+    this.spilled = new HashMap<>();
+  }
+
+  @Override
+  public synchronized void addImage(String idImage, IImageState image)
+          throws IllegalArgumentException {
+    if (idImage == null || image == null) {
+      throw new IllegalArgumentException("Cannot load null image.");
+    }
+    removeImage(idImage);
+    this.resident.put(idImage, image);
+    this.bytes += sizeOf(image);
+    evict();
+  }
+
+  @Override
+  public synchronized IImageState getImage(String idImage)
+          throws IllegalStateException {
+    if (idImage == null) {
+      throw new IllegalArgumentException("Image id cannot be null");
+    }
+    IImageState image = this.resident.get(idImage);
+    if (image != null) {
+      return image;
+    }
+    Path file = this.spilled.get(idImage);
+    if (file == null) {
+      throw new IllegalStateException("No image with this id.");
+    }
+
+    try {
+      image = read(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot reload the image.");
+    }
+    this.reloadCount++;
+    this.spilled.remove(idImage);
+    this.spilledBytes -= fileSizeOf(image);
+    delete(file);
+    this.resident.put(idImage, image);
+    this.bytes += sizeOf(image);
+    evict();
+    return image;
+  }
+
+  @Override
+  public synchronized void removeImage(String idImage) throws IllegalArgumentException {
+    if (idImage == null) {
+      throw new IllegalArgumentException("Image id cannot be null");
+    }
+    IImageState image = this.resident.remove(idImage);
+    if (image != null) {
+      this.bytes -= sizeOf(image);
+    }
+    Path file = this.spilled.remove(idImage);
+    if (file != null) {
+      this.spilledBytes -= fileSize(file);
+      delete(file);
+    }
+  }
+
+  /**
+   * Return the number of times an image was written to a spill file.
+   *
+   * @return The number of spills.
+   */
+  public synchronized int getSpillCount() {
+    return this.spillCount;
+  }
+
+  /**
+   * Return the number of times a spilled image was read back into memory.
+   *
+   * @return The number of reloads.
+   */
+  public synchronized int getReloadCount() {
+    return this.reloadCount;
+  }
+
+  /**
+   * Return the number of bytes of the images kept in memory now.
+   *
+   * @return The bytes of the images in memory.
+   */
+  public synchronized long getBytes() {
+    return this.bytes;
+  }
+
+  /**
+   * Return the number of bytes of the spill files of the images spilled now.
+   *
+   * @return The bytes of the spill files.
+   */
+  public synchronized long getSpilledBytes() {
+    return this.spilledBytes;
+  }
+
+  /**
+   * Deletes the spill files of this database, dropping the spilled images,
+   * and the spill directory if this database created it.
+   */
+  @Override
+  public synchronized void close() {
+    for (Path file : this.spilled.values()) {
+      delete(file);
+    }
+    this.spilled.clear();
+    this.spilledBytes = 0;
+    if (this.ownsDirectory) {
+      delete(this.directory);
+    }
+  }
+
+  // helper method to spill the least recently used images until the images in
+  // memory fit in the budget, always keeping the most recently used one.
+  private void evict() {
+    Iterator<Map.Entry<String, IImageState>> eldest = this.resident.entrySet().iterator();
+    int candidates = this.resident.size() - 1;
+    while (this.bytes > this.budget && candidates-- > 0) {
+      Map.Entry<String, IImageState> entry = eldest.next();
+      Path file = this.directory.resolve("spill-" + this.nextFile++ + ".raw");
+      try {
+        write(file, entry.getValue());
+      } catch (IOException | IllegalArgumentException e) {
+        // keep the image in memory
+        delete(file);
+        continue;
+      }
+      this.spillCount++;
+      this.spilled.put(entry.getKey(), file);
+      this.bytes -= sizeOf(entry.getValue());
+      this.spilledBytes += fileSizeOf(entry.getValue());
+      eldest.remove();
+    }
+  }
+
+  // helper method to write an image into a spill file, a row at a time
+  private static void write(Path file, IImageState image) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(Math.max(3 * width, 8));
+      buffer.putInt(width).putInt(height).flip();
+      writeFully(channel, buffer);
+      int[] row = new int[width];
+      for (int h = 0; h < height; h++) {
+        image.getRow(h, row);
+        buffer.clear();
+        for (int value : row) {
+          buffer.put((byte) (value >> 16)).put((byte) (value >> 8)).put((byte) value);
+        }
+        buffer.flip();
+        writeFully(channel, buffer);
+      }
+    }
+  }
+
+  // helper method to read an image back from its spill file, a row at a time
+  private static IImageState read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(8);
+      readFully(channel, header);
+      int width = header.getInt();
+      int height = header.getInt();
+      IImage image = new PackedImage(width, height);
+      ByteBuffer buffer = ByteBuffer.allocate(3 * width);
+      int[] row = new int[width];
+      for (int h = 0; h < height; h++) {
+        readFully(channel, buffer);
+        for (int w = 0; w < width; w++) {
+          row[w] = (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8
+                  | (buffer.get() & 0xFF);
+        }
+        image.setRow(h, row);
+      }
+      return image;
+    }
+  }
+
+  // helper method to write the remaining bytes of the buffer
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  // helper method to fill the buffer from the channel and flip it for reading
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Spill file too short.");
+      }
+    }
+    buffer.flip();
+  }
+
+  // helper method to delete a spill file or an empty directory, if it is there
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // a file left behind does not change the images of the database
+    }
+  }
+
+  // helper method to give the bytes of a packed image in memory
+  private static long sizeOf(IImageState image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  // helper method to give the bytes of the spill file of an image
+  private static long fileSizeOf(IImageState image) {
+    return 8 + 3L * image.getWidth() * image.getHeight();
+  }
+
+  // helper method to give the bytes of a spill file, or 0 if it cannot be read
+  private static long fileSize(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  // helper method to create a temporary directory for the spill files
+  private static Path createTemporaryDirectory() {
+    try {
+      return Files.createTempDirectory("spill");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot create the spill directory.");
+    }
+  }
+}
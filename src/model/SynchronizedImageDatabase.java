@@ -0,0 +1,41 @@
+package model;
+
+import model.images.IImageState;
+
+/**
+ * The SynchronizedImageDatabase class wraps an image database so that several
+ * threads can add, get and remove images at the same time. Every operation
+ * holds the lock of this object while it runs on the wrapped database, and an
+ * image added by one thread is seen whole by any thread getting it after.
+ */
+public class SynchronizedImageDatabase implements IImageDatabase {
+  private final IImageDatabase database;
+
+  /**
+   * Constructs a SynchronizedImageDatabase object wrapping the given database.
+   *
+   * @param database The image database to wrap.
+   * @throws IllegalArgumentException if the database is null.
+   */
+  public SynchronizedImageDatabase(IImageDatabase database) {
+    if (database == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.database = database;
+  }
+
+  @Override
+  public synchronized void addImage(String idImage, IImageState image) {
+    this.database.addImage(idImage, image);
+  }
+
+  @Override
+  public synchronized IImageState getImage(String idImage) {
+    return this.database.getImage(idImage);
+  }
+
+  @Override
+  public synchronized void removeImage(String idImage) {
+    this.database.removeImage(idImage);
+  }
+}
@@ -0,0 +1,140 @@
+package model.images;
+
+/**
+ * This class represents an image that can no longer change, implementation
+ * of the IImageState interface only. Its pixels are one packed 0xRRGGBB array
+ * held in a final field, so a FrozenImage is safely published to every thread
+ * that sees a reference to it, and any number of threads may read it at the
+ * same time.
+ *
+ * <p>Freezing a PackedImage takes its packed array without copying it, and
+ * the PackedImage can no longer be set. The pixels of any other image are
+ * copied once into a new array.
+ */
+public final class FrozenImage implements IImageState {
+  private final int[] data;
+  private final int width;
+  private final int height;
+
+  // holds the packed values, owned by this image from now on
+  private FrozenImage(int[] data, int width, int height) {
+    this.data = data;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Return the image frozen, or the image itself if it is already frozen. A
+   * PackedImage is frozen without copying its pixels and can no longer be set
+   * afterwards, any other image is copied.
+   *
+   * @param image The image to freeze.
+   * @return The frozen image holding the same values.
+   * @throws IllegalArgumentException if the image is null, or is not a
+   *     PackedImage and has a position whose pixel is not set.
+   */
+  public static FrozenImage of(IImageState image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Cannot load null image.");
+    }
+    if (image instanceof FrozenImage) {
+      return (FrozenImage) image;
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (image instanceof PackedImage) {
+      return new FrozenImage(((PackedImage) image).seal(), width, height);
+    }
+    int[] data = new int[width * height];
+    image.getRegion(0, 0, width, height, data);
+    return new FrozenImage(data, width, height);
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  // helper method to get the packed value of a position that has been set
+  private int getPacked(int w, int h) {
+    if (w < 0 || w >= this.width || h < 0 || h >= this.height) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+    return checkSet(this.data[h * this.width + w]);
+  }
+
+  // helper method to check a packed value has been set, a frozen PackedImage
+  // may hold positions that never were
+  private static int checkSet(int value) throws IllegalArgumentException {
+    if (value == PackedImage.UNSET) {
+      throw new IllegalArgumentException("Image of this position has no value.");
+    }
+    return value;
+  }
+
+  @Override
+  public int getRedChannel(int w, int h) {
+    return (getPacked(w, h) >> 16) & 0xFF;
+  }
+
+  @Override
+  public int getGreenChannel(int w, int h) {
+    return (getPacked(w, h) >> 8) & 0xFF;
+  }
+
+  @Override
+  public int getBlueChannel(int w, int h) {
+    return getPacked(w, h) & 0xFF;
+  }
+
+  // helper method to check a region is inside this image and the array holds it
+  private void checkRegion(int x, int y, int w, int h, int[] array)
+          throws IllegalArgumentException {
+    if (array == null) {
+      throw new IllegalArgumentException("Null channel values.");
+    }
+    if (x < 0 || y < 0 || w < 1 || h < 1 || x > this.width - w || y > this.height - h) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+    if (array.length < w * h) {
+      throw new IllegalArgumentException("Not enough channel values.");
+    }
+  }
+
+  @Override
+  public void getRow(int h, int[] dst) throws IllegalArgumentException {
+    getRegion(0, h, this.width, 1, dst);
+  }
+
+  @Override
+  public void getRegion(int x, int y, int w, int h, int[] dst)
+          throws IllegalArgumentException {
+    checkRegion(x, y, w, h, dst);
+    for (int j = 0; j < h; j++) {
+      int start = (y + j) * this.width + x;
+      for (int i = 0; i < w; i++) {
+        dst[j * w + i] = checkSet(this.data[start + i]);
+      }
+    }
+  }
+
+  @Override
+  public void getRowChannels(int h, int[] r, int[] g, int[] b)
+          throws IllegalArgumentException {
+    checkRegion(0, h, this.width, 1, r);
+    checkRegion(0, h, this.width, 1, g);
+    checkRegion(0, h, this.width, 1, b);
+    int start = h * this.width;
+    for (int i = 0; i < this.width; i++) {
+      int value = checkSet(this.data[start + i]);
+      r[i] = (value >> 16) & 0xFF;
+      g[i] = (value >> 8) & 0xFF;
+      b[i] = value & 0xFF;
+    }
+  }
+}
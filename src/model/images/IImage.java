@@ -23,4 +23,44 @@ public interface IImage extends IImageState {
    *     range. And when the channel value is null.
    */
   void setPixel(int w, int h, int r, int g, int b);
+
+  /**
+   * Set one row of this image from the given packed 0xRRGGBB values, one
+   * value per width index starting at index 0 of the array. The bounds of
+   * the row are checked once for the whole row.
+   *
+   * @param h The height index of the row.
+   * @param src The packed values to set the row to, at least as long as the width.
+   * @throws IllegalArgumentException if given value not in the valid range,
+   *     the array is null or too short, or any value is not a valid 0xRRGGBB value.
+   */
+  void setRow(int h, int[] src);
+
+  /**
+   * Set a rectangular region of this image from the given packed 0xRRGGBB
+   * values in row-major order, so position (x + i, y + j) is set to the value
+   * at index j * w + i of the array.
+   *
+   * @param x The width index of the top left position of the region.
+   * @param y The height index of the top left position of the region.
+   * @param w The width of the region.
+   * @param h The height of the region.
+   * @param src The packed values to set the region to, at least w * h long.
+   * @throws IllegalArgumentException if the region is not inside this image,
+   *     the array is null or too short, or any value is not a valid 0xRRGGBB value.
+   */
+  void setRegion(int x, int y, int w, int h, int[] src);
+
+  /**
+   * Set the red, green and blue channel values of one row of this image from
+   * three separate arrays, one value per width index starting at index 0.
+   *
+   * @param h The height index of the row.
+   * @param r The red channel values to set the row to.
+   * @param g The green channel values to set the row to.
+   * @param b The blue channel values to set the row to.
+   * @throws IllegalArgumentException if given value not in the valid range,
+   *     any array is null or too short, or any channel value not in 0 to 255.
+   */
+  void setRowChannels(int h, int[] r, int[] g, int[] b);
 }
@@ -55,4 +55,45 @@ public interface IImageState {
    * @throws IllegalStateException if no channel value of the given position.
    */
   int getBlueChannel(int w, int h);
+
+  /**
+   * Copy one row of this image into the given array as packed 0xRRGGBB values,
+   * one value per width index starting at index 0 of the array. The bounds of
+   * the row are checked once for the whole row. Valid range of height index is
+   * 0 to the height of the image minus 1.
+   *
+   * @param h The height index of the row.
+   * @param dst The array to copy the row into, at least as long as the width.
+   * @throws IllegalArgumentException if given value not in the valid range,
+   *     the array is null or too short, or a position of the row has no value.
+   */
+  void getRow(int h, int[] dst);
+
+  /**
+   * Copy a rectangular region of this image into the given array as packed
+   * 0xRRGGBB values in row-major order, so the value of position (x + i, y + j)
+   * is stored at index j * w + i of the array.
+   *
+   * @param x The width index of the top left position of the region.
+   * @param y The height index of the top left position of the region.
+   * @param w The width of the region.
+   * @param h The height of the region.
+   * @param dst The array to copy the region into, at least w * h long.
+   * @throws IllegalArgumentException if the region is not inside this image,
+   *     the array is null or too short, or a position of the region has no value.
+   */
+  void getRegion(int x, int y, int w, int h, int[] dst);
+
+  /**
+   * Copy the red, green and blue channel values of one row of this image into
+   * three separate arrays, one value per width index starting at index 0.
+   *
+   * @param h The height index of the row.
+   * @param r The array to copy the red channel values into.
+   * @param g The array to copy the green channel values into.
+   * @param b The array to copy the blue channel values into.
+   * @throws IllegalArgumentException if given value not in the valid range,
+   *     any array is null or too short, or a position of the row has no value.
+   */
+  void getRowChannels(int h, int[] r, int[] g, int[] b);
 }
@@ -0,0 +1,43 @@
+package model.images;
+
+/**
+ * This interface represents an image read one row at a time, from the top row
+ * down, so that a chain of loader, transformations and saver only holds the
+ * rows each of them needs instead of whole images. The rows are packed
+ * 0xRRGGBB values as in IImageState.getRow.
+ */
+public interface IRowSource extends AutoCloseable {
+
+  /**
+   * Get the width of the image, the number of values of each row.
+   *
+   * @return The width of the image.
+   */
+  int getWidth();
+
+  /**
+   * Get the height of the image, the number of rows to read.
+   *
+   * @return The height of the image.
+   */
+  int getHeight();
+
+  /**
+   * Reads the next row of the image into the first width values of the array.
+   *
+   * @param dst The array to read the packed values of the row into.
+   * @throws IllegalArgumentException if the array is null or too short.
+   * @throws IllegalStateException if every row has been read or the row
+   *     cannot be read.
+   */
+  void nextRow(int[] dst);
+
+  /**
+   * Releases what the rows are read from, such as an open file. Does nothing
+   * by default.
+   */
+  @Override
+  default void close() {
+    // nothing to release
+  }
+}
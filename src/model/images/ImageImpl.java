@@ -85,4 +85,90 @@ public class ImageImpl implements IImage {
               "has no blue value.");
     }
   }
+
+  // helper method to check a region is inside this image and the array holds it
+  private void checkRegion(int x, int y, int w, int h, int[] array)
+          throws IllegalArgumentException {
+    if (array == null) {
+      throw new IllegalArgumentException("Null channel values.");
+    }
+    if (x < 0 || y < 0 || w < 1 || h < 1 || x > this.width - w || y > this.height - h) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+    if (array.length < w * h) {
+      throw new IllegalArgumentException("Not enough channel values.");
+    }
+  }
+
+  // helper method to get the pixel of a position, bounds already checked
+  private IPixel getSetPixel(int w, int h) throws IllegalArgumentException {
+    IPixel pixel = this.data[w][h];
+    if (pixel == null) {
+      throw new IllegalArgumentException("Image of this position has no value.");
+    }
+    return pixel;
+  }
+
+  @Override
+  public void getRow(int h, int[] dst) throws IllegalArgumentException {
+    getRegion(0, h, this.width, 1, dst);
+  }
+
+  @Override
+  public void getRegion(int x, int y, int w, int h, int[] dst)
+          throws IllegalArgumentException {
+    checkRegion(x, y, w, h, dst);
+    for (int j = 0; j < h; j++) {
+      for (int i = 0; i < w; i++) {
+        IPixel pixel = getSetPixel(x + i, y + j);
+        dst[j * w + i] = (pixel.getR() << 16) | (pixel.getG() << 8) | pixel.getB();
+      }
+    }
+  }
+
+  @Override
+  public void getRowChannels(int h, int[] r, int[] g, int[] b)
+          throws IllegalArgumentException {
+    checkRegion(0, h, this.width, 1, r);
+    checkRegion(0, h, this.width, 1, g);
+    checkRegion(0, h, this.width, 1, b);
+    for (int i = 0; i < this.width; i++) {
+      IPixel pixel = getSetPixel(i, h);
+      r[i] = pixel.getR();
+      g[i] = pixel.getG();
+      b[i] = pixel.getB();
+    }
+  }
+
+  @Override
+  public void setRow(int h, int[] src) throws IllegalArgumentException {
+    setRegion(0, h, this.width, 1, src);
+  }
+
+  @Override
+  public void setRegion(int x, int y, int w, int h, int[] src)
+          throws IllegalArgumentException {
+    checkRegion(x, y, w, h, src);
+    for (int j = 0; j < h; j++) {
+      for (int i = 0; i < w; i++) {
+        int value = src[j * w + i];
+        if ((value & 0xFF000000) != 0) {
+          throw new IllegalArgumentException("Channel value invalid.");
+        }
+        this.data[x + i][y + j] = new Pixel((value >> 16) & 0xFF,
+                (value >> 8) & 0xFF, value & 0xFF);
+      }
+    }
+  }
+
+  @Override
+  public void setRowChannels(int h, int[] r, int[] g, int[] b)
+          throws IllegalArgumentException {
+    checkRegion(0, h, this.width, 1, r);
+    checkRegion(0, h, this.width, 1, g);
+    checkRegion(0, h, this.width, 1, b);
+    for (int i = 0; i < this.width; i++) {
+      this.data[i][h] = new Pixel(r[i], g[i], b[i]);
+    }
+  }
 }
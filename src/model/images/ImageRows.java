@@ -0,0 +1,66 @@
+package model.images;
+
+/**
+ * This class implements the IRowSource interface to read the rows of an image
+ * that is already in memory. It also collects the rows of any IRowSource back
+ * into an image, for the steps that need the whole image at once.
+ */
+public class ImageRows implements IRowSource {
+  private final IImageState image;
+  private int next;
+
+  /**
+   * Constructs an ImageRows object reading the rows of the given image.
+   *
+   * @param image The image to read the rows of.
+   * @throws IllegalArgumentException if the image is null.
+   */
+  public ImageRows(IImageState image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Constructor argument cannot be null.");
+    }
+    this.image = image;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.image.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.image.getHeight();
+  }
+
+  @Override
+  public void nextRow(int[] dst) {
+    if (this.next >= this.image.getHeight()) {
+      throw new IllegalStateException("No rows left.");
+    }
+    this.image.getRow(this.next++, dst);
+  }
+
+  /**
+   * Reads the rows left in the source into a new image and closes the source.
+   *
+   * @param rows The rows to collect, none of them read yet.
+   * @return The image holding the rows.
+   * @throws IllegalArgumentException if the rows are null.
+   * @throws IllegalStateException if a row cannot be read.
+   */
+  public static IImage collect(IRowSource rows) {
+    if (rows == null) {
+      throw new IllegalArgumentException("Null rows.");
+    }
+    try (rows) {
+      int width = rows.getWidth();
+      IImage image = new PackedImage(width, rows.getHeight());
+      int[] row = new int[width];
+      for (int h = 0; h < rows.getHeight(); h++) {
+        rows.nextRow(row);
+        image.setRow(h, row);
+      }
+      return image;
+    }
+  }
+}
@@ -0,0 +1,246 @@
+package model.images;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * This class represents an Image whose pixels are packed into one int array
+ * and implementation of the IImage interface. Each pixel is stored as a single
+ * 0xRRGGBB value in row-major order, so that walking the heights in the outer
+ * loop and the widths in the inner loop reads the memory in order. Setting a
+ * pixel never allocates a new object.
+ *
+ * <p>Several threads may set pixels of the same PackedImage at the same time
+ * as long as they set disjoint positions, for example disjoint bands of rows.
+ * The values they set are seen by other threads once the writing threads are
+ * joined, as done by ParallelRows, or the image is otherwise safely published.
+ *
+ * <p>The packed array is also the layout of a TYPE_INT_RGB BufferedImage, so
+ * the image can be shown as one without copying its pixels, see
+ * asBufferedImage.
+ *
+ * <p>Once frozen by FrozenImage.of, the FrozenImage owns the packed array and
+ * setting a pixel of this image throws an IllegalStateException.
+ */
+public class PackedImage implements IImage {
+  // marker of a position whose pixel has not been set yet, any set pixel
+  // has the top byte cleared so it can never be equal to this value.
+  static final int UNSET = -1;
+
+  private final int[] data;
+  private final int width;
+  private final int height;
+  // true once a FrozenImage owns the packed array, see seal
+  private boolean sealed;
+
+  /**
+   * Initializes the Image with given value of width and height of the image.
+   * Valid width and height are positive integers.
+   *
+   * @param width The width of the image.
+   * @param height The height of the image.
+   * @throws IllegalArgumentException if given value not in the valid.
+   */
+  public PackedImage(int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Image size invalid.");
+    }
+    if ((long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image size invalid.");
+    }
+    this.data = new int[width * height];
+    Arrays.fill(this.data, UNSET);
+    this.width = width;
+    this.height = height;
+  }
+
+  @Override
+  public void setPixel(int wIndex, int hIndex, int r, int g, int b)
+          throws IllegalArgumentException {
+    checkNotSealed();
+    checkBounds(wIndex, hIndex);
+    if (r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255) {
+      throw new IllegalArgumentException("Channel value invalid.");
+    }
+    this.data[hIndex * this.width + wIndex] = (r << 16) | (g << 8) | b;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Return a TYPE_INT_RGB BufferedImage sharing the packed array of this image
+   * as its DataBufferInt, so it shows the pixels of this image without any
+   * copy or conversion. A position whose pixel has not been set shows white.
+   *
+   * <p>Setting a pixel of this image changes the BufferedImage too, and a
+   * repaint may then show a mix of the old and the new values. An image must
+   * therefore not be set once it is handed to a view. The images of a database
+   * are never set once added, each transformation writing into a new image,
+   * so showing the image of an id is safe until the id is given a new image.
+   * The BufferedImage must not be drawn into, since that would set the pixels
+   * of this image.
+   *
+   * @return The BufferedImage sharing the pixels of this image.
+   */
+  public BufferedImage asBufferedImage() {
+    DirectColorModel model = new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+    WritableRaster raster = Raster.createPackedRaster(
+            new DataBufferInt(this.data, this.data.length), this.width, this.height,
+            this.width, model.getMasks(), null);
+    return new BufferedImage(model, raster, false, null);
+  }
+
+  /**
+   * Hands the packed array of this image to a FrozenImage, without copying it.
+   * No pixel of this image may be set afterwards.
+   *
+   * @return The packed array of this image.
+   */
+  int[] seal() {
+    this.sealed = true;
+    return this.data;
+  }
+
+  // helper method to check the pixels of this image may still be set
+  private void checkNotSealed() throws IllegalStateException {
+    if (this.sealed) {
+      throw new IllegalStateException("Image can no longer change.");
+    }
+  }
+
+  // helper method
+  private void checkBounds(int w, int h) throws IllegalArgumentException {
+    if ( w < 0 || w >= this.width || h < 0 || h >= this.height ) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+  }
+
+  // helper method to get the packed value of a position that has been set
+  private int getPacked(int w, int h, String channel) {
+    checkBounds(w, h);
+    int value = this.data[h * this.width + w];
+    if (value == UNSET) {
+      throw new IllegalArgumentException("Image of this position " +
+              "has no " + channel + " value.");
+    }
+    return value;
+  }
+
+  @Override
+  public int getRedChannel(int w, int h) throws IllegalStateException {
+    return (getPacked(w, h, "red") >> 16) & 0xFF;
+  }
+
+  @Override
+  public int getGreenChannel(int w, int h) throws IllegalStateException {
+    return (getPacked(w, h, "green") >> 8) & 0xFF;
+  }
+
+  @Override
+  public int getBlueChannel(int w, int h) throws IllegalStateException {
+    return getPacked(w, h, "blue") & 0xFF;
+  }
+
+  // helper method to check a region is inside this image and the array holds it
+  private void checkRegion(int x, int y, int w, int h, int[] array)
+          throws IllegalArgumentException {
+    if (array == null) {
+      throw new IllegalArgumentException("Null channel values.");
+    }
+    if (x < 0 || y < 0 || w < 1 || h < 1 || x > this.width - w || y > this.height - h) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+    if (array.length < w * h) {
+      throw new IllegalArgumentException("Not enough channel values.");
+    }
+  }
+
+  @Override
+  public void getRow(int h, int[] dst) throws IllegalArgumentException {
+    getRegion(0, h, this.width, 1, dst);
+  }
+
+  @Override
+  public void getRegion(int x, int y, int w, int h, int[] dst)
+          throws IllegalArgumentException {
+    checkRegion(x, y, w, h, dst);
+    for (int j = 0; j < h; j++) {
+      int start = (y + j) * this.width + x;
+      for (int i = 0; i < w; i++) {
+        int value = this.data[start + i];
+        if (value == UNSET) {
+          throw new IllegalArgumentException("Image of this position has no value.");
+        }
+        dst[j * w + i] = value;
+      }
+    }
+  }
+
+  @Override
+  public void getRowChannels(int h, int[] r, int[] g, int[] b)
+          throws IllegalArgumentException {
+    checkRegion(0, h, this.width, 1, r);
+    checkRegion(0, h, this.width, 1, g);
+    checkRegion(0, h, this.width, 1, b);
+    int start = h * this.width;
+    for (int i = 0; i < this.width; i++) {
+      int value = this.data[start + i];
+      if (value == UNSET) {
+        throw new IllegalArgumentException("Image of this position has no value.");
+      }
+      r[i] = (value >> 16) & 0xFF;
+      g[i] = (value >> 8) & 0xFF;
+      b[i] = value & 0xFF;
+    }
+  }
+
+  @Override
+  public void setRow(int h, int[] src) throws IllegalArgumentException {
+    setRegion(0, h, this.width, 1, src);
+  }
+
+  @Override
+  public void setRegion(int x, int y, int w, int h, int[] src)
+          throws IllegalArgumentException {
+    checkNotSealed();
+    checkRegion(x, y, w, h, src);
+    for (int i = 0; i < w * h; i++) {
+      if ((src[i] & 0xFF000000) != 0) {
+        throw new IllegalArgumentException("Channel value invalid.");
+      }
+    }
+    for (int j = 0; j < h; j++) {
+      System.arraycopy(src, j * w, this.data, (y + j) * this.width + x, w);
+    }
+  }
+
+  @Override
+  public void setRowChannels(int h, int[] r, int[] g, int[] b)
+          throws IllegalArgumentException {
+    checkNotSealed();
+    checkRegion(0, h, this.width, 1, r);
+    checkRegion(0, h, this.width, 1, g);
+    checkRegion(0, h, this.width, 1, b);
+    for (int i = 0; i < this.width; i++) {
+      if ((r[i] | g[i] | b[i]) >>> 8 != 0) {
+        throw new IllegalArgumentException("Channel value invalid.");
+      }
+    }
+    int start = h * this.width;
+    for (int i = 0; i < this.width; i++) {
+      this.data[start + i] = (r[i] << 16) | (g[i] << 8) | b[i];
+    }
+  }
+}
@@ -2,7 +2,12 @@ package model.transformation;
 
 import model.images.IImage;
 import model.images.IImageState;
-import model.images.ImageImpl;
+import model.images.IRowSource;
+import model.images.PackedImage;
+
+import static model.transformation.Channel.BLUE;
+import static model.transformation.Channel.GREEN;
+import static model.transformation.Channel.RED;
 
 /**
  * The AbstractTransformation class provides a basic structure
@@ -10,33 +15,132 @@ import model.images.ImageImpl;
  * and implement the abstract methods that transforms the image to perform
  * the specific transformation. See each class for specific transformation
  * description.
+ *
+ * <p>When every output channel of a transformation depends on one input
+ * channel only, see getLookupSource, the transformation is compiled into
+ * three 256 entry lookup tables the first time it runs, and each pixel is
+ * then transformed by three table lookups.
+ *
+ * <p>Streamed, each row is transformed in place as it is read, so only one
+ * row is held at a time.
  */
 public abstract class AbstractTransformation implements ITransformation {
 
+  // the compiled lookup tables, null until compiled or if not possible.
+  private volatile LookupTables lookupTables;
+  private volatile boolean lookupCompiled;
+
   /**
    * Applies the image transformation to the input image and
-   * returns the transformed IImageState.
+   * returns the transformed IImageState. Bands of rows are transformed
+   * in parallel by ParallelRows.
    *
    * @param image The IImageState object representing the input image.
    * @return The IImageState object representing the transformed image.
    */
   public IImageState run(IImageState image) {
-    IImage newImage = new ImageImpl(image.getWidth(), image.getHeight());
-
-    for (int h = 0; h < image.getHeight(); h++) {
-      for (int w = 0; w < image.getWidth(); w++) {
-        int r = image.getRedChannel(w, h);
-        int g = image.getGreenChannel(w, h);
-        int b = image.getBlueChannel(w, h);
-        int newR = clamp(changeToValueR(r, g, b));
-        int newG = clamp(changeToValueG(r, g, b));
-        int newB = clamp(changeToValueB(r, g, b));
-        newImage.setPixel(w, h, newR, newG, newB);
+    int width = image.getWidth();
+    int height = image.getHeight();
+    IImage newImage = new PackedImage(width, height);
+
+    ParallelRows.run(width, height, (start, end) -> {
+      int[] row = new int[width];
+      for (int h = start; h < end; h++) {
+        image.getRow(h, row);
+        applyRow(row, width);
+        newImage.setRow(h, row);
       }
-    }
+    });
     return newImage;
   }
 
+  /**
+   * Gives the rows of the transformed image, each one transformed as it is
+   * read from the rows of the input image.
+   *
+   * @param rows The rows of the input image, none of them read yet.
+   * @return The rows of the transformed image, closing the input rows when
+   *     closed.
+   * @throws IllegalArgumentException if the rows are null.
+   */
+  @Override
+  public IRowSource stream(IRowSource rows) {
+    if (rows == null) {
+      throw new IllegalArgumentException("Null rows.");
+    }
+    return new IRowSource() {
+      @Override
+      public int getWidth() {
+        return rows.getWidth();
+      }
+
+      @Override
+      public int getHeight() {
+        return rows.getHeight();
+      }
+
+      @Override
+      public void nextRow(int[] dst) {
+        rows.nextRow(dst);
+        applyRow(dst, rows.getWidth());
+      }
+
+      @Override
+      public void close() {
+        rows.close();
+      }
+    };
+  }
+
+  /**
+   * Return the halo of this transformation, which reads each pixel of the
+   * input image to give the same pixel only.
+   *
+   * @return 0.
+   */
+  @Override
+  public int getHalo() {
+    return 0;
+  }
+
+  // Transforms one packed pixel with the changeToValue methods, subclasses that
+  // transform a whole pixel at once may override it.
+  protected int transformPixel(int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    int newR = clamp(changeToValueR(r, g, b));
+    int newG = clamp(changeToValueG(r, g, b));
+    int newB = clamp(changeToValueB(r, g, b));
+    return (newR << 16) | (newG << 8) | newB;
+  }
+
+  // Transforms a row of packed pixels in place, through the lookup tables if
+  // compiled. Used by ComposedTransformation to run the stages on a row.
+  void applyRow(int[] row, int width) {
+    LookupTables tables = getLookupTables();
+    if (tables != null) {
+      tables.apply(row, width);
+    } else {
+      transformRow(row, width);
+    }
+  }
+
+  // Transforms a row of packed pixels in place with transformPixel, subclasses
+  // may override it.
+  protected void transformRow(int[] row, int width) {
+    for (int w = 0; w < width; w++) {
+      row[w] = transformPixel(row[w]);
+    }
+  }
+
+  // Transforms one packed pixel, through the lookup tables if compiled. Used by
+  // ComposedTransformation to run the stages one pixel at a time.
+  int applyPixel(int rgb) {
+    LookupTables tables = getLookupTables();
+    return tables != null ? tables.applyPixel(rgb) : transformPixel(rgb);
+  }
+
   // Transforms the red channel value based on the implementation in the subclass.
   // return The transformed red channel value.
   protected abstract int changeToValueR(int r, int g, int b);
@@ -49,9 +153,91 @@ public abstract class AbstractTransformation implements ITransformation {
   // return The transformed blue channel value.
   protected abstract int changeToValueB(int r, int g, int b);
 
+  // Returns the only input channel the given output channel depends on, or null
+  // if it depends on more than one. Subclasses that return a channel for all
+  // three outputs are run through lookup tables.
+  protected Channel getLookupSource(Channel output) {
+    return null;
+  }
+
   // helper method to clamp the channel value of the image.
   protected int clamp(int value) {
     return Math.min(Math.max(0, value), 255);
   }
 
+  // helper method to get the lookup tables, compiled the first time it is called.
+  private LookupTables getLookupTables() {
+    if (!this.lookupCompiled) {
+      this.lookupTables = compileLookupTables();
+      this.lookupCompiled = true;
+    }
+    return this.lookupTables;
+  }
+
+  // helper method to compile the lookup tables, or null if some output channel
+  // depends on more than one input channel.
+  private LookupTables compileLookupTables() {
+    Channel sourceR = getLookupSource(RED);
+    Channel sourceG = getLookupSource(GREEN);
+    Channel sourceB = getLookupSource(BLUE);
+    if (sourceR == null || sourceG == null || sourceB == null) {
+      return null;
+    }
+    int[] tableR = new int[256];
+    int[] tableG = new int[256];
+    int[] tableB = new int[256];
+    for (int v = 0; v < 256; v++) {
+      tableR[v] = clamp(changeToValueR(valueOf(sourceR, RED, v),
+              valueOf(sourceR, GREEN, v), valueOf(sourceR, BLUE, v))) << 16;
+      tableG[v] = clamp(changeToValueG(valueOf(sourceG, RED, v),
+              valueOf(sourceG, GREEN, v), valueOf(sourceG, BLUE, v))) << 8;
+      tableB[v] = clamp(changeToValueB(valueOf(sourceB, RED, v),
+              valueOf(sourceB, GREEN, v), valueOf(sourceB, BLUE, v)));
+    }
+    return new LookupTables(tableR, sourceR.getShift(), tableG, sourceG.getShift(),
+            tableB, sourceB.getShift());
+  }
+
+  // helper method to give the input channel the value if it is the source channel.
+  private static int valueOf(Channel source, Channel input, int value) {
+    return source == input ? value : 0;
+  }
+
+  // the three lookup tables of a compiled transformation, each holding the
+  // output channel already shifted into its place of the packed value.
+  private static class LookupTables {
+    private final int[] tableR;
+    private final int[] tableG;
+    private final int[] tableB;
+    private final int shiftR;
+    private final int shiftG;
+    private final int shiftB;
+
+    LookupTables(int[] tableR, int shiftR, int[] tableG, int shiftG,
+                 int[] tableB, int shiftB) {
+      this.tableR = tableR;
+      this.tableG = tableG;
+      this.tableB = tableB;
+      this.shiftR = shiftR;
+      this.shiftG = shiftG;
+      this.shiftB = shiftB;
+    }
+
+    // transform one packed value
+    int applyPixel(int rgb) {
+      return this.tableR[(rgb >> this.shiftR) & 0xFF]
+              | this.tableG[(rgb >> this.shiftG) & 0xFF]
+              | this.tableB[(rgb >> this.shiftB) & 0xFF];
+    }
+
+    // transform the packed values of the row in place
+    void apply(int[] row, int width) {
+      for (int w = 0; w < width; w++) {
+        int rgb = row[w];
+        row[w] = this.tableR[(rgb >> this.shiftR) & 0xFF]
+                | this.tableG[(rgb >> this.shiftG) & 0xFF]
+                | this.tableB[(rgb >> this.shiftB) & 0xFF];
+      }
+    }
+  }
 }
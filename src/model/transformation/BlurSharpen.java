@@ -1,24 +1,73 @@
 package model.transformation;
 
+import java.util.Arrays;
+
 import model.images.IImage;
 import model.images.IImageState;
-import model.images.ImageImpl;
-
-import static model.transformation.Channel.BLUE;
-import static model.transformation.Channel.GREEN;
-import static model.transformation.Channel.RED;
+import model.images.IRowSource;
+import model.images.PackedImage;
 
 /**
  * The BlurSharpen class represents a transformation that converts
  * an image to blurred/sharpened when it runs. It implements the
  * ITransformation interface.
+ *
+ * <p>The positions the kernel reaches outside of the image are read as given
+ * by the EdgeMode of the filter, which is zero unless another one is given.
+ * Only the border strips of the image, where the kernel reaches over the
+ * edges, look at the edge mode. The interior of the image is filtered without
+ * checking any position.
+ *
+ * <p>A kernel that is the product of a column and a row, such as the Gaussian
+ * blur kernel, is separable. It is run as a horizontal pass with the row
+ * followed by a vertical pass with the column, which takes 2k instead of
+ * k * k multiplications per channel for a k by k kernel. Both passes add up
+ * the same products as the full kernel, so the result is the same up to the
+ * rounding of the double sums, and exactly the same when the weights are
+ * powers of two as in the Gaussian blur kernel.
+ *
+ * <p>In fixed-point mode the weights are quantized once to Q16 integers and
+ * the channel sums are added up in longs, a separable kernel keeping the 32
+ * fraction bits of both passes, and each sum is rounded with a single shift.
+ * A separable kernel whose factors are too large to quantize, or whose Q32
+ * sums could overflow a long, is run whole instead, see FixedPoint.fits.
+ * A channel sum then differs from the exact one by at most
+ * getFixedPointError, so when that error is below one, as it is for every
+ * kernel of this program, a channel differs from the double path by at most
+ * one. The Gaussian blur kernels quantize exactly and give the same image in
+ * both modes.
+ *
+ * <p>Each output row is filtered from the k rows around it, so a streamed
+ * filter only keeps a ring of k input rows, and gives the same image as run.
+ *
+ * <p>On a copy of the image shrunk by a scale s, the kernel K reaches s times
+ * as far, so atScale runs s * s * K + (1 - s * s) * D instead, D being the
+ * kernel that keeps each pixel. It adds up to the same total as K, and its
+ * spread, the sum of the weights times the squared distance from the center,
+ * is s * s times the spread of K, as the spread of K measured in the pixels of
+ * the copy is. The blended kernel is not separable in general.
  */
 public class BlurSharpen implements ITransformation {
 
+  // largest difference between a kernel weight and the product of its
+  // factors, relative to the largest weight, for the kernel to be separable.
+  private static final double SEPARABLE_TOLERANCE = 1e-12;
+
   private final double[][] kernel;
+  private final EdgeMode edge;
+  // the column and row factors of a separable kernel, null if not separable.
+  private final double[] columnFactors;
+  private final double[] rowFactors;
+  private final boolean fixedPoint;
+  // the quantized weights of the kernel or of its factors, null if not in
+  // fixed-point mode.
+  private final long[][] fixedKernel;
+  private final long[] fixedColumn;
+  private final long[] fixedRow;
 
   /**
-   * Constructs a BlurSharpen object with the specified double 2D array.
+   * Constructs a BlurSharpen object with the specified double 2D array,
+   * reading the positions outside of the image as zero.
    *
    * @param kernel The 2D array representing the kernel used for the
    *     blur/sharpen transformation. The kernel should have odd dimensions
@@ -27,78 +76,762 @@ public class BlurSharpen implements ITransformation {
    *     dimensions, or has dimensions less than 3.
    */
   public BlurSharpen(double[][] kernel) {
+    this(kernel, EdgeMode.ZERO);
+  }
+
+  /**
+   * Constructs a BlurSharpen object with the specified double 2D array and
+   * the edge mode to read the positions outside of the image with.
+   *
+   * @param kernel The 2D array representing the kernel used for the
+   *     blur/sharpen transformation. The kernel should have odd dimensions
+   *     and larger than 3 values.
+   * @param edge The edge mode for the positions outside of the image.
+   * @throws IllegalArgumentException If the kernel is null, has even
+   *     dimensions, or has dimensions less than 3, or the edge mode is null.
+   */
+  public BlurSharpen(double[][] kernel, EdgeMode edge) {
+    this(kernel, edge, false);
+  }
+
+  /**
+   * Constructs a BlurSharpen object with the specified double 2D array and
+   * the edge mode to read the positions outside of the image with, which
+   * runs in fixed-point mode if asked to.
+   *
+   * @param kernel The 2D array representing the kernel used for the
+   *     blur/sharpen transformation. The kernel should have odd dimensions
+   *     and larger than 3 values.
+   * @param edge The edge mode for the positions outside of the image.
+   * @param fixedPoint true to add up the channel sums with quantized weights.
+   * @throws IllegalArgumentException If the kernel is null, has even
+   *     dimensions, or has dimensions less than 3, or the edge mode is null,
+   *     or a weight is too large for fixed point.
+   */
+  public BlurSharpen(double[][] kernel, EdgeMode edge, boolean fixedPoint) {
     if (kernel == null || kernel.length % 2 == 0 ||  kernel.length < 3 ) {
       throw new IllegalArgumentException("Kernel invalid dimensions.");
     }
+    if (edge == null) {
+      throw new IllegalArgumentException("Null edge mode.");
+    }
     this.kernel = kernel;
+    this.edge = edge;
+
+    double[][] factors = factorize(kernel);
+    if (fixedPoint && factors != null && !fitsTwoPasses(factors)) {
+      factors = null;
+    }
+    this.columnFactors = factors == null ? null : factors[0];
+    this.rowFactors = factors == null ? null : factors[1];
+
+    this.fixedPoint = fixedPoint;
+    this.fixedKernel = fixedPoint && !isSeparable() ? quantize(kernel) : null;
+    if (this.fixedKernel != null && !FixedPoint.fits(
+            Arrays.stream(this.fixedKernel).flatMapToLong(Arrays::stream).toArray())) {
+      throw new IllegalArgumentException("Weight invalid for fixed point.");
+    }
+    this.fixedColumn = fixedPoint && isSeparable() ? quantize(this.columnFactors) : null;
+    this.fixedRow = fixedPoint && isSeparable() ? quantize(this.rowFactors) : null;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof BlurSharpen)) {
+      return false;
+    }
+    BlurSharpen that = (BlurSharpen) other;
+    return this.fixedPoint == that.fixedPoint && this.edge == that.edge
+            && Arrays.deepEquals(this.kernel, that.kernel);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * Arrays.deepHashCode(this.kernel) + this.edge.hashCode())
+            + Boolean.hashCode(this.fixedPoint);
+  }
+
+  /**
+   * Return the filter to run on a copy of the image shrunk by the scale, whose
+   * kernel blends the kernel of this filter with the kernel keeping each pixel
+   * by the square of the scale. The edge mode and the fixed-point mode stay the
+   * same.
+   *
+   * @param scale The size of the copy relative to the image, above 0 and at
+   *     most 1.
+   * @return The filter for the copy, this filter if the scale is 1.
+   * @throws IllegalArgumentException if the scale is not above 0 and at most 1.
+   */
+  @Override
+  public ITransformation atScale(double scale) {
+    if (!(scale > 0) || scale > 1) {
+      throw new IllegalArgumentException("Invalid scale.");
+    }
+    if (scale == 1) {
+      return this;
+    }
+    int size = this.kernel.length;
+    double weight = scale * scale;
+    double[][] scaled = new double[size][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        scaled[i][j] = weight * this.kernel[i][j];
+      }
+    }
+    scaled[size / 2][size / 2] += 1 - weight;
+    return new BlurSharpen(scaled, this.edge, this.fixedPoint);
+  }
+
+  /**
+   * Return the halo of this filter, half of the size of its kernel. The WRAP
+   * edge mode reads the opposite edge of the image, so the filter has no halo
+   * with it.
+   *
+   * @return The halo of this filter, or -1 with the WRAP edge mode.
+   */
+  @Override
+  public int getHalo() {
+    return this.edge == EdgeMode.WRAP ? -1 : this.kernel.length / 2;
+  }
+
+  /**
+   * Return whether this BlurSharpen runs in fixed-point mode.
+   *
+   * @return true if the channel sums are added up with quantized weights.
+   */
+  public boolean isFixedPoint() {
+    return this.fixedPoint;
+  }
+
+  /**
+   * Return the largest difference between a channel sum added up with the
+   * quantized weights and the exact channel sum, before rounding. It is 255
+   * times the sum of the quantization errors of the weights, so a channel of
+   * the fixed-point mode differs from the double path by at most this error
+   * plus one, up to the rounding of the double sums.
+   *
+   * @return The largest error of a fixed-point channel sum.
+   * @throws IllegalArgumentException if a weight is too large for fixed point.
+   */
+  public double getFixedPointError() {
+    int size = this.kernel.length;
+    long[][] quantized = isSeparable() ? null : quantize(this.kernel);
+    long[] column = isSeparable() ? quantize(this.columnFactors) : null;
+    long[] row = isSeparable() ? quantize(this.rowFactors) : null;
+    double error = 0;
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        double weight = isSeparable()
+                ? FixedPoint.valueOf(column[i] * row[j], 2 * FixedPoint.FRACTION_BITS)
+                : FixedPoint.valueOf(quantized[i][j], FixedPoint.FRACTION_BITS);
+        error += Math.abs(this.kernel[i][j] - weight);
+      }
+    }
+    return 255 * error;
+  }
+
+  /**
+   * Return whether the kernel of this BlurSharpen is separable into a column
+   * and a row, and so is run as two one dimensional passes. In fixed-point
+   * mode, a kernel whose two passes could overflow is not.
+   *
+   * @return true if the kernel is separable.
+   */
+  public boolean isSeparable() {
+    return this.rowFactors != null;
   }
 
   /**
    * Applies the image transformation blur or sharpen to the input image and
-   * returns the transformed IImageState.
+   * returns the transformed IImageState. Bands of rows are filtered in
+   * parallel by ParallelRows.
    *
    * @param image The IImageState object representing the input image.
    * @return The IImageState object representing the transformed image.
    */
   @Override
   public IImageState run(IImageState image) {
-    IImage newImage = new ImageImpl(image.getWidth(), image.getHeight());
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] source = new int[width * height];
+    image.getRegion(0, 0, width, height, source);
 
-    for (int h = 0; h < image.getHeight(); h++) {
-      for (int w = 0; w < image.getWidth(); w++) {
-        int newR = clamp(applyKernel(image, w, h, RED));
-        int newG = clamp(applyKernel(image, w, h, GREEN));
-        int newB = clamp(applyKernel(image, w, h, BLUE));
-        newImage.setPixel(w, h, newR, newG, newB);
+    IImage newImage = new PackedImage(width, height);
+    ParallelRows.run(width, height, (start, end) -> {
+      RowFilter filter = new RowFilter(source, width, height, height);
+      int[] row = new int[width];
+      filter.start(start);
+      for (int h = start; h < end; h++) {
+        filter.filter(h, row);
+        newImage.setRow(h, row);
       }
-    }
+    });
     return newImage;
   }
 
-  // helper method to clamp the channel value of the image.
-  private int clamp(int value) {
-    return Math.min(Math.max(0, value), 255);
+  /**
+   * Gives the rows of the blurred or sharpened image, each one filtered as soon
+   * as the input rows its kernel reaches have been read. Only the last k input
+   * rows are kept, in a ring, for a k by k kernel, so a streamed filter holds
+   * a number of values proportional to the width times k. With the WRAP edge
+   * mode the first rows read the last ones, so the input is collected first.
+   *
+   * @param rows The rows of the input image, none of them read yet.
+   * @return The rows of the filtered image, closing the input rows when closed.
+   * @throws IllegalArgumentException if the rows are null.
+   */
+  @Override
+  public IRowSource stream(IRowSource rows) {
+    if (rows == null) {
+      throw new IllegalArgumentException("Null rows.");
+    }
+    if (this.edge == EdgeMode.WRAP) {
+      return ITransformation.super.stream(rows);
+    }
+    return new StreamedRows(rows);
   }
 
-  // helper method to apply the kernel on a channel value of a single pixel
-  private int applyKernel(IImageState image,
-                               int w, int h, Channel color) {
+  // helper method to get the place of a row in a ring of the given rows
+  private static int slot(int y, int size) {
+    return Math.floorMod(y, size);
+  }
+
+  // the rows of a streamed filter. The input rows are read into a ring of k
+  // rows as the output rows need them. Any other row the edge mode reads for
+  // an output row is one of the k rows around it, as the ZERO, CLAMP and
+  // MIRROR edge modes never read further from the edge than the kernel does.
+  private class StreamedRows implements IRowSource {
+    private final IRowSource rows;
+    private final int width;
+    private final int height;
+    private final int size;
+    private final int[] ring;
+    private final int[] buffer;
+    private final RowFilter filter;
+    private int read;
+    private int next;
+
+    StreamedRows(IRowSource rows) {
+      this.rows = rows;
+      this.width = rows.getWidth();
+      this.height = rows.getHeight();
+      this.size = kernel.length;
+      this.ring = new int[this.size * this.width];
+      this.buffer = new int[this.width];
+      this.filter = new RowFilter(this.ring, this.width, this.height, this.size);
+    }
+
+    @Override
+    public int getWidth() {
+      return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+      return this.height;
+    }
 
-    int halfSize = this.kernel.length / 2;
-    double result = 0;
-    for (int y = - halfSize; y <= halfSize; y++) {
-      for (int x = - halfSize; x <= halfSize; x++) {
-        int value = getChannelValue(image, w + x, h + y, color);
-        result += value * this.kernel[y + halfSize][x + halfSize];
+    @Override
+    public void nextRow(int[] dst) {
+      if (dst == null || dst.length < this.width) {
+        throw new IllegalArgumentException("Not enough channel values.");
+      }
+      if (this.next >= this.height) {
+        throw new IllegalStateException("No rows left.");
+      }
+      int h = this.next++;
+      int last = Math.min(h + this.size / 2, this.height - 1);
+      while (this.read <= last) {
+        this.rows.nextRow(this.buffer);
+        System.arraycopy(this.buffer, 0, this.ring, slot(this.read, this.size) * this.width,
+                this.width);
+        this.read++;
+      }
+      if (h == 0) {
+        this.filter.start(0);
+      }
+      this.filter.filter(h, dst);
+    }
+
+    @Override
+    public void close() {
+      this.rows.close();
+    }
+  }
+
+  // filters the rows of an image held in a source array into output rows. The
+  // source holds either the whole image or a ring of its rows, the row y being
+  // at the place y modulo the number of source rows. The output rows are
+  // filtered in order from the row given to start. The horizontal passes of a
+  // separable kernel are kept in a ring of k rows that is reused while walking
+  // down, the rows above and below the image being the rows the edge mode
+  // reads, or rows of zeros.
+  private class RowFilter {
+    private final int[] source;
+    private final int width;
+    private final int height;
+    private final int sourceRows;
+    private final int size;
+    private final int halfSize;
+    // the offsets in the source of the rows the full kernel reads, -1 for zeros
+    private final int[] offsets;
+    private final double[][] ringR;
+    private final double[][] ringG;
+    private final double[][] ringB;
+    private final long[][] fixedR;
+    private final long[][] fixedG;
+    private final long[][] fixedB;
+
+    RowFilter(int[] source, int width, int height, int sourceRows) {
+      this.source = source;
+      this.width = width;
+      this.height = height;
+      this.sourceRows = sourceRows;
+      this.size = kernel.length;
+      this.halfSize = this.size / 2;
+      this.offsets = new int[this.size];
+      boolean ring = isSeparable() && !fixedPoint;
+      boolean fixedRing = isSeparable() && fixedPoint;
+      this.ringR = ring ? new double[this.size][width] : null;
+      this.ringG = ring ? new double[this.size][width] : null;
+      this.ringB = ring ? new double[this.size][width] : null;
+      this.fixedR = fixedRing ? new long[this.size][width] : null;
+      this.fixedG = fixedRing ? new long[this.size][width] : null;
+      this.fixedB = fixedRing ? new long[this.size][width] : null;
+    }
+
+    // fills the ring of a separable kernel with the horizontal passes needed
+    // by the first output row but its last one
+    void start(int h) {
+      if (isSeparable()) {
+        for (int y = h - this.halfSize; y < h + this.halfSize; y++) {
+          passRow(y);
+        }
+      }
+    }
+
+    // filters the output row h, the one after the row filtered last
+    void filter(int h, int[] row) {
+      if (isSeparable()) {
+        passRow(h + this.halfSize);
+        if (fixedPoint) {
+          columnPassFixed(h, row);
+        } else {
+          columnPass(h, row);
+        }
+      } else {
+        for (int y = 0; y < this.size; y++) {
+          this.offsets[y] = offsetOf(h - this.halfSize + y);
+        }
+        if (fixedPoint) {
+          fullPassFixed(row);
+        } else {
+          fullPass(row);
+        }
+      }
+    }
+
+    // helper method to give the offset in the source of the row the edge mode
+    // reads for the row index, or -1 to read a row of zeros.
+    private int offsetOf(int y) {
+      int sourceRow = edge.index(y, this.height);
+      return sourceRow < 0 ? -1 : slot(sourceRow, this.sourceRows) * this.width;
+    }
+
+    // helper method to run the horizontal pass of the row y into its ring row
+    private void passRow(int y) {
+      int ringRow = slot(y, this.size);
+      if (fixedPoint) {
+        rowPassFixed(offsetOf(y), this.fixedR[ringRow], this.fixedG[ringRow],
+                this.fixedB[ringRow]);
+      } else {
+        rowPass(offsetOf(y), this.ringR[ringRow], this.ringG[ringRow], this.ringB[ringRow]);
+      }
+    }
+
+    // helper method to run the full kernel on the rows at the offsets. The
+    // columns whose kernel stays inside of the image are filtered without any
+    // checks, the border strips read through the edge mode.
+    private void fullPass(int[] row) {
+      int[] source = this.source;
+      int halfSize = this.halfSize;
+      int interiorStart = Math.min(halfSize, this.width);
+      int interiorEnd = Math.max(interiorStart, this.width - halfSize);
+
+      for (int w = 0; w < interiorStart; w++) {
+        row[w] = kernelAtEdge(w);
+      }
+      for (int w = interiorStart; w < interiorEnd; w++) {
+        double sumR = 0;
+        double sumG = 0;
+        double sumB = 0;
+        for (int y = 0; y < this.size; y++) {
+          int offset = this.offsets[y];
+          if (offset < 0) {
+            continue;
+          }
+          double[] weights = kernel[y];
+          int index = offset + w - halfSize;
+          for (int x = 0; x < this.size; x++) {
+            int rgb = source[index + x];
+            double weight = weights[x];
+            sumR += ((rgb >> 16) & 0xFF) * weight;
+            sumG += ((rgb >> 8) & 0xFF) * weight;
+            sumB += (rgb & 0xFF) * weight;
+          }
+        }
+        row[w] = pack(sumR, sumG, sumB);
+      }
+      for (int w = interiorEnd; w < this.width; w++) {
+        row[w] = kernelAtEdge(w);
+      }
+    }
+
+    // helper method to apply the full kernel at a column whose kernel reaches
+    // over the edges of the image, reading the outside through the edge mode.
+    private int kernelAtEdge(int w) {
+      double sumR = 0;
+      double sumG = 0;
+      double sumB = 0;
+      for (int y = 0; y < this.size; y++) {
+        int offset = this.offsets[y];
+        if (offset < 0) {
+          continue;
+        }
+        for (int x = - this.halfSize; x <= this.halfSize; x++) {
+          int column = edge.index(w + x, this.width);
+          if (column < 0) {
+            continue;
+          }
+          int rgb = this.source[offset + column];
+          double weight = kernel[y][x + this.halfSize];
+          sumR += ((rgb >> 16) & 0xFF) * weight;
+          sumG += ((rgb >> 8) & 0xFF) * weight;
+          sumB += (rgb & 0xFF) * weight;
+        }
+      }
+      return pack(sumR, sumG, sumB);
+    }
+
+    // helper method to run the full quantized kernel on the rows at the
+    // offsets, the same way as fullPass with the sums added up in Q16 longs.
+    private void fullPassFixed(int[] row) {
+      int[] source = this.source;
+      int halfSize = this.halfSize;
+      int interiorStart = Math.min(halfSize, this.width);
+      int interiorEnd = Math.max(interiorStart, this.width - halfSize);
+
+      for (int w = 0; w < interiorStart; w++) {
+        row[w] = fixedKernelAtEdge(w);
+      }
+      for (int w = interiorStart; w < interiorEnd; w++) {
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        for (int y = 0; y < this.size; y++) {
+          int offset = this.offsets[y];
+          if (offset < 0) {
+            continue;
+          }
+          long[] weights = fixedKernel[y];
+          int index = offset + w - halfSize;
+          for (int x = 0; x < this.size; x++) {
+            int rgb = source[index + x];
+            long weight = weights[x];
+            sumR += ((rgb >> 16) & 0xFF) * weight;
+            sumG += ((rgb >> 8) & 0xFF) * weight;
+            sumB += (rgb & 0xFF) * weight;
+          }
+        }
+        row[w] = packFixed(sumR, sumG, sumB, FixedPoint.FRACTION_BITS);
+      }
+      for (int w = interiorEnd; w < this.width; w++) {
+        row[w] = fixedKernelAtEdge(w);
+      }
+    }
+
+    // helper method to apply the full quantized kernel at a column whose
+    // kernel reaches over the edges of the image.
+    private int fixedKernelAtEdge(int w) {
+      long sumR = 0;
+      long sumG = 0;
+      long sumB = 0;
+      for (int y = 0; y < this.size; y++) {
+        int offset = this.offsets[y];
+        if (offset < 0) {
+          continue;
+        }
+        for (int x = - this.halfSize; x <= this.halfSize; x++) {
+          int column = edge.index(w + x, this.width);
+          if (column < 0) {
+            continue;
+          }
+          int rgb = this.source[offset + column];
+          long weight = fixedKernel[y][x + this.halfSize];
+          sumR += ((rgb >> 16) & 0xFF) * weight;
+          sumG += ((rgb >> 8) & 0xFF) * weight;
+          sumB += (rgb & 0xFF) * weight;
+        }
+      }
+      return packFixed(sumR, sumG, sumB, FixedPoint.FRACTION_BITS);
+    }
+
+    // helper method to run the vertical pass of the column factors over the
+    // ring of horizontal passes for the output row h.
+    private void columnPass(int h, int[] row) {
+      for (int w = 0; w < this.width; w++) {
+        double sumR = 0;
+        double sumG = 0;
+        double sumB = 0;
+        for (int y = 0; y < this.size; y++) {
+          int ringRow = slot(h - this.halfSize + y, this.size);
+          double factor = columnFactors[y];
+          sumR += factor * this.ringR[ringRow][w];
+          sumG += factor * this.ringG[ringRow][w];
+          sumB += factor * this.ringB[ringRow][w];
+        }
+        row[w] = pack(sumR, sumG, sumB);
+      }
+    }
+
+    // helper method to run the vertical pass of the quantized column factors,
+    // whose Q32 sums are rounded once.
+    private void columnPassFixed(int h, int[] row) {
+      for (int w = 0; w < this.width; w++) {
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        for (int y = 0; y < this.size; y++) {
+          int ringRow = slot(h - this.halfSize + y, this.size);
+          long factor = fixedColumn[y];
+          sumR += factor * this.fixedR[ringRow][w];
+          sumG += factor * this.fixedG[ringRow][w];
+          sumB += factor * this.fixedB[ringRow][w];
+        }
+        row[w] = packFixed(sumR, sumG, sumB, 2 * FixedPoint.FRACTION_BITS);
       }
     }
 
-    return (int) Math.round(result);
+    // helper method to run the horizontal pass of the row factors on the
+    // source row at the offset into the given channel rows, an offset of -1
+    // being a row of zeros. Only the border columns read through the edge mode.
+    private void rowPass(int offset, double[] outR, double[] outG, double[] outB) {
+      if (offset < 0) {
+        Arrays.fill(outR, 0);
+        Arrays.fill(outG, 0);
+        Arrays.fill(outB, 0);
+        return;
+      }
+      int[] source = this.source;
+      int halfSize = this.halfSize;
+      int interiorStart = Math.min(halfSize, this.width);
+      int interiorEnd = Math.max(interiorStart, this.width - halfSize);
+
+      for (int w = 0; w < interiorStart; w++) {
+        rowPassAtEdge(offset, w, outR, outG, outB);
+      }
+      for (int w = interiorStart; w < interiorEnd; w++) {
+        double sumR = 0;
+        double sumG = 0;
+        double sumB = 0;
+        int index = offset + w - halfSize;
+        for (int x = 0; x < this.size; x++) {
+          int rgb = source[index + x];
+          double factor = rowFactors[x];
+          sumR += factor * ((rgb >> 16) & 0xFF);
+          sumG += factor * ((rgb >> 8) & 0xFF);
+          sumB += factor * (rgb & 0xFF);
+        }
+        outR[w] = sumR;
+        outG[w] = sumG;
+        outB[w] = sumB;
+      }
+      for (int w = interiorEnd; w < this.width; w++) {
+        rowPassAtEdge(offset, w, outR, outG, outB);
+      }
+    }
+
+    // helper method to run the horizontal pass at a column whose row of the
+    // kernel reaches over the edges, reading the outside through the edge mode.
+    private void rowPassAtEdge(int offset, int w, double[] outR, double[] outG,
+                               double[] outB) {
+      double sumR = 0;
+      double sumG = 0;
+      double sumB = 0;
+      for (int x = - this.halfSize; x <= this.halfSize; x++) {
+        int column = edge.index(w + x, this.width);
+        if (column < 0) {
+          continue;
+        }
+        int rgb = this.source[offset + column];
+        double factor = rowFactors[x + this.halfSize];
+        sumR += factor * ((rgb >> 16) & 0xFF);
+        sumG += factor * ((rgb >> 8) & 0xFF);
+        sumB += factor * (rgb & 0xFF);
+      }
+      outR[w] = sumR;
+      outG[w] = sumG;
+      outB[w] = sumB;
+    }
+
+    // helper method to run the horizontal pass of the quantized row factors on
+    // the source row at the offset, an offset of -1 being a row of zeros.
+    private void rowPassFixed(int offset, long[] outR, long[] outG, long[] outB) {
+      if (offset < 0) {
+        Arrays.fill(outR, 0);
+        Arrays.fill(outG, 0);
+        Arrays.fill(outB, 0);
+        return;
+      }
+      int[] source = this.source;
+      int halfSize = this.halfSize;
+      int interiorStart = Math.min(halfSize, this.width);
+      int interiorEnd = Math.max(interiorStart, this.width - halfSize);
+
+      for (int w = 0; w < interiorStart; w++) {
+        rowPassFixedAtEdge(offset, w, outR, outG, outB);
+      }
+      for (int w = interiorStart; w < interiorEnd; w++) {
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        int index = offset + w - halfSize;
+        for (int x = 0; x < this.size; x++) {
+          int rgb = source[index + x];
+          long factor = fixedRow[x];
+          sumR += factor * ((rgb >> 16) & 0xFF);
+          sumG += factor * ((rgb >> 8) & 0xFF);
+          sumB += factor * (rgb & 0xFF);
+        }
+        outR[w] = sumR;
+        outG[w] = sumG;
+        outB[w] = sumB;
+      }
+      for (int w = interiorEnd; w < this.width; w++) {
+        rowPassFixedAtEdge(offset, w, outR, outG, outB);
+      }
+    }
+
+    // helper method to run the quantized horizontal pass at a column whose row
+    // of the kernel reaches over the edges.
+    private void rowPassFixedAtEdge(int offset, int w, long[] outR, long[] outG,
+                                    long[] outB) {
+      long sumR = 0;
+      long sumG = 0;
+      long sumB = 0;
+      for (int x = - this.halfSize; x <= this.halfSize; x++) {
+        int column = edge.index(w + x, this.width);
+        if (column < 0) {
+          continue;
+        }
+        int rgb = this.source[offset + column];
+        long factor = fixedRow[x + this.halfSize];
+        sumR += factor * ((rgb >> 16) & 0xFF);
+        sumG += factor * ((rgb >> 8) & 0xFF);
+        sumB += factor * (rgb & 0xFF);
+      }
+      outR[w] = sumR;
+      outG[w] = sumG;
+      outB[w] = sumB;
+    }
+  }
+
+  // helper method to split a square kernel into a column and a row whose
+  // product is the kernel, returns null if the kernel is not of rank one.
+  private static double[][] factorize(double[][] kernel) {
+    int size = kernel.length;
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    double largest = 0;
+    for (int i = 0; i < size; i++) {
+      if (kernel[i] == null || kernel[i].length != size) {
+        return null;
+      }
+      for (int j = 0; j < size; j++) {
+        if (Math.abs(kernel[i][j]) > largest) {
+          largest = Math.abs(kernel[i][j]);
+          pivotRow = i;
+          pivotColumn = j;
+        }
+      }
+    }
+    if (largest == 0) {
+      return null;
+    }
+
+    // scale the row to add up to one when possible, so the factors of kernels
+    // made of powers of two, such as the binomial Gaussian ones, stay exact.
+    double rowSum = 0;
+    for (int j = 0; j < size; j++) {
+      rowSum += kernel[pivotRow][j];
+    }
+    double scale = rowSum != 0 ? rowSum : kernel[pivotRow][pivotColumn];
+    double[] column = new double[size];
+    double[] row = new double[size];
+    for (int i = 0; i < size; i++) {
+      column[i] = kernel[i][pivotColumn] * scale / kernel[pivotRow][pivotColumn];
+      row[i] = kernel[pivotRow][i] / scale;
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        if (Math.abs(kernel[i][j] - column[i] * row[j]) > SEPARABLE_TOLERANCE * largest) {
+          return null;
+        }
+      }
+    }
+    return new double[][]{column, row};
   }
 
-  // helper method that returns the specified channel value
-  // at the given place pixel of the image.
-  private int getChannelValue(IImageState image, int w, int h, Channel color) {
-    int result = 0;
-    if (w < 0 || w >= image.getWidth() || h < 0
-            || h >= image.getHeight()) {
-      return result;
+  // helper method to check whether the factors of a separable kernel can be
+  // quantized and run as two passes whose Q32 sums never overflow a long.
+  private static boolean fitsTwoPasses(double[][] factors) {
+    try {
+      return FixedPoint.fits(quantize(factors[1]), quantize(factors[0]));
+    } catch (IllegalArgumentException e) {
+      return false;
     }
+  }
 
-    switch (color) {
-      case RED:
-        result = image.getRedChannel(w, h);
-        break;
-      case GREEN:
-        result = image.getGreenChannel(w, h);
-        break;
-      case BLUE:
-        result = image.getBlueChannel(w, h);
-        break;
-      default:
-        break;
+  // helper method to round and clamp the channel sums into a packed value.
+  private int pack(double sumR, double sumG, double sumB) {
+    int newR = clamp(Math.round(sumR));
+    int newG = clamp(Math.round(sumG));
+    int newB = clamp(Math.round(sumB));
+    return (newR << 16) | (newG << 8) | newB;
+  }
+
+  // helper method to round and clamp fixed-point channel sums with the given
+  // number of fraction bits into a packed value.
+  private int packFixed(long sumR, long sumG, long sumB, int fractionBits) {
+    int newR = clamp(FixedPoint.round(sumR, fractionBits));
+    int newG = clamp(FixedPoint.round(sumG, fractionBits));
+    int newB = clamp(FixedPoint.round(sumB, fractionBits));
+    return (newR << 16) | (newG << 8) | newB;
+  }
+
+  // helper method to quantize the weights of a row
+  private static long[] quantize(double[] weights) {
+    long[] quantized = new long[weights.length];
+    for (int i = 0; i < weights.length; i++) {
+      quantized[i] = FixedPoint.quantize(weights[i]);
     }
-    return result;
+    return quantized;
+  }
+
+  // helper method to quantize the weights of a kernel
+  private static long[][] quantize(double[][] weights) {
+    long[][] quantized = new long[weights.length][];
+    for (int i = 0; i < weights.length; i++) {
+      quantized[i] = quantize(weights[i]);
+    }
+    return quantized;
   }
-}
 
+  // helper method to clamp the channel value of the image.
+  private int clamp(long value) {
+    return (int) Math.min(Math.max(0, value), 255);
+  }
+}
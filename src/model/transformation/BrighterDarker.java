@@ -23,6 +23,32 @@ public class BrighterDarker extends AbstractTransformation
     this.value = value;
   }
 
+  /**
+   * Return the value this transformation adds to the channel values.
+   *
+   * @return The value to adjust the brightness of the image by.
+   */
+  public int getValue() {
+    return this.value;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof BrighterDarker)) {
+      return false;
+    }
+    BrighterDarker that = (BrighterDarker) other;
+    return this.value == that.value;
+  }
+
+  @Override
+  public int hashCode() {
+    return Integer.hashCode(this.value);
+  }
+
   // helper method that adjust red channel values by value amount.
   @Override
   protected int changeToValueR(int r, int g, int b) {
@@ -40,4 +66,10 @@ public class BrighterDarker extends AbstractTransformation
   protected int changeToValueB(int r, int g, int b) {
     return (b + this.value);
   }
+
+  // each channel is adjusted from its own value, so it runs through lookup tables.
+  @Override
+  protected Channel getLookupSource(Channel output) {
+    return output;
+  }
 }
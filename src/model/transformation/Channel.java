@@ -7,7 +7,23 @@ package model.transformation;
  * of the image objects.
  */
 public enum Channel {
-  RED,
-  GREEN,
-  BLUE
+  RED(16),
+  GREEN(8),
+  BLUE(0);
+
+  private final int shift;
+
+  Channel(int shift) {
+    this.shift = shift;
+  }
+
+  /**
+   * Return the bit position of this channel in a packed 0xRRGGBB value.
+   *
+   * @return The number of bits to shift a packed value right by to get
+   *     this channel in the lowest byte.
+   */
+  public int getShift() {
+    return this.shift;
+  }
 }
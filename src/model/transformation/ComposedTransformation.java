@@ -0,0 +1,106 @@
+package model.transformation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ComposedTransformation class represents a chain of per-pixel
+ * transformations run as one transformation. Each row goes through all the
+ * stages in order before the next row is read, so no image is made between
+ * the stages. Every stage still rounds and clamps its own channel values, so
+ * the result is the same as running the stages one after another.
+ *
+ * <p>When every stage maps each output channel from one input channel, the
+ * chain does as well and is compiled into lookup tables like any other
+ * AbstractTransformation.
+ */
+public class ComposedTransformation extends AbstractTransformation
+        implements ITransformation {
+  private final List<AbstractTransformation> stages;
+
+  /**
+   * Constructs a ComposedTransformation object with the stages to run in order.
+   *
+   * @param stages The per-pixel transformations to run, the first one first.
+   * @throws IllegalArgumentException if the stages are null, empty or hold null.
+   */
+  public ComposedTransformation(List<AbstractTransformation> stages) {
+    if (stages == null || stages.isEmpty()) {
+      throw new IllegalArgumentException("Invalid transformations.");
+    }
+    this.stages = new ArrayList<>(stages);
+    if (this.stages.contains(null)) {
+      throw new IllegalArgumentException("Invalid transformations.");
+    }
+  }
+
+  /**
+   * Return the stages of this transformation in the order they run.
+   *
+   * @return The per-pixel transformations of this chain.
+   */
+  public List<AbstractTransformation> getStages() {
+    return new ArrayList<>(this.stages);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof ComposedTransformation)) {
+      return false;
+    }
+    ComposedTransformation that = (ComposedTransformation) other;
+    return this.stages.equals(that.stages);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.stages.hashCode();
+  }
+
+  // runs the row through every stage in order, each one in its fastest way
+  @Override
+  protected void transformRow(int[] row, int width) {
+    for (AbstractTransformation stage : this.stages) {
+      stage.applyRow(row, width);
+    }
+  }
+
+  // runs the pixel through every stage in order
+  @Override
+  protected int transformPixel(int rgb) {
+    int value = rgb;
+    for (AbstractTransformation stage : this.stages) {
+      value = stage.applyPixel(value);
+    }
+    return value;
+  }
+
+  @Override
+  protected int changeToValueR(int r, int g, int b) {
+    return (transformPixel((r << 16) | (g << 8) | b) >> 16) & 0xFF;
+  }
+
+  @Override
+  protected int changeToValueG(int r, int g, int b) {
+    return (transformPixel((r << 16) | (g << 8) | b) >> 8) & 0xFF;
+  }
+
+  @Override
+  protected int changeToValueB(int r, int g, int b) {
+    return transformPixel((r << 16) | (g << 8) | b) & 0xFF;
+  }
+
+  // follows the output channel back through the stages to the input channel
+  // it depends on, null if some stage mixes channels.
+  @Override
+  protected Channel getLookupSource(Channel output) {
+    Channel source = output;
+    for (int i = this.stages.size() - 1; i >= 0 && source != null; i--) {
+      source = this.stages.get(i).getLookupSource(source);
+    }
+    return source;
+  }
+}
@@ -0,0 +1,141 @@
+package model.transformation;
+
+import java.util.Arrays;
+
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+
+/**
+ * The Downscale class represents a transformation that shrinks an image by a
+ * scale when it runs. Each pixel of the smaller image is the rounded average
+ * of the box of pixels of the input image it covers, the boxes splitting the
+ * input image into as even strips of widths and heights as possible. It
+ * implements the ITransformation interface.
+ *
+ * <p>The smaller image is a proxy for showing or previewing a large image, so
+ * it has at least one pixel each way and never more than the input image.
+ * Bands of rows of the smaller image are shrunk in parallel by ParallelRows.
+ */
+public class Downscale implements ITransformation {
+  private final double scale;
+
+  /**
+   * Constructs a Downscale object with the size of the smaller image relative
+   * to the input image.
+   *
+   * @param scale The size of the smaller image relative to the input image,
+   *     above 0 and at most 1.
+   * @throws IllegalArgumentException if the scale is not above 0 and at most 1.
+   */
+  public Downscale(double scale) {
+    if (!(scale > 0) || scale > 1) {
+      throw new IllegalArgumentException("Invalid scale.");
+    }
+    this.scale = scale;
+  }
+
+  /**
+   * Return the largest scale at which an image of the given size fits in the
+   * given bounds, at most 1.
+   *
+   * @param width The width of the image.
+   * @param height The height of the image.
+   * @param maxWidth The largest width of the smaller image.
+   * @param maxHeight The largest height of the smaller image.
+   * @return The scale fitting the image in the bounds.
+   * @throws IllegalArgumentException if any of the sizes is not positive.
+   */
+  public static double toFit(int width, int height, int maxWidth, int maxHeight) {
+    if (width < 1 || height < 1 || maxWidth < 1 || maxHeight < 1) {
+      throw new IllegalArgumentException("Image size invalid.");
+    }
+    return Math.min(1, Math.min((double) maxWidth / width, (double) maxHeight / height));
+  }
+
+  /**
+   * Return the size of the smaller image relative to the input image.
+   *
+   * @return The scale of this Downscale.
+   */
+  public double getScale() {
+    return this.scale;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Downscale)) {
+      return false;
+    }
+    return Double.compare(this.scale, ((Downscale) other).scale) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Double.hashCode(this.scale);
+  }
+
+  /**
+   * Shrinks the input image by the scale, averaging each box of pixels.
+   *
+   * @param image The IImageState object representing the input image.
+   * @return The IImageState object representing the smaller image.
+   */
+  @Override
+  public IImageState run(IImageState image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int newWidth = shrink(width);
+    int newHeight = shrink(height);
+    int[] columns = boxes(width, newWidth);
+    int[] rows = boxes(height, newHeight);
+    IImage newImage = new PackedImage(newWidth, newHeight);
+
+    ParallelRows.run(newWidth, newHeight, (start, end) -> {
+      int[] row = new int[width];
+      long[] sums = new long[3 * newWidth];
+      int[] newRow = new int[newWidth];
+      for (int h = start; h < end; h++) {
+        Arrays.fill(sums, 0);
+        for (int y = rows[h]; y < rows[h + 1]; y++) {
+          image.getRow(y, row);
+          for (int w = 0; w < newWidth; w++) {
+            for (int x = columns[w]; x < columns[w + 1]; x++) {
+              int rgb = row[x];
+              sums[3 * w] += (rgb >> 16) & 0xFF;
+              sums[3 * w + 1] += (rgb >> 8) & 0xFF;
+              sums[3 * w + 2] += rgb & 0xFF;
+            }
+          }
+        }
+        for (int w = 0; w < newWidth; w++) {
+          long count = (long) (rows[h + 1] - rows[h]) * (columns[w + 1] - columns[w]);
+          newRow[w] = (int) ((sums[3 * w] + count / 2) / count) << 16
+                  | (int) ((sums[3 * w + 1] + count / 2) / count) << 8
+                  | (int) ((sums[3 * w + 2] + count / 2) / count);
+        }
+        newImage.setRow(h, newRow);
+      }
+    });
+    return newImage;
+  }
+
+  // helper method to give the length of the smaller image, at least 1 and at
+  // most the length of the input image.
+  private int shrink(int length) {
+    return (int) Math.max(1, Math.min(length, Math.round(length * this.scale)));
+  }
+
+  // helper method to give the first position of each box of the input length,
+  // followed by the input length, so that box i covers positions [b[i], b[i + 1]).
+  private static int[] boxes(int length, int newLength) {
+    int[] bounds = new int[newLength + 1];
+    for (int i = 0; i <= newLength; i++) {
+      bounds[i] = (int) ((long) i * length / newLength);
+    }
+    return bounds;
+  }
+}
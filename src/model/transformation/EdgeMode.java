@@ -0,0 +1,45 @@
+package model.transformation;
+
+/**
+ * The EdgeMode enum represents the ways a kernel filter reads the positions
+ * outside of an image when the kernel reaches over its edges.
+ * ZERO reads every outside position as 0, which darkens the edges.
+ * CLAMP reads the nearest position on the edge.
+ * MIRROR reads the position mirrored about the edge, without repeating it.
+ * WRAP reads the position from the opposite edge of the image.
+ */
+public enum EdgeMode {
+  ZERO,
+  CLAMP,
+  MIRROR,
+  WRAP;
+
+  /**
+   * Return the index inside of the range from 0 to size minus 1 that this
+   * edge mode reads for the given index, or -1 if it reads a zero.
+   *
+   * @param index The width or height index, possibly outside of the image.
+   * @param size The width or height of the image.
+   * @return The index to read, or -1 to read zero.
+   */
+  public int index(int index, int size) {
+    if (index >= 0 && index < size) {
+      return index;
+    }
+    switch (this) {
+      case CLAMP:
+        return index < 0 ? 0 : size - 1;
+      case MIRROR:
+        if (size == 1) {
+          return 0;
+        }
+        int period = 2 * size - 2;
+        int mirrored = Math.floorMod(index, period);
+        return mirrored < size ? mirrored : period - mirrored;
+      case WRAP:
+        return Math.floorMod(index, size);
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package model.transformation;
+
+/**
+ * The FixedPoint class holds the helpers shared by the transformations that
+ * can run in fixed-point mode. Each double weight is quantized once to a Q16
+ * integer, the weight times 2^16 rounded, the products of the weights and the
+ * channel values are added up in a long, and the sum is rounded back to a
+ * channel value with a single shift. The shift rounds half up, the same way
+ * as Math.round does for the double sums.
+ */
+final class FixedPoint {
+
+  // number of fraction bits of a quantized weight
+  static final int FRACTION_BITS = 16;
+
+  // largest weight that is quantized, so that a Q16 weight times a channel
+  // value stays far from overflowing. Whether the sums of many products fit
+  // in a long is checked by fits.
+  private static final double MAX_WEIGHT = 256;
+
+  // no instance of this class
+  private FixedPoint() {
+  }
+
+  /**
+   * Quantize a weight to a Q16 integer.
+   *
+   * @param weight The double weight.
+   * @return The weight times 2^16 rounded to the nearest integer.
+   * @throws IllegalArgumentException if the weight is too large or not a number.
+   */
+  static long quantize(double weight) {
+    if (!(Math.abs(weight) < MAX_WEIGHT)) {
+      throw new IllegalArgumentException("Weight invalid for fixed point.");
+    }
+    return Math.round(weight * (1L << FRACTION_BITS));
+  }
+
+  /**
+   * Return whether the channel sums of quantized weights run one pass after
+   * another, each pass adding up the products of the sums of the pass before,
+   * can never overflow a long, rounding included. A channel value is at most
+   * 255, so no sum is larger than 255 times the product of the totals of the
+   * absolute weights of the passes.
+   *
+   * @param passes The quantized weights of each pass, the first one first.
+   * @return true if no channel sum can overflow a long.
+   */
+  static boolean fits(long[]... passes) {
+    try {
+      long bound = 255;
+      for (long[] weights : passes) {
+        long total = 0;
+        for (long weight : weights) {
+          total = Math.addExact(total, Math.abs(weight));
+        }
+        bound = Math.multiplyExact(bound, total);
+      }
+      // the half added when rounding the sums of two passes
+      Math.addExact(bound, 1L << (2 * FRACTION_BITS - 1));
+      return true;
+    } catch (ArithmeticException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Return the double value of a quantized weight with the given number of
+   * fraction bits.
+   *
+   * @param quantized The quantized weight.
+   * @param fractionBits The number of fraction bits of the weight.
+   * @return The double value of the weight.
+   */
+  static double valueOf(long quantized, int fractionBits) {
+    return quantized / (double) (1L << fractionBits);
+  }
+
+  /**
+   * Round a fixed-point sum with the given number of fraction bits to the
+   * nearest integer, halves rounded up, saturated to the range of an int.
+   *
+   * @param sum The fixed-point sum.
+   * @param fractionBits The number of fraction bits of the sum, at least 1.
+   * @return The rounded integer value of the sum.
+   */
+  static int round(long sum, int fractionBits) {
+    long rounded = (sum + (1L << (fractionBits - 1))) >> fractionBits;
+    return (int) Math.min(Math.max(Integer.MIN_VALUE, rounded), Integer.MAX_VALUE);
+  }
+}
@@ -27,4 +27,10 @@ public class GreyscaleBlue extends AbstractTransformation
   protected int changeToValueB(int r, int g, int b) {
     return b;
   }
+
+  // every channel is the blue channel value, so it runs through lookup tables.
+  @Override
+  protected Channel getLookupSource(Channel output) {
+    return Channel.BLUE;
+  }
 }
@@ -27,4 +27,10 @@ public class GreyscaleGreen extends AbstractTransformation
   protected int changeToValueB(int r, int g, int b) {
     return g;
   }
+
+  // every channel is the green channel value, so it runs through lookup tables.
+  @Override
+  protected Channel getLookupSource(Channel output) {
+    return Channel.GREEN;
+  }
 }
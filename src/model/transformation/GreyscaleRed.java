@@ -28,4 +28,10 @@ public class GreyscaleRed extends AbstractTransformation
   protected int changeToValueB(int r, int g, int b) {
     return r;
   }
+
+  // every channel is the red channel value, so it runs through lookup tables.
+  @Override
+  protected Channel getLookupSource(Channel output) {
+    return Channel.RED;
+  }
 }
@@ -0,0 +1,18 @@
+package model.transformation;
+
+/**
+ * The IRowBand interface represents the work done on a band of neighbouring
+ * rows of an image. Implementations are run by ParallelRows and may be called
+ * from several threads at once, each call with a disjoint band of rows.
+ */
+public interface IRowBand {
+
+  /**
+   * Do the work on the rows from the start height index (inclusive) to the
+   * end height index (exclusive).
+   *
+   * @param start The height index of the first row of the band.
+   * @param end The height index after the last row of the band.
+   */
+  void run(int start, int end);
+}
@@ -1,11 +1,24 @@
 package model.transformation;
 
 import model.images.IImageState;
+import model.images.IRowSource;
+import model.images.ImageRows;
 
 /**
  * The ITransformation interface represents a generic image transformation.
  * Implementing classes must define the run() method to apply the transformation
  * to an IImageState object.
+ *
+ * <p>A transformation may also be streamed, reading the rows of its input as
+ * its own rows are read. The transformations that need the whole image at
+ * once collect it first, which is what stream does unless overridden.
+ *
+ * <p>A transformation run on a smaller copy of an image, such as a preview,
+ * should look like the smaller copy of its result on the image, see atScale.
+ *
+ * <p>A region of the transformed image may be computed from a part of the
+ * input image only, the region grown by the halo of the transformation, see
+ * getHalo and RegionRun.
  */
 public interface ITransformation {
 
@@ -17,4 +30,49 @@ public interface ITransformation {
    * @return The IImageState object representing the transformed image.
    */
   IImageState run(IImageState image);
+
+  /**
+   * Gives the rows of the transformed image, read from the rows of the input
+   * image as they are needed. By default the input rows are all collected into
+   * an image first and the transformation runs on it.
+   *
+   * @param rows The rows of the input image, none of them read yet.
+   * @return The rows of the transformed image, closing the input rows when
+   *     closed.
+   * @throws IllegalArgumentException if the rows are null.
+   */
+  default IRowSource stream(IRowSource rows) {
+    return new ImageRows(run(ImageRows.collect(rows)));
+  }
+
+  /**
+   * Return the transformation to run on a copy of an image shrunk by the scale
+   * so that it looks like the copy of this transformation's result shrunk the
+   * same way. A transformation of each pixel on its own gives the same one,
+   * which is what atScale does unless overridden.
+   *
+   * @param scale The size of the copy relative to the image, above 0 and at
+   *     most 1.
+   * @return The transformation to run on the copy.
+   * @throws IllegalArgumentException if the scale is not above 0 and at most 1.
+   */
+  default ITransformation atScale(double scale) {
+    if (!(scale > 0) || scale > 1) {
+      throw new IllegalArgumentException("Invalid scale.");
+    }
+    return this;
+  }
+
+  /**
+   * Return how far from a pixel this transformation reads the input image to
+   * give that pixel, so that a region of the transformed image is given by the
+   * region of the input image grown by the halo on every side, cut to the
+   * image. By default the transformation may read any pixel, or give an image
+   * of another size, which is -1.
+   *
+   * @return The halo of this transformation, or -1 if there is none.
+   */
+  default int getHalo() {
+    return -1;
+  }
 }
@@ -1,5 +1,7 @@
 package model.transformation;
 
+import java.util.Arrays;
+
 import static model.transformation.Channel.BLUE;
 import static model.transformation.Channel.GREEN;
 import static model.transformation.Channel.RED;
@@ -8,10 +10,19 @@ import static model.transformation.Channel.RED;
  * The MatrixGreyscale class represents a color transformation that converts
  * an image to greyscale/sepia using a matrix kernel. It extends the
  * AbstractTransformation class and implements the ITransformation interface.
+ *
+ * <p>In fixed-point mode the weights of the matrix are quantized once to Q16
+ * integers and each channel is added up in a long and rounded with a single
+ * shift. A channel sum then differs from the exact one by at most
+ * getFixedPointError, so when that error is below one, as it is for every
+ * matrix of this program, a channel differs from the double path by at most
+ * one.
  */
 public class MatrixGreyscale extends AbstractTransformation
         implements ITransformation {
   private final double[][] kernel;
+  // the quantized weights of the matrix, null if not in fixed-point mode.
+  private final long[][] fixedKernel;
 
   /**
    * Constructs a MatrixGreyscale object with the specified 3x3 matrix kernel.
@@ -20,19 +31,117 @@ public class MatrixGreyscale extends AbstractTransformation
    * @throws IllegalArgumentException if the kernel is null or not of size 3x3.
    */
   public MatrixGreyscale(double[][] kernel) {
+    this(kernel, false);
+  }
+
+  /**
+   * Constructs a MatrixGreyscale object with the specified 3x3 matrix kernel,
+   * which runs in fixed-point mode if asked to.
+   *
+   * @param kernel The 3x3 matrix kernel used for the greyscale/sepia transformation.
+   * @param fixedPoint true to add up the channels with quantized weights.
+   * @throws IllegalArgumentException if the kernel is null or not of size 3x3,
+   *     or a weight is too large for fixed point.
+   */
+  public MatrixGreyscale(double[][] kernel, boolean fixedPoint) {
     if (kernel == null || kernel.length != 3 || kernel[0].length != 3) {
       throw new IllegalArgumentException("Invalid filter kernel.");
     }
     this.kernel = kernel;
+    this.fixedKernel = fixedPoint ? quantize(kernel) : null;
+  }
+
+  /**
+   * Return a copy of the 3x3 matrix kernel of this transformation, whose rows
+   * give the red, green and blue channels.
+   *
+   * @return The matrix kernel.
+   */
+  public double[][] getKernel() {
+    double[][] copy = new double[3][];
+    for (int i = 0; i < 3; i++) {
+      copy[i] = this.kernel[i].clone();
+    }
+    return copy;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof MatrixGreyscale)) {
+      return false;
+    }
+    MatrixGreyscale that = (MatrixGreyscale) other;
+    return isFixedPoint() == that.isFixedPoint()
+            && Arrays.deepEquals(this.kernel, that.kernel);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.deepHashCode(this.kernel) + Boolean.hashCode(isFixedPoint());
+  }
+
+  /**
+   * Return whether this MatrixGreyscale runs in fixed-point mode.
+   *
+   * @return true if the channels are added up with quantized weights.
+   */
+  public boolean isFixedPoint() {
+    return this.fixedKernel != null;
+  }
+
+  /**
+   * Return the largest difference between a channel sum added up with the
+   * quantized weights and the exact channel sum, before rounding. It is 255
+   * times the sum of the quantization errors of the weights of a row of the
+   * matrix, the largest one of the three rows.
+   *
+   * @return The largest error of a fixed-point channel sum.
+   * @throws IllegalArgumentException if a weight is too large for fixed point.
+   */
+  public double getFixedPointError() {
+    long[][] quantized = quantize(this.kernel);
+    double largest = 0;
+    for (int i = 0; i < 3; i++) {
+      double error = 0;
+      for (int j = 0; j < 3; j++) {
+        error += Math.abs(this.kernel[i][j]
+                - FixedPoint.valueOf(quantized[i][j], FixedPoint.FRACTION_BITS));
+      }
+      largest = Math.max(largest, 255 * error);
+    }
+    return largest;
+  }
+
+  // helper method to quantize the weights of the matrix
+  private static long[][] quantize(double[][] kernel) {
+    long[][] quantized = new long[3][3];
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 3; j++) {
+        quantized[i][j] = FixedPoint.quantize(kernel[i][j]);
+      }
+    }
+    return quantized;
   }
 
   // helper method using color to get the array number to multiply each color
   // channel value by definition of the matrix color transformation.
   // Red is 0, green is 1, and blue is 2, and multiply each color channel value.
-  private int applyMatrix(double[][] kernel, Channel color, int r, int g, int b) {
-    int array = getArrayNum(color);
-    return (int) Math.round(kernel[array][0] * r + kernel[array][1] * g
-            + kernel[array][2] * b);
+  private int applyMatrix(Channel color, int r, int g, int b) {
+    return multiplyRow(getArrayNum(color), r, g, b);
+  }
+
+  // helper method to multiply the channel values by the given row of the matrix
+  private int multiplyRow(int array, int r, int g, int b) {
+    if (this.fixedKernel != null) {
+      long[] weights = this.fixedKernel[array];
+      return FixedPoint.round(weights[0] * r + weights[1] * g + weights[2] * b,
+              FixedPoint.FRACTION_BITS);
+    }
+    double[] weights = this.kernel[array];
+    return (int) Math.round(weights[0] * r + weights[1] * g + weights[2] * b);
   }
 
   // helper method to get the array number to multiply to for the matrix
@@ -48,18 +157,49 @@ public class MatrixGreyscale extends AbstractTransformation
     }
   }
 
+  // transforms the three channels of a pixel at once, the same as the
+  // changeToValue methods.
+  @Override
+  protected int transformPixel(int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    int newR = clamp(multiplyRow(0, r, g, b));
+    int newG = clamp(multiplyRow(1, r, g, b));
+    int newB = clamp(multiplyRow(2, r, g, b));
+    return (newR << 16) | (newG << 8) | newB;
+  }
+
   @Override
   protected int changeToValueR(int r, int g, int b) {
-    return  applyMatrix(this.kernel, RED, r, g, b);
+    return  applyMatrix(RED, r, g, b);
   }
 
   @Override
   protected int changeToValueG(int r, int g, int b) {
-    return applyMatrix(this.kernel, GREEN, r, g, b);
+    return applyMatrix(GREEN, r, g, b);
   }
 
   @Override
   protected int changeToValueB(int r, int g, int b) {
-    return applyMatrix(this.kernel, BLUE, r, g, b);
+    return applyMatrix(BLUE, r, g, b);
+  }
+
+  // a row of the matrix with at most one non-zero weight depends on one
+  // channel only, so matrices like the red-grayscale one run through lookup
+  // tables.
+  @Override
+  protected Channel getLookupSource(Channel output) {
+    double[] weights = this.kernel[getArrayNum(output)];
+    Channel source = RED;
+    int nonZero = 0;
+    Channel[] inputs = {RED, GREEN, BLUE};
+    for (int i = 0; i < 3; i++) {
+      if (weights[i] != 0) {
+        source = inputs[i];
+        nonZero++;
+      }
+    }
+    return nonZero <= 1 ? source : null;
   }
 }
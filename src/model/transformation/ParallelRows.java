@@ -0,0 +1,152 @@
+package model.transformation;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ParallelRows class runs work over the rows of an image on one shared
+ * ForkJoin pool. The rows are split into bands of neighbouring rows and each
+ * band is run by one task, so every task reads and writes its own rows and
+ * the output is the same as running all rows in order on one thread.
+ * The number of threads is shared by all transformations of the program.
+ * When it is changed, the old pool is shut down once the runs already using
+ * it are done, so the count may be set while transformations run.
+ *
+ * <p>When the calling thread tracks a RowProgress, the rows of each band are
+ * counted into it once the band is done, and no band starts once it is
+ * cancelled. The rows are then split into bands even on one thread, so the
+ * progress moves and a cancel is seen while the rows run.
+ */
+public final class ParallelRows {
+
+  // smallest number of pixels worth handing to a separate task
+  private static final int MIN_PIXELS_PER_BAND = 1 << 14;
+
+  private static int threads = Runtime.getRuntime().availableProcessors();
+  private static ForkJoinPool pool = null;
+  // the number of runs using each pool, so no pool is shut down under a run
+  private static final Map<ForkJoinPool, Integer> callers = new IdentityHashMap<>();
+
+  // no instance of this class
+  private ParallelRows() {
+  }
+
+  /**
+   * Set the number of threads used to run the transformations. One thread
+   * runs every transformation on the calling thread.
+   *
+   * @param count The number of threads, at least 1.
+   * @throws IllegalArgumentException if the count is less than 1.
+   */
+  public static synchronized void setThreads(int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Invalid thread count.");
+    }
+    if (count != threads && pool != null) {
+      if (!callers.containsKey(pool)) {
+        pool.shutdown();
+      }
+      pool = null;
+    }
+    threads = count;
+  }
+
+  /**
+   * Return the number of threads used to run the transformations.
+   *
+   * @return The number of threads.
+   */
+  public static synchronized int getThreads() {
+    return threads;
+  }
+
+  // helper method to get the pool for a run, created the first time it is needed
+  private static synchronized ForkJoinPool acquirePool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(threads);
+    }
+    callers.merge(pool, 1, Integer::sum);
+    return pool;
+  }
+
+  // helper method to end a run, shutting its pool down if it was replaced
+  private static synchronized void releasePool(ForkJoinPool used) {
+    callers.computeIfPresent(used, (p, count) -> count == 1 ? null : count - 1);
+    if (used != pool && !callers.containsKey(used)) {
+      used.shutdown();
+    }
+  }
+
+  /**
+   * Run the given band over all rows of an image of the given size. The rows
+   * are split into disjoint bands which may run at the same time on the
+   * shared pool, and this method returns after all of them are done.
+   * Any exception thrown by a band is thrown again by this method.
+   *
+   * @param width The width of the image, used to size the bands.
+   * @param height The height of the image.
+   * @param band The work to run on each band of rows.
+   * @throws IllegalArgumentException if the band is null.
+   * @throws java.util.concurrent.CancellationException if the RowProgress
+   *     tracked by the calling thread is cancelled.
+   */
+  public static void run(int width, int height, IRowBand band) {
+    if (band == null) {
+      throw new IllegalArgumentException("Null row band.");
+    }
+    int rowsPerBand = Math.max(1, MIN_PIXELS_PER_BAND / Math.max(1, width));
+    RowProgress progress = RowProgress.current();
+    if (progress != null) {
+      progress.start(height);
+      IRowBand work = band;
+      band = (start, end) -> {
+        progress.check();
+        work.run(start, end);
+        progress.finish(end - start);
+      };
+    }
+    if (getThreads() == 1 || height <= rowsPerBand) {
+      int step = progress == null ? height : rowsPerBand;
+      for (int start = 0; start < height; start += step) {
+        band.run(start, Math.min(height, start + step));
+      }
+      return;
+    }
+    ForkJoinPool used = acquirePool();
+    try {
+      used.invoke(new BandAction(band, 0, height, rowsPerBand));
+    } finally {
+      releasePool(used);
+    }
+  }
+
+  // task that splits its rows in half until a band is small enough to run
+  private static class BandAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final IRowBand band;
+    private final int start;
+    private final int end;
+    private final int rowsPerBand;
+
+    BandAction(IRowBand band, int start, int end, int rowsPerBand) {
+      this.band = band;
+      this.start = start;
+      this.end = end;
+      this.rowsPerBand = rowsPerBand;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.end - this.start <= this.rowsPerBand) {
+        this.band.run(this.start, this.end);
+        return;
+      }
+      int middle = (this.start + this.end) >>> 1;
+      invokeAll(new BandAction(this.band, this.start, middle, this.rowsPerBand),
+              new BandAction(this.band, middle, this.end, this.rowsPerBand));
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package model.transformation;
+
+import java.util.List;
+
+import model.images.IImageState;
+
+/**
+ * The RegionRun class computes a region of the image given by a chain of
+ * transformations run one after another, without running them on the whole
+ * image. The region is grown by the sum of the halos of the transformations,
+ * see getHalo, and cut to the image, and the chain runs on that part of the
+ * input image only.
+ *
+ * <p>Each transformation of the chain reads the part up to its halo from the
+ * pixels it gives, so the pixels of the region are the same as the pixels of
+ * the chain run on the whole image. The edge mode of a filter still applies
+ * where the part meets the edges of the image, and gives wrong pixels only in
+ * the halo where the part was cut inside of the image. A chain with a
+ * transformation without a halo runs on the whole image.
+ */
+public final class RegionRun {
+
+  private RegionRun() {
+  }
+
+  /**
+   * Return the halo of the chain of transformations, the sum of their halos.
+   *
+   * @param chain The transformations, the first one to run first.
+   * @return The halo of the chain, or -1 if some transformation has no halo.
+   * @throws IllegalArgumentException if the chain or any of its
+   *     transformations is null.
+   */
+  public static int getHalo(List<ITransformation> chain) {
+    if (chain == null) {
+      throw new IllegalArgumentException("Null transformations.");
+    }
+    long halo = 0;
+    for (ITransformation transformation : chain) {
+      if (transformation == null) {
+        throw new IllegalArgumentException("Null transformations.");
+      }
+      int own = transformation.getHalo();
+      if (own < 0) {
+        return -1;
+      }
+      halo += own;
+    }
+    return (int) Math.min(halo, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Return a region of the image the chain of transformations gives when run
+   * on the input image, computed from the part of the input image around it.
+   *
+   * @param chain The transformations, the first one to run first.
+   * @param image The input image.
+   * @param x The width index of the first position of the region.
+   * @param y The height index of the first position of the region.
+   * @param w The width of the region.
+   * @param h The height of the region.
+   * @return The image of the region, w by h.
+   * @throws IllegalArgumentException if any of the arguments is null or the
+   *     region is not inside of the image.
+   */
+  public static IImageState run(List<ITransformation> chain, IImageState image,
+                                int x, int y, int w, int h) {
+    int halo = getHalo(chain);
+    if (image == null) {
+      throw new IllegalArgumentException("Cannot load null image.");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (x < 0 || y < 0 || w < 1 || h < 1 || x > width - w || y > height - h) {
+      throw new IllegalArgumentException("Invalid position.");
+    }
+
+    IImageState part;
+    int partX;
+    int partY;
+    if (halo < 0) {
+      part = image;
+      partX = 0;
+      partY = 0;
+    } else {
+      partX = Math.max(0, x - halo);
+      partY = Math.max(0, y - halo);
+      int partWidth = (int) Math.min(width, (long) x + w + halo) - partX;
+      int partHeight = (int) Math.min(height, (long) y + h + halo) - partY;
+      part = new Crop(image, partX, partY, partWidth, partHeight);
+    }
+    for (ITransformation transformation : chain) {
+      part = transformation.run(part);
+    }
+    return new Crop(part, x - partX, y - partY, w, h);
+  }
+
+  // an image showing a region of another image, without copying its pixels.
+  private static class Crop implements IImageState {
+    private final IImageState image;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+    Crop(IImageState image, int x, int y, int width, int height) {
+      this.image = image;
+      this.x = x;
+      this.y = y;
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override
+    public int getHeight() {
+      return this.height;
+    }
+
+    @Override
+    public int getWidth() {
+      return this.width;
+    }
+
+    // helper method to check a position is inside of the region
+    private void checkBounds(int w, int h) {
+      if (w < 0 || w >= this.width || h < 0 || h >= this.height) {
+        throw new IllegalArgumentException("Invalid position.");
+      }
+    }
+
+    @Override
+    public int getRedChannel(int w, int h) {
+      checkBounds(w, h);
+      return this.image.getRedChannel(this.x + w, this.y + h);
+    }
+
+    @Override
+    public int getGreenChannel(int w, int h) {
+      checkBounds(w, h);
+      return this.image.getGreenChannel(this.x + w, this.y + h);
+    }
+
+    @Override
+    public int getBlueChannel(int w, int h) {
+      checkBounds(w, h);
+      return this.image.getBlueChannel(this.x + w, this.y + h);
+    }
+
+    @Override
+    public void getRow(int h, int[] dst) {
+      getRegion(0, h, this.width, 1, dst);
+    }
+
+    @Override
+    public void getRegion(int x, int y, int w, int h, int[] dst) {
+      if (x < 0 || y < 0 || w < 1 || h < 1 || x > this.width - w || y > this.height - h) {
+        throw new IllegalArgumentException("Invalid position.");
+      }
+      this.image.getRegion(this.x + x, this.y + y, w, h, dst);
+    }
+
+    @Override
+    public void getRowChannels(int h, int[] r, int[] g, int[] b) {
+      if (r == null || g == null || b == null) {
+        throw new IllegalArgumentException("Null channel values.");
+      }
+      if (r.length < this.width || g.length < this.width || b.length < this.width) {
+        throw new IllegalArgumentException("Not enough channel values.");
+      }
+      int[] row = new int[this.width];
+      getRow(h, row);
+      for (int i = 0; i < this.width; i++) {
+        r[i] = (row[i] >> 16) & 0xFF;
+        g[i] = (row[i] >> 8) & 0xFF;
+        b[i] = row[i] & 0xFF;
+      }
+    }
+  }
+}
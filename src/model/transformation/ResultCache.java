@@ -0,0 +1,189 @@
+package model.transformation;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.images.IImageState;
+
+/**
+ * The ResultCache class keeps the images given by running transformations, so
+ * that running an equal transformation on the same source image again gives
+ * back the kept image instead of computing it again. A result is looked up by
+ * the identity of the source image together with the transformation, whose
+ * equals method compares the operation and its parameters, such as the
+ * brighten value, the matrix or the kernel.
+ *
+ * <p>The cache is bounded by the bytes of the images it keeps, four bytes a
+ * pixel, and evicts the least recently used result when it is full. The source
+ * images are only held weakly, so a result is dropped once nothing else holds
+ * its source. Results are shared between the calls that hit them, so neither
+ * the source images nor the results may be changed once they are cached.
+ */
+public class ResultCache {
+  /**
+   * The number of bytes a ResultCache keeps when not given another capacity.
+   */
+  public static final long DEFAULT_CAPACITY = 256L << 20;
+
+  private final long capacity;
+  private final LinkedHashMap<Key, IImageState> results;
+  private final ReferenceQueue<IImageState> cleared;
+  private long bytes;
+  private long hits;
+  private long misses;
+
+  /**
+   * Constructs a ResultCache object keeping at most the given bytes of images.
+   *
+   * @param capacity The largest number of bytes of the kept images.
+   * @throws IllegalArgumentException if the capacity is negative.
+   */
+  public ResultCache(long capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Cache capacity invalid.");
+    }
+    this.capacity = capacity;
+    this.results = new LinkedHashMap<>(16, 0.75f, true);
+    this.cleared = new ReferenceQueue<>();
+  }
+
+  /**
+   * Gives the result of running the transformation on the image, kept from an
+   * earlier run of an equal transformation on the same image if there is one,
+   * otherwise computed and kept if it fits in the cache.
+   *
+   * @param transformation The transformation to run.
+   * @param image The image to run the transformation on.
+   * @return The transformed image.
+   * @throws IllegalArgumentException if the transformation or the image is null.
+   */
+  public IImageState run(ITransformation transformation, IImageState image) {
+    if (transformation == null || image == null) {
+      throw new IllegalArgumentException("Null transformation/image.");
+    }
+    Key key = new Key(image, transformation, this.cleared);
+    synchronized (this) {
+      purge();
+      IImageState kept = this.results.get(key);
+      if (kept != null) {
+        this.hits++;
+        return kept;
+      }
+      this.misses++;
+    }
+
+    // computed outside the lock, so other transformations run meanwhile
+    IImageState result = transformation.run(image);
+    synchronized (this) {
+      long size = sizeOf(result);
+      if (size <= this.capacity && !this.results.containsKey(key)) {
+        this.results.put(key, result);
+        this.bytes += size;
+        evict();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of runs given a kept result.
+   *
+   * @return The number of cache hits.
+   */
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  /**
+   * Return the number of runs that computed their result.
+   *
+   * @return The number of cache misses.
+   */
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * Return the number of bytes of the images kept now.
+   *
+   * @return The bytes of the kept images.
+   */
+  public synchronized long getBytes() {
+    purge();
+    return this.bytes;
+  }
+
+  /**
+   * Removes every kept result, keeping the counters.
+   */
+  public synchronized void clear() {
+    this.results.clear();
+    this.bytes = 0;
+    while (this.cleared.poll() != null) {
+      // the results of the cleared sources are already gone
+    }
+  }
+
+  // helper method to remove the least recently used results until the kept
+  // images fit in the capacity.
+  private void evict() {
+    Iterator<Map.Entry<Key, IImageState>> eldest = this.results.entrySet().iterator();
+    while (this.bytes > this.capacity && eldest.hasNext()) {
+      this.bytes -= sizeOf(eldest.next().getValue());
+      eldest.remove();
+    }
+  }
+
+  // helper method to remove the results whose source images are gone
+  private void purge() {
+    Object key;
+    while ((key = this.cleared.poll()) != null) {
+      IImageState removed = this.results.remove(key);
+      if (removed != null) {
+        this.bytes -= sizeOf(removed);
+      }
+    }
+  }
+
+  // helper method to give the bytes of a packed image
+  private static long sizeOf(IImageState image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  // the key of a result, equal to another key of the same source image and an
+  // equal transformation. Once the source image is gone the key only equals
+  // itself, so it can still be removed.
+  private static class Key extends WeakReference<IImageState> {
+    private final ITransformation transformation;
+    private final int hash;
+
+    Key(IImageState image, ITransformation transformation,
+        ReferenceQueue<IImageState> queue) {
+      super(image, queue);
+      this.transformation = transformation;
+      this.hash = 31 * System.identityHashCode(image) + transformation.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      IImageState image = get();
+      return image != null && image == that.get()
+              && this.transformation.equals(that.transformation);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+}
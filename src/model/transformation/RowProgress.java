@@ -0,0 +1,130 @@
+package model.transformation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * The RowProgress class counts the rows done by the transformations run
+ * through ParallelRows while it is tracked, and lets another thread cancel
+ * them. Each band of rows checks whether the progress is cancelled before it
+ * runs, so a cancelled transformation stops within one band of rows on each
+ * thread, throwing a CancellationException and adding no image.
+ *
+ * <p>The progress is tracked by the thread running the work, see track, and
+ * every transformation run by that thread in the meantime counts its rows,
+ * whichever threads of ParallelRows run them.
+ */
+public final class RowProgress {
+  // the progress tracked by each thread running work, if any
+  private static final ThreadLocal<RowProgress> CURRENT = new ThreadLocal<>();
+
+  private final IntConsumer listener;
+  private final AtomicLong rows;
+  private final AtomicLong rowsDone;
+  private final AtomicInteger percent;
+  private volatile boolean cancelled;
+
+  /**
+   * Constructs a RowProgress object telling the listener the percent of the
+   * rows done each time it grows. The listener may be called from any thread
+   * running the rows.
+   *
+   * @param listener The listener of the percent of the rows done.
+   * @throws IllegalArgumentException if the listener is null.
+   */
+  public RowProgress(IntConsumer listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Null listener.");
+    }
+    this.listener = listener;
+    this.rows = new AtomicLong();
+    this.rowsDone = new AtomicLong();
+    this.percent = new AtomicInteger();
+  }
+
+  /**
+   * Runs the work on this thread, counting the rows of the transformations it
+   * runs into this progress.
+   *
+   * @param work The work to run.
+   * @throws IllegalArgumentException if the work is null.
+   * @throws CancellationException if the progress is cancelled before or
+   *     while the work runs.
+   */
+  public void track(Runnable work) {
+    if (work == null) {
+      throw new IllegalArgumentException("Null work.");
+    }
+    RowProgress previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      check();
+      work.run();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Cancels the work tracked by this progress. The bands of rows not started
+   * yet are not run.
+   */
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  /**
+   * Return whether this progress has been cancelled.
+   *
+   * @return True if cancelled.
+   */
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  /**
+   * Return the percent of the rows started so far that are done, 0 if no row
+   * has been started.
+   *
+   * @return The percent of the rows done, from 0 to 100.
+   */
+  public int getPercent() {
+    return this.percent.get();
+  }
+
+  // Return the progress tracked by the calling thread, or null. Used by
+  // ParallelRows to count the rows of each run.
+  static RowProgress current() {
+    return CURRENT.get();
+  }
+
+  // Adds the rows of a run about to start. Used by ParallelRows.
+  void start(int count) {
+    this.rows.addAndGet(count);
+  }
+
+  // Adds the rows of a band that is done, telling the listener if the percent
+  // grew. Used by ParallelRows.
+  void finish(int count) {
+    long done = this.rowsDone.addAndGet(count);
+    int now = (int) (100 * done / Math.max(1, this.rows.get()));
+    int before = this.percent.getAndAccumulate(now, Math::max);
+    if (now > before) {
+      this.listener.accept(now);
+    }
+  }
+
+  // Throws a CancellationException if cancelled. Used by ParallelRows before
+  // each band of rows.
+  void check() {
+    if (this.cancelled) {
+      throw new CancellationException("Transformation cancelled.");
+    }
+  }
+}
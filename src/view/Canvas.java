@@ -3,16 +3,28 @@ package view;
 import java.awt.image.BufferedImage;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 
 import javax.swing.JPanel;
 
 /**
  * The Canvas class is a custom JPanel used for displaying images. It extends the
  * JPanel class to provide a canvas on which the BufferedImage can be drawn.
+ * A smaller preview of an image is stretched to the size of the image, so the
+ * canvas keeps its size when the image replaces the preview.
+ *
+ * <p>An image may also be shown one tile at a time from an ITileSource, over
+ * the preview. Only the tiles in the area being painted are asked for, and a
+ * tile is painted once computed, so the tiles in view are computed first and
+ * the others when they are scrolled into view.
  */
 public class Canvas extends JPanel implements ICanvas {
 
   private BufferedImage image;
+  // the size the image is drawn at
+  private int width;
+  private int height;
+  private ITileSource tiles;
 
   /**
    * Constructor for the Canvas class. Sets the preferred size of the canvas to
@@ -33,9 +45,50 @@ public class Canvas extends JPanel implements ICanvas {
     if (image == null) {
       throw new IllegalArgumentException("No image.");
     }
+    setPreview(image, image.getWidth(), image.getHeight());
+  }
+
+  /**
+   * Sets a smaller preview of an image to be displayed on the canvas, stretched
+   * to the size of the image it stands for. This method updates the canvas size
+   * to that size and triggers a repaint.
+   *
+   * @param image The BufferedImage of the preview.
+   * @param width The width of the image the preview stands for.
+   * @param height The height of the image the preview stands for.
+   * @throws IllegalArgumentException if the image is null or the size is not
+   *     positive.
+   */
+  public void setPreview(BufferedImage image, int width, int height) {
+    if (image == null) {
+      throw new IllegalArgumentException("No image.");
+    }
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Image size invalid.");
+    }
     this.image = image;
-    this.setPreferredSize(new Dimension(this.image.getWidth(),
-            this.image.getHeight()));
+    this.width = width;
+    this.height = height;
+    this.tiles = null;
+    this.setPreferredSize(new Dimension(width, height));
+    revalidate();
+    repaint();
+  }
+
+  /**
+   * Sets the tiles of an image to be displayed on the canvas over the preview,
+   * each one once computed. This method updates the canvas size to the size of
+   * the image and triggers a repaint.
+   *
+   * @param tiles The tiles of the image.
+   * @throws IllegalArgumentException if the tiles are null.
+   */
+  public void setTiles(ITileSource tiles) {
+    if (tiles == null) {
+      throw new IllegalArgumentException("No image.");
+    }
+    this.tiles = tiles;
+    this.setPreferredSize(new Dimension(tiles.getWidth(), tiles.getHeight()));
     revalidate();
     repaint();
   }
@@ -49,6 +102,33 @@ public class Canvas extends JPanel implements ICanvas {
   @Override
   public void paintComponent(Graphics g) {
     super.paintComponent(g);
-    g.drawImage(this.image, 0, 0, null);
+    if (this.image != null) {
+      g.drawImage(this.image, 0, 0, this.width, this.height, null);
+    }
+    if (this.tiles != null) {
+      paintTiles(g, this.tiles);
+    }
+  }
+
+  // helper method to paint the computed tiles in the area being painted,
+  // asking for the others to be computed and repainted.
+  private void paintTiles(Graphics g, ITileSource source) {
+    Rectangle area = g.getClipBounds();
+    if (area == null) {
+      area = getVisibleRect();
+    }
+    int size = source.getTileSize();
+    int lastColumn = Math.min(area.x + area.width - 1, source.getWidth() - 1) / size;
+    int lastRow = Math.min(area.y + area.height - 1, source.getHeight() - 1) / size;
+    for (int row = Math.max(0, area.y) / size; row <= lastRow; row++) {
+      for (int column = Math.max(0, area.x) / size; column <= lastColumn; column++) {
+        int x = column * size;
+        int y = row * size;
+        BufferedImage tile = source.getTile(column, row, () -> repaint(x, y, size, size));
+        if (tile != null) {
+          g.drawImage(tile, x, y, null);
+        }
+      }
+    }
   }
 }
@@ -1,8 +1,11 @@
 package view;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
 import java.awt.BorderLayout;
 import java.awt.Insets;
@@ -21,7 +24,9 @@ import javax.swing.JButton;
 import javax.swing.JMenuBar;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
+import javax.swing.JProgressBar;
 import javax.swing.BoxLayout;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -31,14 +36,35 @@ import javax.swing.filechooser.FileSystemView;
  * The GraphicView class is a graphical view that implements the IView and ActionListener
  * interface to graphically display images and show messages accordingly.
  * It extends the JFrame class to provide a graphical user interface.
+ *
+ * <p>The listeners may handle the events on another thread and then draw the
+ * image, show a message or show the progress from that thread. Those calls
+ * are handed to the Event Dispatch Thread, so the components of this view are
+ * only changed there.
  */
 public class GraphicView extends JFrame implements IView, ActionListener {
 
+  /**
+   * The names of the edge modes other than zero the blur and sharpen can read
+   * the positions outside of the image by, such as blur-clamp.
+   */
+  private static final String[] EDGES = {"clamp", "mirror", "wrap"};
+
   /**
    * The canvas object used to display the images.
    */
   private Canvas canvas;
 
+  /**
+   * The progress bar showing the progress of the running transformation.
+   */
+  private JProgressBar progress;
+
+  /**
+   * The size of the visible area of the canvas, null before it is laid out.
+   */
+  private volatile Dimension viewport;
+
   /**
    * A list of ViewListener objects that listen to the actions of this view.
    */
@@ -105,6 +131,11 @@ public class GraphicView extends JFrame implements IView, ActionListener {
 
     JLabel note = new JLabel("See more transformations in menu");
 
+    this.progress = new JProgressBar(0, 100);
+    this.progress.setStringPainted(true);
+    this.progress.setVisible(false);
+    JButton cancel = new JButton("Cancel");
+
     features.add(load);
     features.add(save);
     features.add(exit);
@@ -114,6 +145,8 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     features.add(brighten);
     features.add(sepia);
     features.add(note);
+    features.add(this.progress);
+    features.add(cancel);
 
     save.setActionCommand("save");
     load.setActionCommand("load");
@@ -121,6 +154,7 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     sharpen.setActionCommand("sharpen");
     brighten.setActionCommand("brighten");
     sepia.setActionCommand("sepia-grayscale");
+    cancel.setActionCommand("cancel");
 
     save.addActionListener(this);
     load.addActionListener(this);
@@ -128,6 +162,7 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     sharpen.addActionListener(this);
     brighten.addActionListener(this);
     sepia.addActionListener(this);
+    cancel.addActionListener(this);
 
     exit.addActionListener((ActionEvent e) -> System.exit(0));
   }
@@ -137,6 +172,12 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     this.canvas = new Canvas();
     JScrollPane display = new JScrollPane(this.canvas);
     display.setBorder(new EmptyBorder(new Insets(10, 10, 10, 10)));
+    display.getViewport().addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        viewport = display.getViewport().getExtentSize();
+      }
+    });
     this.add(display, BorderLayout.CENTER);
   }
 
@@ -175,6 +216,20 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     sharpen.addActionListener(this);
     brighterDarker.addActionListener(this);
 
+    // the blur and sharpen reading the positions outside of the image by each
+    // edge mode other than zero
+    JMenu edges = new JMenu("Blur/Sharpen Edges");
+    filter.add(edges);
+    for (String kernel : new String[]{"blur", "sharpen"}) {
+      for (String edge : EDGES) {
+        JMenuItem item = new JMenuItem(Character.toUpperCase(kernel.charAt(0))
+                + kernel.substring(1) + " (" + edge + " edges)");
+        edges.add(item);
+        item.setActionCommand(kernel + "-" + edge);
+        item.addActionListener(this);
+      }
+    }
+
     JMenuItem sepia = new JMenuItem("Sepia-tone");
     JMenuItem lumaM = new JMenuItem("Luma-Matrix Grayscale");
     JMenuItem redM = new JMenuItem("Red-Matrix Grayscale");
@@ -234,6 +289,10 @@ public class GraphicView extends JFrame implements IView, ActionListener {
       "intensity-component", "luma-component" };
     this.validTransforms = new HashSet<>();
     this.validTransforms.addAll(Arrays.asList(validT));
+    for (String edge : EDGES) {
+      this.validTransforms.add("blur-" + edge);
+      this.validTransforms.add("sharpen-" + edge);
+    }
   }
 
   /**
@@ -262,8 +321,8 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     if (msg == null) {
       throw new IllegalArgumentException("Null message.");
     }
-    JOptionPane.showMessageDialog(this, msg, "Error",
-            JOptionPane.ERROR_MESSAGE);
+    onDispatchThread(() -> JOptionPane.showMessageDialog(this, msg, "Error",
+            JOptionPane.ERROR_MESSAGE));
   }
 
   /**
@@ -277,7 +336,74 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     if (image == null) {
       throw new IllegalArgumentException("Null Image.");
     }
-    this.canvas.setImage(image);
+    onDispatchThread(() -> this.canvas.setImage(image));
+  }
+
+  /**
+   * Sets a smaller preview of an image to be displayed on the canvas of this
+   * view, stretched to the size of the image it stands for.
+   *
+   * @param image The BufferedImage of the preview.
+   * @param width The width of the image the preview stands for.
+   * @param height The height of the image the preview stands for.
+   * @throws IllegalArgumentException if Null image.
+   */
+  @Override
+  public void drawPreview(BufferedImage image, int width, int height) {
+    if (image == null) {
+      throw new IllegalArgumentException("Null Image.");
+    }
+    onDispatchThread(() -> this.canvas.setPreview(image, width, height));
+  }
+
+  /**
+   * Sets the tiles of an image to be displayed on the canvas of this view over
+   * the preview, the tiles in view being asked for first.
+   *
+   * @param tiles The tiles of the image.
+   * @throws IllegalArgumentException if Null tiles.
+   */
+  @Override
+  public void drawTiles(ITileSource tiles) {
+    if (tiles == null) {
+      throw new IllegalArgumentException("Null Image.");
+    }
+    onDispatchThread(() -> this.canvas.setTiles(tiles));
+  }
+
+  /**
+   * Gives the size of the visible area of the canvas, as of its last resize,
+   * so it may be called on any thread.
+   *
+   * @return The size of the visible area, or null before it is laid out.
+   */
+  @Override
+  public Dimension getViewportSize() {
+    return this.viewport;
+  }
+
+  /**
+   * Shows the progress of the running transformation in the progress bar of
+   * this view, hiding the bar when none is running.
+   *
+   * @param percent The percent of the rows done, or -1 when none is running.
+   */
+  @Override
+  public void showProgress(int percent) {
+    onDispatchThread(() -> {
+      this.progress.setVisible(percent >= 0);
+      this.progress.setValue(Math.max(0, percent));
+    });
+  }
+
+  // helper method to run the change of the components on the Event Dispatch
+  // Thread, right away if called on it.
+  private static void onDispatchThread(Runnable change) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      change.run();
+    } else {
+      SwingUtilities.invokeLater(change);
+    }
   }
 
   /**
@@ -298,6 +424,10 @@ public class GraphicView extends JFrame implements IView, ActionListener {
       emitSaveEvent();
     } else if (commandName.equals("brighten")) {
       emitBrightenEvent();
+    } else if (commandName.equals("cancel")) {
+      for ( ViewListener listener : this.listeners ) {
+        listener.handleCancelEvent();
+      }
 
     // else if the filter is in valid filter set
     } else if (this.validTransforms.contains(commandName)) {
@@ -307,14 +437,14 @@ public class GraphicView extends JFrame implements IView, ActionListener {
     }
   }
 
-  // emit the load event, set jpg, png, bmp, ppm as the preferred
+  // emit the load event, set jpg, png, bmp, ppm, pnm, pgm as the preferred
   // image file types for users to select from.
   private void emitLoadEvent() {
     JFileChooser loader =
             new JFileChooser(FileSystemView.getFileSystemView().getHomeDirectory());
 
     FileFilter images = new FileNameExtensionFilter("Image files",
-            "png", "jpg", "bmp", "ppm");
+            "png", "jpg", "bmp", "ppm", "pnm", "pgm");
     loader.setFileFilter(images);
 
     int returnValue = loader.showOpenDialog(null);
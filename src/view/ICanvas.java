@@ -23,4 +23,22 @@ public interface ICanvas {
    * @param image The BufferedImage to be displayed on the canvas.
    */
   void setImage(BufferedImage image);
+
+  /**
+   * Sets a smaller preview of an image to be displayed on the canvas, stretched
+   * to the size of the image it stands for, and triggers a repaint.
+   *
+   * @param image The BufferedImage of the preview.
+   * @param width The width of the image the preview stands for.
+   * @param height The height of the image the preview stands for.
+   */
+  void setPreview(BufferedImage image, int width, int height);
+
+  /**
+   * Sets the tiles of an image to be displayed on the canvas over the preview,
+   * each one once computed, and triggers a repaint.
+   *
+   * @param tiles The tiles of the image.
+   */
+  void setTiles(ITileSource tiles);
 }
@@ -0,0 +1,48 @@
+package view;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The ITileSource interface represents an image shown one square tile at a
+ * time, such as an image too large to be built at once. A tile is computed
+ * when it is first asked for, so only the tiles a canvas shows are computed,
+ * the tiles in view first.
+ */
+public interface ITileSource {
+
+  /**
+   * Return the width of the image.
+   *
+   * @return The width of the image.
+   */
+  int getWidth();
+
+  /**
+   * Return the height of the image.
+   *
+   * @return The height of the image.
+   */
+  int getHeight();
+
+  /**
+   * Return the width and the height of a tile, the tiles of the last column
+   * and the last row being cut to the image.
+   *
+   * @return The size of a tile.
+   */
+  int getTileSize();
+
+  /**
+   * Return the tile at the column and the row of tiles if it is computed, or
+   * null after asking for it to be computed. The ready action is run, on any
+   * thread, once the tile asked for is computed.
+   *
+   * @param column The column of the tile, from 0.
+   * @param row The row of the tile, from 0.
+   * @param ready The action run once the tile is computed.
+   * @return The tile, or null if it is not computed yet.
+   * @throws IllegalArgumentException if the tile is not inside of the image or
+   *     the action is null.
+   */
+  BufferedImage getTile(int column, int row, Runnable ready);
+}
@@ -1,5 +1,6 @@
 package view;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 
 /**
@@ -37,4 +38,39 @@ public interface IView {
    * @param image The BufferedImage to be shown on this view.
    */
   void draw(BufferedImage image);
+
+  /**
+   * To show the progress of the running work of the view object.
+   *
+   * @param percent The percent of the work done, from 0 to 100, or -1 when
+   *                no work is running.
+   */
+  void showProgress(int percent);
+
+  /**
+   * To show a smaller preview of an image on the view object, stretched to
+   * the size of the image it stands for until the image itself is drawn.
+   *
+   * @param image The BufferedImage of the preview.
+   * @param width The width of the image the preview stands for.
+   * @param height The height of the image the preview stands for.
+   */
+  void drawPreview(BufferedImage image, int width, int height);
+
+  /**
+   * To show an image one tile at a time over the preview shown, each tile
+   * once computed, until the image itself is drawn.
+   *
+   * @param tiles The tiles of the image.
+   */
+  void drawTiles(ITileSource tiles);
+
+  /**
+   * To give the size of the area of the view object showing the image, which
+   * a preview needs no more pixels than.
+   *
+   * @return The size of the area showing the image, or null if the view has
+   *     no such area or it is not laid out yet.
+   */
+  Dimension getViewportSize();
 }
@@ -1,6 +1,7 @@
 package view;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
@@ -97,4 +98,47 @@ public class View implements IView {
       }
     }
   }
+
+  /**
+   * A text view renders no progress, the work is done before it returns.
+   *
+   * @param percent The percent of the work done, or -1 when none is running.
+   */
+  @Override
+  public void showProgress(int percent) {
+    // nothing to render
+  }
+
+  /**
+   * Renders the given preview to the output Appendable, as draw does.
+   *
+   * @param image The preview to be rendered to this view.
+   * @param width The width of the image the preview stands for.
+   * @param height The height of the image the preview stands for.
+   * @throws IllegalArgumentException if Null image.
+   */
+  @Override
+  public void drawPreview(BufferedImage image, int width, int height) {
+    draw(image);
+  }
+
+  /**
+   * A text view shows no tiles, the image itself is rendered once drawn.
+   *
+   * @param tiles The tiles of the image.
+   */
+  @Override
+  public void drawTiles(ITileSource tiles) {
+    // nothing to render
+  }
+
+  /**
+   * A text view has no area showing the image, so no preview is needed.
+   *
+   * @return null.
+   */
+  @Override
+  public Dimension getViewportSize() {
+    return null;
+  }
 }
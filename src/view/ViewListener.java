@@ -38,4 +38,10 @@ public interface ViewListener {
    */
   void handleSaveEvent(String filepath);
 
+  /**
+   * Handles the event when the running and the waiting events are requested
+   * to be cancelled.
+   */
+  void handleCancelEvent();
+
 }
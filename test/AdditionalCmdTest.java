@@ -18,6 +18,7 @@ import controller.loadersaver.ConventionalLoader;
 import model.IImageDatabase;
 import model.ImageDatabase;
 import model.images.IImageState;
+import model.transformation.EdgeMode;
 
 import static org.junit.Assert.assertEquals;
 
@@ -611,4 +612,23 @@ public class AdditionalCmdTest {
     assertEquals(12, blueImage.getGreenChannel(2, 2));
     assertEquals(12, blueImage.getBlueChannel(2, 2));
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBlurCmdNullEdgeMode() {
+    new CmdGaussianBlur(null);
+  }
+
+  @Test
+  public void testClampBlurCmd() {
+    Scanner scan = new Scanner(new StringReader("three three-blur"));
+    ICmd blur = new CmdGaussianBlur(EdgeMode.CLAMP);
+    blur.execute(scan, m);
+
+    // the corner reads its own pixel instead of zeros outside of the image, so it
+    // adds up 9/16 of the black corner, 3/16 of white, 3/16 of green and 1/16 of blue
+    IImageState blurred = m.getImage("three-blur");
+    assertEquals(48, blurred.getRedChannel(0, 0));
+    assertEquals(96, blurred.getGreenChannel(0, 0));
+    assertEquals(64, blurred.getBlueChannel(0, 0));
+  }
 }
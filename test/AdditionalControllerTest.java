@@ -1,18 +1,35 @@
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.EnumSet;
+import java.util.Scanner;
 
 import controller.ControllerImpl;
+import controller.ControllerOption;
 import controller.IController;
+import controller.commands.CmdGaussianBlur;
+import controller.commands.CmdSharpen;
 import controller.loadersaver.PPMLoader;
+import model.ConcurrentImageDatabase;
 import model.IImageDatabase;
 import model.ImageDatabase;
+import model.images.FrozenImage;
 import model.images.IImageState;
+import model.transformation.BrighterDarker;
+import model.transformation.EdgeMode;
 import view.IView;
 import view.View;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A JUnit test class for the additional Controller class tests.
@@ -21,6 +38,16 @@ import static org.junit.Assert.assertEquals;
  * loading the saved image and tests all channel values at each pixel of the image.
  */
 public class AdditionalControllerTest {
+  // a script whose reload of b fails, so b stays the image brightened once
+  private static final String FAILED_RELOAD = "load testImage/three.ppm a\n"
+          + "brighten 10 a b\nbrighten 10 b c\nload testImage/missing.ppm b\n"
+          + "save OUT/out.ppm b";
+  private static final String PLAIN_FAILED_RELOAD = "Command executed.\n"
+          + "Command executed.\nCommand executed.\nCannot load the image.\n"
+          + "Command executed.\n";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   private IImageDatabase m;
   private IView view;
@@ -396,6 +423,48 @@ public class AdditionalControllerTest {
     assertEquals(83, blurImage.getBlueChannel(2, 2));
   }
 
+  @Test
+  public void testBlurSharpenEdgeMode() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("blur-clamp three clamped\nsharpen-wrap three wrapped\n"
+                    + "blur three zero\nblur-zero three zero2"));
+    c.process();
+    assertEquals("Command executed.\n".repeat(4), log.toString());
+
+    IImageDatabase expected = new ImageDatabase();
+    expected.addImage("three", m.getImage("three"));
+    new CmdGaussianBlur(EdgeMode.CLAMP).parse(new Scanner("three clamped")).run(expected);
+    new CmdSharpen(EdgeMode.WRAP).parse(new Scanner("three wrapped")).run(expected);
+    assertSameImage(expected.getImage("clamped"), m.getImage("clamped"));
+    assertSameImage(expected.getImage("wrapped"), m.getImage("wrapped"));
+    assertSameImage(m.getImage("zero"), m.getImage("zero2"));
+    // the corner reads past the edge, so clamping changes it
+    assertNotEquals(m.getImage("zero").getRedChannel(0, 0),
+            m.getImage("clamped").getRedChannel(0, 0));
+  }
+
+  @Test
+  public void testBlurRunsWithoutReadingAhead() {
+    // the blur is run before the input after its line is read
+    String[] logWhenRead = new String[1];
+    Readable in = new Readable() {
+      private boolean typed;
+
+      @Override
+      public int read(CharBuffer buffer) {
+        if (!typed) {
+          typed = true;
+          buffer.put("blur-clamp three x\n");
+          return 19;
+        }
+        logWhenRead[0] = log.toString();
+        return -1;
+      }
+    };
+    new ControllerImpl(m, view, in).process();
+    assertEquals("Command executed.\n", logWhenRead[0]);
+  }
+
   @Test
   public void testValidBlurTwice() {
     IController c = new ControllerImpl(m, view,
@@ -823,4 +892,341 @@ public class AdditionalControllerTest {
     assertEquals(27, lumaImage.getGreenChannel(2, 2));
     assertEquals(27, lumaImage.getBlueChannel(2, 2));
   }
+
+  @Test
+  public void testFusedScriptSameAsUnfused() {
+    String script = "brighten 30 three a\nsepia-grayscale a b\nbrighten -50 b c\n"
+            + "red-grayscale c c\nexit";
+    IImageDatabase plain = new ImageDatabase();
+    plain.addImage("three", m.getImage("three"));
+    Appendable plainLog = new StringBuilder();
+    new ControllerImpl(plain, new View(plainLog), new StringReader(script)).process();
+
+    IController c = new ControllerImpl(m, view, new StringReader(script),
+            EnumSet.of(ControllerOption.FUSE));
+    c.process();
+    assertEquals(plainLog.toString(), log.toString());
+    assertEquals("Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Command executed.\nQuitting.", log.toString());
+
+    assertSameImage(plain.getImage("c"), m.getImage("c"));
+  }
+
+  @Test
+  public void testFusedScriptFailureMessages() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("brighten 30 none a\nsepia-grayscale a b\nfoo\n"
+                    + "brighten x b c"),
+            EnumSet.of(ControllerOption.FUSE));
+    c.process();
+    assertEquals("Cannot brighten/darken the image.\n"
+            + "Cannot use kernel to grayscale the image.\n"
+            + "Invalid command.\n"
+            + "Brighten/Darken increment should be an integer.\n"
+            + "Invalid command.\nInvalid command.\nInvalid command.\n", log.toString());
+  }
+
+  @Test
+  public void testFusedFailedReloadKeepsImage() throws IOException {
+    // b is added anew later, so the chain is not fused and b is kept
+    assertEquals(PLAIN_FAILED_RELOAD,
+            runWithOption(FAILED_RELOAD, ControllerOption.FUSE, "out.ppm"));
+  }
+
+  @Test
+  public void testParallelFailedReloadKeepsImage() throws IOException {
+    assertEquals(PLAIN_FAILED_RELOAD,
+            runWithOption(FAILED_RELOAD, ControllerOption.PARALLEL, "out.ppm"));
+  }
+
+  @Test
+  public void testSimplifiedScriptSameAsPlain() {
+    String script = "brighten -100 three a\nbrighten 50 a b\nbrighten -30 b c\n"
+            + "brighten 20 c d\nbrighten 40 d e\nsepia-grayscale e f\n"
+            + "red-grayscale f g\n";
+    IImageDatabase plain = new ImageDatabase();
+    plain.addImage("three", m.getImage("three"));
+    new ControllerImpl(plain, new View(new StringBuilder()), new StringReader(script)).process();
+
+    IController c = new ControllerImpl(m, view, new StringReader(script),
+            EnumSet.of(ControllerOption.SIMPLIFY, ControllerOption.FUSE));
+    c.process();
+    assertEquals("Folded commands 2 to 5 into one brighten by 80.\n"
+            + "Folded commands 6 to 7 into one color matrix.\n"
+            + "Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Command executed.\n", log.toString());
+    assertSameImage(plain.getImage("g"), m.getImage("g"));
+  }
+
+  @Test
+  public void testSimplifiedScriptFailedAssumption() {
+    // b already holds a full range image, so when the first command fails the
+    // fold of the next two relying on its range is not used
+    String script = "brighten -100 none b\nbrighten 50 b c\nbrighten -30 c d\n";
+    IImageDatabase plain = new ImageDatabase();
+    plain.addImage("b", m.getImage("three"));
+    new ControllerImpl(plain, new View(new StringBuilder()), new StringReader(script)).process();
+
+    m.addImage("b", m.getImage("three"));
+    IController c = new ControllerImpl(m, view, new StringReader(script),
+            EnumSet.of(ControllerOption.SIMPLIFY));
+    c.process();
+    assertEquals("Cannot brighten/darken the image.\n"
+            + "Folded commands 2 to 3 into one brighten by 20.\n"
+            + "Command executed.\nCommand executed.\n", log.toString());
+    assertSameImage(plain.getImage("d"), m.getImage("d"));
+  }
+
+  @Test
+  public void testSimplifiedFailedReloadKeepsImage() throws IOException {
+    // b is added anew by a load that fails, so the brightens are not folded
+    assertEquals(PLAIN_FAILED_RELOAD,
+            runWithOption(FAILED_RELOAD, ControllerOption.SIMPLIFY, "out.ppm"));
+  }
+
+  @Test
+  public void testDeferredScript() {
+    ControllerImpl c = new ControllerImpl(m, view,
+            new StringReader("brighten 10 three a\nsepia-grayscale three b\n"
+                    + "brighten 20 a c\nluma-grayscale three d\n"
+                    + "save testImage/deferred.ppm c\nexit"),
+            EnumSet.of(ControllerOption.DEFERRED));
+    c.requestImage("d");
+    c.process();
+    assertEquals("Command executed.\nCommand skipped.\nCommand executed.\n"
+            + "Command executed.\nCommand executed.\nQuitting.", log.toString());
+
+    // the saved image is the same as running every command
+    IImageState saved = new PPMLoader("testImage/deferred.ppm").loadImage();
+    assertSameImage(new BrighterDarker(20).run(new BrighterDarker(10).run(
+            m.getImage("three"))), saved);
+    // the images in between are removed, the requested one and the images
+    // the script did not add are kept
+    assertEquals(false, has("a"));
+    assertEquals(false, has("b"));
+    assertEquals(false, has("c"));
+    assertEquals(true, has("d"));
+    assertEquals(true, has("three"));
+  }
+
+  @Test
+  public void testDeferredFailedImageKept() throws IOException {
+    // the failed call leaves the image as it was, as without options
+    m.addImage("a", m.getImage("three"));
+    String out = new File(temp.getRoot(), "deferred.ppm").getPath();
+    IController c = new ControllerImpl(m, view,
+            new StringReader("brighten 10 none a\nsave " + out + " a"),
+            EnumSet.of(ControllerOption.DEFERRED));
+    c.process();
+    assertEquals("Cannot brighten/darken the image.\nCommand executed.\n",
+            log.toString());
+    assertSameImage(m.getImage("three"), new PPMLoader(out).loadImage());
+  }
+
+  @Test
+  public void testDeferredFailedReloadKeepsImage() throws IOException {
+    String log = runWithOption(FAILED_RELOAD, ControllerOption.DEFERRED, "out.ppm");
+    // c is never read, the rest runs as without options
+    assertEquals("Command executed.\nCommand executed.\nCommand skipped.\n"
+            + "Cannot load the image.\nCommand executed.\n", log);
+  }
+
+  @Test
+  public void testParallelScript() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("brighten 10 three a\nsepia-grayscale three b\n"
+                    + "brighten 20 a a\nbrighten 5 none c\nluma-grayscale b d\n"
+                    + "save testImage/parallel.ppm a\nexit"),
+            EnumSet.of(ControllerOption.PARALLEL));
+    c.process();
+    // the messages are in the order of the script
+    assertEquals("Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Cannot brighten/darken the image.\nCommand executed.\n"
+            + "Command executed.\nQuitting.", log.toString());
+
+    IImageState three = m.getImage("three");
+    IImageState a = new BrighterDarker(20).run(new BrighterDarker(10).run(three));
+    assertSameImage(a, m.getImage("a"));
+    assertSameImage(a, new PPMLoader("testImage/parallel.ppm").loadImage());
+    // the same as running the commands one after another
+    IImageDatabase serial = new ImageDatabase();
+    serial.addImage("three", three);
+    new ControllerImpl(serial, new View(new StringBuilder()),
+            new StringReader("sepia-grayscale three b\nluma-grayscale b d")).process();
+    assertSameImage(serial.getImage("d"), m.getImage("d"));
+    assertEquals(false, has("c"));
+  }
+
+  @Test
+  public void testParallelConcurrentDatabase() {
+    IImageDatabase shared = new ConcurrentImageDatabase();
+    shared.addImage("three", m.getImage("three"));
+    new ControllerImpl(shared, view,
+            new StringReader("brighten 10 three a\nsepia-grayscale three b\n"
+                    + "brighten 20 a a\nbrighten 5 none c"),
+            EnumSet.of(ControllerOption.PARALLEL)).process();
+    assertEquals("Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Cannot brighten/darken the image.\n", log.toString());
+
+    // the images the workers add are frozen in place
+    assertTrue(shared.getImage("a") instanceof FrozenImage);
+    IImageState three = m.getImage("three");
+    assertSameImage(new BrighterDarker(20).run(new BrighterDarker(10).run(three)),
+            shared.getImage("a"));
+    new ControllerImpl(m, new View(new StringBuilder()),
+            new StringReader("sepia-grayscale three b")).process();
+    assertSameImage(m.getImage("b"), shared.getImage("b"));
+  }
+
+  @Test
+  public void testParallelDeferredScript() {
+    ControllerImpl c = new ControllerImpl(m, view,
+            new StringReader("brighten 10 three a\nsepia-grayscale three b\n"
+                    + "brighten 20 a c\nluma-grayscale three d\n"
+                    + "save testImage/deferred.ppm c\nexit"),
+            EnumSet.of(ControllerOption.DEFERRED, ControllerOption.PARALLEL));
+    c.requestImage("d");
+    c.process();
+    assertEquals("Command executed.\nCommand skipped.\nCommand executed.\n"
+            + "Command executed.\nCommand executed.\nQuitting.", log.toString());
+    assertSameImage(new BrighterDarker(20).run(new BrighterDarker(10).run(
+            m.getImage("three"))), new PPMLoader("testImage/deferred.ppm").loadImage());
+    assertEquals(false, has("a"));
+    assertEquals(false, has("b"));
+    assertEquals(false, has("c"));
+    assertEquals(true, has("d"));
+  }
+
+  @Test
+  public void testCachedScript() {
+    ControllerImpl c = new ControllerImpl(m, view,
+            new StringReader("blur three a\nbrighten 10 three b\nblur three c\n"
+                    + "brighten 10 three d\nbrighten 10 a e"),
+            EnumSet.of(ControllerOption.CACHE));
+    c.process();
+    assertEquals("Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Command executed.\nCommand executed.\n", log.toString());
+    // the repeated commands take the images of the earlier ones
+    assertEquals(2, c.getResultCache().getHits());
+    assertEquals(3, c.getResultCache().getMisses());
+    assertSame(m.getImage("a"), m.getImage("c"));
+    assertSame(m.getImage("b"), m.getImage("d"));
+    assertSameImage(new BrighterDarker(10).run(m.getImage("three")), m.getImage("d"));
+  }
+
+  @Test
+  public void testStreamedScript() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("load testImage/three.ppm a\nblur a b\nbrighten 10 b c\n"
+                    + "save testImage/streamed.ppm c\nexit"),
+            EnumSet.of(ControllerOption.STREAM));
+    c.process();
+    assertEquals("Command executed.\nCommand executed.\nCommand executed.\n"
+            + "Command executed.\nQuitting.", log.toString());
+    // the file is the same as running each command, and no image is added
+    IImageDatabase serial = new ImageDatabase();
+    new ControllerImpl(serial, new View(new StringBuilder()),
+            new StringReader("load testImage/three.ppm a\nblur a b\nbrighten 10 b c\n"
+                    + "save testImage/serial.ppm c")).process();
+    assertSameImage(new PPMLoader("testImage/serial.ppm").loadImage(),
+            new PPMLoader("testImage/streamed.ppm").loadImage());
+    assertEquals(false, has("a"));
+    assertEquals(false, has("c"));
+  }
+
+  @Test
+  public void testStreamedBinaryScript() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("load testImage/three.ppm a\nblur a b\n"
+                    + "save testImage/streamed.pnm b\nload testImage/streamed.pnm c\n"
+                    + "blur c d\nsave testImage/streamed.pgm d\nexit"),
+            EnumSet.of(ControllerOption.STREAM));
+    c.process();
+    IImageDatabase serial = new ImageDatabase();
+    new ControllerImpl(serial, new View(new StringBuilder()),
+            new StringReader("load testImage/three.ppm a\nblur a b\n"
+                    + "save testImage/serial.pnm b")).process();
+    assertSameImage(new PPMLoader("testImage/serial.pnm").loadImage(),
+            new PPMLoader("testImage/streamed.pnm").loadImage());
+    IImageState grey = new PPMLoader("testImage/streamed.pgm").loadImage();
+    assertEquals(grey.getRedChannel(1, 1), grey.getBlueChannel(1, 1));
+    assertEquals(false, has("b"));
+  }
+
+  @Test
+  public void testStreamedScriptFailure() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("load testImage/none.ppm a\nblur a b\n"
+                    + "save testImage/streamed.ppm b"),
+            EnumSet.of(ControllerOption.STREAM));
+    c.process();
+    assertEquals("Cannot load the image.\nCannot use kernel to filter the image.\n"
+            + "Cannot save the image.\n", log.toString());
+  }
+
+  @Test
+  public void testImageReadLaterNotStreamed() {
+    IController c = new ControllerImpl(m, view,
+            new StringReader("load testImage/three.ppm a\nblur a b\n"
+                    + "save testImage/streamed.ppm b\nbrighten 5 b c"),
+            EnumSet.of(ControllerOption.STREAM));
+    c.process();
+    assertEquals(true, has("b"));
+    assertEquals(true, has("c"));
+  }
+
+  @Test
+  public void testStreamedFailedReloadKeepsImage() throws IOException {
+    // a is loaded anew by a load that fails, so the first chain is not streamed
+    // and the second save gives the first image of a
+    String script = "load testImage/three.ppm a\nbrighten 10 a b\nsave OUT/out.ppm b\n"
+            + "load testImage/missing.ppm a\nsave OUT/out2.ppm a";
+    assertEquals("Command executed.\nCommand executed.\nCommand executed.\n"
+                    + "Cannot load the image.\nCommand executed.\n",
+            runWithOption(script, ControllerOption.STREAM, "out.ppm", "out2.ppm"));
+  }
+
+  // helper method to run the script with the option and without any, each
+  // saving the files of OUT into a folder of its own, check both save the same
+  // files and give the messages of the run with the option.
+  private String runWithOption(String script, ControllerOption option, String... files)
+          throws IOException {
+    File plain = temp.newFolder();
+    File optimized = temp.newFolder();
+    new ControllerImpl(new ImageDatabase(), new View(new StringBuilder()),
+            new StringReader(script.replace("OUT", plain.getPath()))).process();
+    StringBuilder optimizedLog = new StringBuilder();
+    new ControllerImpl(new ImageDatabase(), new View(optimizedLog),
+            new StringReader(script.replace("OUT", optimized.getPath())),
+            EnumSet.of(option)).process();
+    for (String file : files) {
+      assertSameImage(new PPMLoader(new File(plain, file).getPath()).loadImage(),
+              new PPMLoader(new File(optimized, file).getPath()).loadImage());
+    }
+    return optimizedLog.toString();
+  }
+
+  // helper method to check whether the model holds an image of the id
+  private boolean has(String id) {
+    try {
+      m.getImage(id);
+      return true;
+    } catch (IllegalStateException e) {
+      return false;
+    }
+  }
+
+  // helper method to check two images hold the same values
+  private void assertSameImage(IImageState expected, IImageState actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int h = 0; h < expected.getHeight(); h++) {
+      for (int w = 0; w < expected.getWidth(); w++) {
+        assertEquals(expected.getRedChannel(w, h), actual.getRedChannel(w, h));
+        assertEquals(expected.getGreenChannel(w, h), actual.getGreenChannel(w, h));
+        assertEquals(expected.getBlueChannel(w, h), actual.getBlueChannel(w, h));
+      }
+    }
+  }
 }
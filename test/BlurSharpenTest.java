@@ -1,14 +1,24 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import controller.loadersaver.ConventionalLoader;
 import controller.loadersaver.IImageLoader;
 import controller.loadersaver.PPMLoader;
+import model.images.IImage;
 import model.images.IImageState;
+import model.images.PackedImage;
 import model.transformation.BlurSharpen;
+import model.transformation.EdgeMode;
 import model.transformation.ITransformation;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A JUnit test class for the BlurSharpen class.
@@ -328,4 +338,292 @@ public class BlurSharpenTest {
     assertEquals(34, sharpenedTwice.getGreenChannel(2, 2));
     assertEquals(237, sharpenedTwice.getBlueChannel(2, 2));
   }
+
+  @Test
+  public void testSeparable() {
+    assertTrue(((BlurSharpen) blur).isSeparable());
+    assertFalse(((BlurSharpen) sharpen).isSeparable());
+    assertFalse(new BlurSharpen(new double[][]{
+            {0, 1, 0},
+            {1, 1, 1},
+            {0, 1, 0}
+    }).isSeparable());
+  }
+
+  // helper method to filter the image with the full two dimensional kernel,
+  // reading the outside of the image through the edge mode.
+  private int[] filterDirectly(IImageState image, double[][] kernel, EdgeMode edge) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int half = kernel.length / 2;
+    int[] result = new int[width * height];
+    for (int h = 0; h < height; h++) {
+      for (int w = 0; w < width; w++) {
+        double[] sums = new double[3];
+        for (int y = - half; y <= half; y++) {
+          for (int x = - half; x <= half; x++) {
+            int column = edge.index(w + x, width);
+            int row = edge.index(h + y, height);
+            if (column < 0 || row < 0) {
+              continue;
+            }
+            double weight = kernel[y + half][x + half];
+            sums[0] += weight * image.getRedChannel(column, row);
+            sums[1] += weight * image.getGreenChannel(column, row);
+            sums[2] += weight * image.getBlueChannel(column, row);
+          }
+        }
+        int rgb = 0;
+        for (double sum : sums) {
+          rgb = (rgb << 8) | Math.min(255, Math.max(0, (int) Math.round(sum)));
+        }
+        result[h * width + w] = rgb;
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testSeparableLargeGaussianSameAsFullKernel() {
+    // 5 by 5 binomial Gaussian kernel, the product of (1 4 6 4 1) / 16 with itself
+    double[] binomial = {1.0 / 16, 4.0 / 16, 6.0 / 16, 4.0 / 16, 1.0 / 16};
+    double[][] kernel = new double[5][5];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        kernel[i][j] = binomial[i] * binomial[j];
+      }
+    }
+    BlurSharpen gaussian = new BlurSharpen(kernel);
+    assertTrue(gaussian.isSeparable());
+
+    IImage image = randomImage(37, 23);
+    IImageState result = gaussian.run(image);
+    int[] pixels = new int[37 * 23];
+    result.getRegion(0, 0, 37, 23, pixels);
+    assertArrayEquals(filterDirectly(image, kernel, EdgeMode.ZERO), pixels);
+  }
+
+  // helper method to create an image of random pixels
+  private IImage randomImage(int width, int height) {
+    Random random = new Random(width * 31 + height);
+    IImage image = new PackedImage(width, height);
+    int[] row = new int[width];
+    for (int h = 0; h < height; h++) {
+      for (int w = 0; w < width; w++) {
+        row[w] = random.nextInt(0x1000000);
+      }
+      image.setRow(h, row);
+    }
+    return image;
+  }
+
+  // helper method to get all packed values of an image
+  private int[] pixels(IImageState image) {
+    int[] pixels = new int[image.getWidth() * image.getHeight()];
+    image.getRegion(0, 0, image.getWidth(), image.getHeight(), pixels);
+    return pixels;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullEdgeMode() {
+    new BlurSharpen(new double[3][3], null);
+  }
+
+  @Test
+  public void testEdgeModeIndex() {
+    assertEquals(2, EdgeMode.ZERO.index(2, 5));
+    assertEquals(-1, EdgeMode.ZERO.index(-1, 5));
+    assertEquals(-1, EdgeMode.ZERO.index(5, 5));
+
+    assertEquals(0, EdgeMode.CLAMP.index(-2, 5));
+    assertEquals(4, EdgeMode.CLAMP.index(6, 5));
+
+    assertEquals(1, EdgeMode.MIRROR.index(-1, 5));
+    assertEquals(2, EdgeMode.MIRROR.index(-2, 5));
+    assertEquals(3, EdgeMode.MIRROR.index(5, 5));
+    assertEquals(2, EdgeMode.MIRROR.index(6, 5));
+    assertEquals(0, EdgeMode.MIRROR.index(-3, 1));
+
+    assertEquals(4, EdgeMode.WRAP.index(-1, 5));
+    assertEquals(0, EdgeMode.WRAP.index(5, 5));
+    assertEquals(1, EdgeMode.WRAP.index(-4, 5));
+  }
+
+  @Test
+  public void testEdgeModesSameAsFullKernel() {
+    double[][] blurKernel = {
+            {1.0 / 16, 1.0 / 8, 1.0 / 16},
+            {1.0 / 8, 1.0 / 4, 1.0 / 8},
+            {1.0 / 16, 1.0 / 8, 1.0 / 16}
+    };
+    double[][] sharpenKernel = {
+            {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
+            {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
+            {- 1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, - 1.0 / 8},
+            {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
+            {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
+    };
+    // includes images smaller than the kernel, which have no interior
+    int[][] sizes = {{19, 11}, {4, 3}, {1, 6}, {2, 2}};
+    for (EdgeMode edge : EdgeMode.values()) {
+      for (int[] size : sizes) {
+        IImage image = randomImage(size[0], size[1]);
+        assertArrayEquals(filterDirectly(image, blurKernel, edge),
+                pixels(new BlurSharpen(blurKernel, edge).run(image)));
+        assertArrayEquals(filterDirectly(image, sharpenKernel, edge),
+                pixels(new BlurSharpen(sharpenKernel, edge).run(image)));
+      }
+    }
+  }
+
+  @Test
+  public void testClampKeepsEdgesOfFlatImage() {
+    IImage flat = new PackedImage(6, 4);
+    for (int h = 0; h < 4; h++) {
+      flat.setRow(h, new int[]{0x808080, 0x808080, 0x808080, 0x808080, 0x808080, 0x808080});
+    }
+    ITransformation zero = new BlurSharpen(new double[][]{
+            {1.0 / 16, 1.0 / 8, 1.0 / 16},
+            {1.0 / 8, 1.0 / 4, 1.0 / 8},
+            {1.0 / 16, 1.0 / 8, 1.0 / 16}
+    });
+    ITransformation clamp = new BlurSharpen(new double[][]{
+            {1.0 / 16, 1.0 / 8, 1.0 / 16},
+            {1.0 / 8, 1.0 / 4, 1.0 / 8},
+            {1.0 / 16, 1.0 / 8, 1.0 / 16}
+    }, EdgeMode.CLAMP);
+
+    // zero padding darkens the corner, clamping keeps it
+    assertEquals(72, zero.run(flat).getRedChannel(0, 0));
+    for (int value : pixels(clamp.run(flat))) {
+      assertEquals(0x808080, value);
+    }
+  }
+
+  @Test
+  public void testFixedPointGaussianSameAsDouble() {
+    double[][] kernel = {
+            {1.0 / 16, 1.0 / 8, 1.0 / 16},
+            {1.0 / 8, 1.0 / 4, 1.0 / 8},
+            {1.0 / 16, 1.0 / 8, 1.0 / 16}
+    };
+    BlurSharpen fixed = new BlurSharpen(kernel, EdgeMode.ZERO, true);
+    assertTrue(fixed.isFixedPoint());
+    assertFalse(new BlurSharpen(kernel).isFixedPoint());
+    // powers of two quantize exactly
+    assertEquals(0, fixed.getFixedPointError(), 0);
+
+    IImage image = randomImage(41, 17);
+    assertArrayEquals(pixels(new BlurSharpen(kernel).run(image)), pixels(fixed.run(image)));
+  }
+
+  @Test
+  public void testFixedPointWithinErrorBound() {
+    double[][] box = new double[5][5];
+    for (double[] row : box) {
+      Arrays.fill(row, 1.0 / 25);
+    }
+    Random random = new Random(7);
+    double[][] irregular = new double[3][3];
+    for (double[] row : irregular) {
+      for (int j = 0; j < 3; j++) {
+        row[j] = random.nextDouble() / 3;
+      }
+    }
+    for (double[][] kernel : new double[][][]{box, irregular}) {
+      for (EdgeMode edge : EdgeMode.values()) {
+        BlurSharpen fixed = new BlurSharpen(kernel, edge, true);
+        double error = fixed.getFixedPointError();
+        assertTrue(error < 1);
+
+        IImage image = randomImage(64, 48);
+        int[] expected = pixels(new BlurSharpen(kernel, edge).run(image));
+        int[] actual = pixels(fixed.run(image));
+        for (int i = 0; i < expected.length; i++) {
+          for (int shift = 0; shift <= 16; shift += 8) {
+            int difference = ((expected[i] >> shift) & 0xFF) - ((actual[i] >> shift) & 0xFF);
+            assertTrue(Math.abs(difference) <= Math.floor(error) + 1);
+          }
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFixedPointWeightTooLarge() {
+    new BlurSharpen(new double[][]{
+            {0, 0, 0},
+            {0, 1000, 0},
+            {0, 0, 0}
+    }, EdgeMode.ZERO, true);
+  }
+
+  @Test
+  public void testFixedPointLargeKernelNoOverflow() {
+    // a separable 261 by 261 kernel of weights 255 and -255 alternating along
+    // each row, whose factors are 255 down the column and 1 and -1 along the
+    // row. Its Q32 sums of two passes would overflow a long, so it runs whole.
+    int size = 261;
+    double[][] kernel = new double[size][size];
+    for (double[] row : kernel) {
+      for (int j = 0; j < size; j++) {
+        row[j] = j % 2 == 0 ? 255 : -255;
+      }
+    }
+    assertTrue(new BlurSharpen(kernel, EdgeMode.WRAP).isSeparable());
+    BlurSharpen fixed = new BlurSharpen(kernel, EdgeMode.WRAP, true);
+    assertFalse(fixed.isSeparable());
+
+    // wrapped, every weight 255 reads a white column and every -255 a black one
+    IImage image = new PackedImage(2, 2);
+    image.setRow(0, new int[]{0xFFFFFF, 0});
+    image.setRow(1, new int[]{0xFFFFFF, 0});
+    int[] expected = pixels(new BlurSharpen(kernel, EdgeMode.WRAP).run(image));
+    assertArrayEquals(new int[]{0xFFFFFF, 0, 0xFFFFFF, 0}, expected);
+    assertArrayEquals(expected, pixels(fixed.run(image)));
+  }
+
+  @Test
+  public void testAtScale() {
+    assertSame(blur, blur.atScale(1));
+    // the kernel blended with the kernel keeping each pixel by 1/4
+    assertEquals(new BlurSharpen(new double[][]{
+            {1.0 / 64, 1.0 / 32, 1.0 / 64},
+            {1.0 / 32, 0.8125, 1.0 / 32},
+            {1.0 / 64, 1.0 / 32, 1.0 / 64}
+    }), blur.atScale(0.5));
+    // fixed-point and edge mode stay the same
+    BlurSharpen fixed = new BlurSharpen(new double[][]{
+            {1.0 / 16, 1.0 / 8, 1.0 / 16},
+            {1.0 / 8, 1.0 / 4, 1.0 / 8},
+            {1.0 / 16, 1.0 / 8, 1.0 / 16}
+    }, EdgeMode.CLAMP, true);
+    BlurSharpen scaled = (BlurSharpen) fixed.atScale(0.5);
+    assertTrue(scaled.isFixedPoint());
+    assertEquals(new BlurSharpen(new double[][]{
+            {1.0 / 64, 1.0 / 32, 1.0 / 64},
+            {1.0 / 32, 0.8125, 1.0 / 32},
+            {1.0 / 64, 1.0 / 32, 1.0 / 64}
+    }, EdgeMode.CLAMP, true), scaled);
+  }
+
+  @Test
+  public void testAtScaleKeepsSum() {
+    // a kernel adding up to one keeps a flat image flat away from the edges
+    IImage flat = new PackedImage(9, 9);
+    for (int h = 0; h < 9; h++) {
+      for (int w = 0; w < 9; w++) {
+        flat.setPixel(w, h, 100, 50, 200);
+      }
+    }
+    IImageState result = sharpen.atScale(0.3).run(flat);
+    assertEquals(100, result.getRedChannel(4, 4));
+    assertEquals(50, result.getGreenChannel(4, 4));
+    assertEquals(200, result.getBlueChannel(4, 4));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAtScaleInvalid() {
+    blur.atScale(0);
+  }
 }
@@ -0,0 +1,213 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import model.ConcurrentImageDatabase;
+import model.images.FrozenImage;
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.ImageImpl;
+import model.images.PackedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test class for the ConcurrentImageDatabase class.
+ */
+public class ConcurrentImageDatabaseTest {
+
+  // helper method to make an image whose channels all hold the value
+  private IImage image(int value) {
+    IImage image = new PackedImage(8, 8);
+    for (int h = 0; h < 8; h++) {
+      image.setRow(h, new int[]{value, value, value, value, value, value, value, value});
+    }
+    return image;
+  }
+
+  // helper method to give the packed value of the first pixel of an image
+  private int valueOf(IImageState image) {
+    int[] row = new int[image.getWidth()];
+    image.getRow(0, row);
+    return row[0];
+  }
+
+  @Test
+  public void testAddGetRemove() {
+    ConcurrentImageDatabase database = new ConcurrentImageDatabase();
+    database.addImage("a", image(0x010203));
+    assertEquals(2, database.getImage("a").getGreenChannel(7, 7));
+    database.removeImage("a");
+    database.removeImage("a");
+    assertTrue(database.snapshot().isEmpty());
+  }
+
+  @Test
+  public void testFrozenOnAdd() {
+    ConcurrentImageDatabase database = new ConcurrentImageDatabase();
+    IImage image = image(0x010203);
+    database.addImage("a", image);
+    // the added image can no longer change the image of the database
+    try {
+      image.setPixel(0, 0, 255, 255, 255);
+      fail("A frozen PackedImage was set.");
+    } catch (IllegalStateException e) {
+      assertEquals("Image can no longer change.", e.getMessage());
+    }
+    assertEquals(1, database.getImage("a").getRedChannel(0, 0));
+    assertTrue(database.getImage("a") instanceof FrozenImage);
+
+    // any other image is copied
+    ImageImpl other = new ImageImpl(1, 1);
+    other.setPixel(0, 0, 4, 5, 6);
+    database.addImage("c", other);
+    other.setPixel(0, 0, 7, 8, 9);
+    assertEquals(4, database.getImage("c").getRedChannel(0, 0));
+
+    // a frozen image is kept as it is
+    IImageState frozen = database.getImage("a");
+    database.addImage("b", frozen);
+    assertSame(frozen, database.getImage("b"));
+  }
+
+  @Test
+  public void testSnapshotUnchangedByWriters() {
+    ConcurrentImageDatabase database = new ConcurrentImageDatabase();
+    database.addImage("a", image(1));
+    Map<String, IImageState> snapshot = database.snapshot();
+    database.addImage("a", image(2));
+    database.addImage("b", image(3));
+    assertEquals(1, snapshot.size());
+    assertEquals(1, snapshot.get("a").getBlueChannel(3, 3));
+    assertEquals(2, database.getImage("a").getBlueChannel(3, 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsetImage() {
+    ConcurrentImageDatabase database = new ConcurrentImageDatabase();
+    database.addImage("a", new PackedImage(2, 2));
+    database.getImage("a").getRow(1, new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsetCopiedImage() {
+    new ConcurrentImageDatabase().addImage("a", new ImageImpl(2, 2));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNoImage() {
+    new ConcurrentImageDatabase().getImage("a");
+  }
+
+  @Test
+  public void testSnapshotConsistent() throws Exception {
+    ConcurrentImageDatabase database = new ConcurrentImageDatabase();
+    for (int i = 0; i < 64; i++) {
+      database.addImage("id" + i, image(0));
+    }
+    int rounds = 2000;
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    AtomicBoolean torn = new AtomicBoolean(false);
+    try {
+      // each round sets the ids in order, so no id is ever ahead of a lower one
+      Future<?> writing = pool.submit(() -> {
+        for (int i = 1; i <= rounds; i++) {
+          for (int id = 0; id < 64; id++) {
+            database.addImage("id" + id, image(i));
+          }
+        }
+      });
+      while (!writing.isDone()) {
+        Map<String, IImageState> snapshot = database.snapshot();
+        for (int id = 1; id < 64; id++) {
+          if (valueOf(snapshot.get("id" + id)) > valueOf(snapshot.get("id" + (id - 1)))) {
+            torn.set(true);
+          }
+        }
+      }
+      writing.get(30, TimeUnit.SECONDS);
+    } finally {
+      pool.shutdownNow();
+    }
+    assertFalse(torn.get());
+  }
+
+  @Test
+  public void testStress() throws Exception {
+    ConcurrentImageDatabase database = new ConcurrentImageDatabase();
+    database.addImage("shared", image(0));
+    int writers = 4;
+    int readers = 4;
+    int rounds = 500;
+    ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+    AtomicBoolean torn = new AtomicBoolean(false);
+    AtomicBoolean done = new AtomicBoolean(false);
+    List<Future<?>> writing = new ArrayList<>();
+    List<Future<?>> reading = new ArrayList<>();
+    try {
+      for (int t = 0; t < writers; t++) {
+        int writer = t;
+        writing.add(pool.submit(() -> {
+          for (int i = 0; i < rounds; i++) {
+            // replace the shared id while keeping every image uniform
+            database.addImage("shared", image(writer * rounds + i));
+            database.addImage("w" + writer + "-" + i, image(i));
+            if (i % 2 == 1) {
+              database.removeImage("w" + writer + "-" + (i - 1));
+            }
+          }
+        }));
+      }
+      for (int t = 0; t < readers; t++) {
+        reading.add(pool.submit(() -> {
+          int[] row = new int[8];
+          while (!done.get()) {
+            IImageState shared = database.getImage("shared");
+            shared.getRow(0, row);
+            int value = row[0];
+            for (int h = 0; h < 8; h++) {
+              shared.getRow(h, row);
+              for (int w = 0; w < 8; w++) {
+                if (row[w] != value) {
+                  torn.set(true);
+                }
+              }
+            }
+            // a snapshot never loses the shared id while writers replace it
+            if (!database.snapshot().containsKey("shared")) {
+              torn.set(true);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : writing) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      done.set(true);
+      for (Future<?> future : reading) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertFalse(torn.get());
+    // each writer keeps the images of its odd rounds only
+    assertEquals(1 + writers * rounds / 2, database.snapshot().size());
+    for (int t = 0; t < writers; t++) {
+      assertEquals(1, database.getImage("w" + t + "-1").getBlueChannel(0, 0));
+      assertFalse(database.snapshot().containsKey("w" + t + "-0"));
+    }
+  }
+}
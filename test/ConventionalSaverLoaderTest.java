@@ -1,7 +1,13 @@
 import org.junit.Test;
 
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
 
 import controller.loadersaver.ConventionalLoader;
 import controller.loadersaver.ConventionalSaver;
@@ -176,4 +182,71 @@ public class ConventionalSaverLoaderTest {
             "45 23 12\n" +
             "Image testImage/three-save.bmp is saved.", log.toString());
   }
+
+  @Test
+  public void testQuietSaverSameImage() {
+    IImageState png = new ConventionalLoader("testImage/three.png").loadImage();
+    new ConventionalSaver("testImage/three-quiet.png", png).run();
+    IImageState saved = new ConventionalLoader("testImage/three-quiet.png").loadImage();
+    for (int h = 0; h < 3; h++) {
+      for (int w = 0; w < 3; w++) {
+        assertEquals(png.getRedChannel(w, h), saved.getRedChannel(w, h));
+        assertEquals(png.getGreenChannel(w, h), saved.getGreenChannel(w, h));
+        assertEquals(png.getBlueChannel(w, h), saved.getBlueChannel(w, h));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testQuietSaverNullImage() {
+    new ConventionalSaver("testImage/three-quiet.png", null);
+  }
+
+  // helper method to write an image of the given type with a few colors into
+  // a png file and load it with the loader
+  private IImageState loadWritten(int type, BufferedImage written) throws IOException {
+    Path file = Files.createTempFile("raster", ".png");
+    try {
+      ImageIO.write(written, "png", file.toFile());
+      BufferedImage read = ImageIO.read(file.toFile());
+      assertEquals(type, read.getType());
+      return new ConventionalLoader(file.toString()).loadImage();
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testLoaderColorRasters() throws IOException {
+    int[] colors = {0x000000, 0xFF0000, 0x00FF00, 0x0000FF, 0x6401FE, 0x0AC8FF};
+    BufferedImage rgb = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+    BufferedImage argb = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+    for (int i = 0; i < colors.length; i++) {
+      rgb.setRGB(i % 3, i / 3, colors[i]);
+      argb.setRGB(i % 3, i / 3, 0xFF000000 | colors[i]);
+    }
+    IImageState fromRgb = loadWritten(BufferedImage.TYPE_3BYTE_BGR, rgb);
+    IImageState fromArgb = loadWritten(BufferedImage.TYPE_4BYTE_ABGR, argb);
+    for (int i = 0; i < colors.length; i++) {
+      for (IImageState loaded : new IImageState[]{fromRgb, fromArgb}) {
+        assertEquals(colors[i] >> 16, loaded.getRedChannel(i % 3, i / 3));
+        assertEquals((colors[i] >> 8) & 0xFF, loaded.getGreenChannel(i % 3, i / 3));
+        assertEquals(colors[i] & 0xFF, loaded.getBlueChannel(i % 3, i / 3));
+      }
+    }
+  }
+
+  @Test
+  public void testLoaderGreyRasterKeepsValues() throws IOException {
+    BufferedImage grey = new BufferedImage(3, 1, BufferedImage.TYPE_BYTE_GRAY);
+    grey.getRaster().setSample(0, 0, 0, 0);
+    grey.getRaster().setSample(1, 0, 0, 64);
+    grey.getRaster().setSample(2, 0, 0, 255);
+    IImageState loaded = loadWritten(BufferedImage.TYPE_BYTE_GRAY, grey);
+    assertEquals(0, loaded.getRedChannel(0, 0));
+    assertEquals(64, loaded.getRedChannel(1, 0));
+    assertEquals(64, loaded.getGreenChannel(1, 0));
+    assertEquals(64, loaded.getBlueChannel(1, 0));
+    assertEquals(255, loaded.getBlueChannel(2, 0));
+  }
 }
@@ -0,0 +1,91 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+
+import controller.commands.CmdBrighten;
+import controller.commands.CmdLoad;
+import controller.commands.CmdMatrixSepia;
+import controller.commands.CmdSave;
+import controller.commands.ICmd;
+import controller.commands.ICmdCall;
+import controller.script.DeferredPlan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test class for the DeferredPlan class.
+ */
+public class DeferredPlanTest {
+  private List<ICmdCall> script;
+
+  @Before
+  public void setUp() {
+    script = List.of(
+            call(new CmdLoad(), "in.png a"),
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdMatrixSepia(), "a c"),
+            call(new CmdBrighten(), "5 b d"),
+            call(new CmdSave(), "out.png d"));
+  }
+
+  // helper method to parse a call of a command
+  private ICmdCall call(ICmd cmd, String arguments) {
+    return cmd.parse(new Scanner(arguments));
+  }
+
+  @Test
+  public void testUnsavedBranchSkipped() {
+    DeferredPlan plan = new DeferredPlan(script, Set.of());
+    assertTrue(plan.isNeeded(0));
+    assertTrue(plan.isNeeded(1));
+    assertFalse(plan.isNeeded(2));
+    assertTrue(plan.isNeeded(3));
+    assertTrue(plan.isNeeded(4));
+    assertEquals(List.of(script.get(0), script.get(1), script.get(3), script.get(4)),
+            plan.getNeededCalls());
+  }
+
+  @Test
+  public void testFreedAfterLastReader() {
+    DeferredPlan plan = new DeferredPlan(script, Set.of());
+    assertEquals(List.of("a"), plan.getFreedAfter(1));
+    assertEquals(List.of(), plan.getFreedAfter(2));
+    assertEquals(List.of("b"), plan.getFreedAfter(3));
+    assertEquals(List.of("d"), plan.getFreedAfter(4));
+  }
+
+  @Test
+  public void testRequestedImageKept() {
+    DeferredPlan plan = new DeferredPlan(script, Set.of("c"));
+    assertTrue(plan.isNeeded(2));
+    // a is now last read by the sepia command, and c is never removed
+    assertEquals(List.of(), plan.getFreedAfter(1));
+    assertEquals(List.of("a"), plan.getFreedAfter(2));
+  }
+
+  @Test
+  public void testOverwrittenImageNeeded() {
+    List<ICmdCall> overwritten = List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdBrighten(), "20 a b"),
+            call(new CmdBrighten(), "30 b b"),
+            call(new CmdSave(), "out.png b"));
+    DeferredPlan plan = new DeferredPlan(overwritten, Set.of());
+    // the second call may fail and leave the image of the first one
+    assertTrue(plan.isNeeded(0));
+    assertTrue(plan.isNeeded(1));
+    // the image read and added by the same call is not removed after it
+    assertEquals(List.of(), plan.getFreedAfter(2));
+    assertEquals(List.of("b"), plan.getFreedAfter(3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidIndex() {
+    new DeferredPlan(script, Set.of()).isNeeded(5);
+  }
+}
@@ -56,6 +56,22 @@ public class ImageDatabaseViewTest {
     m.getImage("idd");
   }
 
+  @Test(expected = IllegalStateException.class)
+  public void testRemoveImage() {
+    m.addImage("small", small);
+    m.addImage("large", large);
+    m.removeImage("small");
+    // removing an id with no image does nothing
+    m.removeImage("none");
+    assertEquals(large, m.getImage("large"));
+    m.getImage("small");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRemoveNullId() {
+    m.removeImage(null);
+  }
+
   @Test
   public void testAddGetImage() {
     m.addImage("small", small);
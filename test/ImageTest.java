@@ -4,6 +4,7 @@ import org.junit.Test;
 import model.images.IImage;
 import model.images.ImageImpl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -177,4 +178,71 @@ public class ImageTest {
     assertEquals(23, three.getGreenChannel(2, 2));
     assertEquals(45, three.getBlueChannel(2, 2));
   }
+
+  @Test
+  public void testSetGetRow() {
+    three.setRow(1, new int[]{0xFF0000, 0x00FF00, 0x0A0B0C});
+    int[] row = new int[3];
+    three.getRow(1, row);
+    assertArrayEquals(new int[]{0xFF0000, 0x00FF00, 0x0A0B0C}, row);
+    assertEquals(255, three.getRedChannel(0, 1));
+    assertEquals(255, three.getGreenChannel(1, 1));
+    assertEquals(12, three.getBlueChannel(2, 1));
+  }
+
+  @Test
+  public void testSetGetRegion() {
+    three.setRegion(1, 1, 2, 2, new int[]{1, 2, 3, 4});
+    int[] region = new int[4];
+    three.getRegion(1, 1, 2, 2, region);
+    assertArrayEquals(new int[]{1, 2, 3, 4}, region);
+    assertEquals(3, three.getBlueChannel(1, 2));
+    assertEquals(4, three.getBlueChannel(2, 2));
+  }
+
+  @Test
+  public void testSetGetRowChannels() {
+    three.setRowChannels(2, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new int[]{7, 8, 9});
+    int[] r = new int[3];
+    int[] g = new int[3];
+    int[] b = new int[3];
+    three.getRowChannels(2, r, g, b);
+    assertArrayEquals(new int[]{1, 2, 3}, r);
+    assertArrayEquals(new int[]{4, 5, 6}, g);
+    assertArrayEquals(new int[]{7, 8, 9}, b);
+    int[] row = new int[3];
+    three.getRow(2, row);
+    assertArrayEquals(new int[]{0x010407, 0x020508, 0x030609}, row);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRowNotSetYet() {
+    three.getRow(0, new int[3]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRowShortArray() {
+    three.setRow(0, new int[3]);
+    three.getRow(0, new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRowOutOfBounds() {
+    three.setRow(3, new int[3]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRowInvalidValue() {
+    three.setRow(0, new int[]{0, -1, 0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRegionOutOfBounds() {
+    three.setRegion(2, 2, 2, 1, new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRowChannelsInvalidValue() {
+    three.setRowChannels(0, new int[3], new int[]{0, 256, 0}, new int[3]);
+  }
 }
@@ -0,0 +1,124 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+import model.transformation.AbstractTransformation;
+import model.transformation.BrighterDarker;
+import model.transformation.GreyscaleBlue;
+import model.transformation.GreyscaleGreen;
+import model.transformation.GreyscaleRed;
+import model.transformation.ITransformation;
+import model.transformation.MatrixGreyscale;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * A JUnit test class for the lookup table compilation of AbstractTransformation.
+ * Compares the transformations that run through lookup tables with the same
+ * formula computed for every pixel, at every pixel of an image holding all
+ * channel values.
+ */
+public class LookupTableTest {
+  private IImage source;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(7);
+    source = new PackedImage(256, 64);
+    int[] row = new int[256];
+    for (int h = 0; h < 64; h++) {
+      for (int w = 0; w < 256; w++) {
+        // every value of each channel appears in every row
+        row[w] = (w << 16) | (((w + h) & 0xFF) << 8) | random.nextInt(256);
+      }
+      source.setRow(h, row);
+    }
+  }
+
+  // helper method to get all packed values of an image
+  private int[] pixels(IImageState image) {
+    int[] pixels = new int[image.getWidth() * image.getHeight()];
+    image.getRegion(0, 0, image.getWidth(), image.getHeight(), pixels);
+    return pixels;
+  }
+
+  // a transformation computed for every pixel with the given red, green and
+  // blue weights of the input channel and an offset
+  private ITransformation perPixel(int[] source, int offset) {
+    return new AbstractTransformation() {
+      @Override
+      protected int changeToValueR(int r, int g, int b) {
+        return new int[]{r, g, b}[source[0]] + offset;
+      }
+
+      @Override
+      protected int changeToValueG(int r, int g, int b) {
+        return new int[]{r, g, b}[source[1]] + offset;
+      }
+
+      @Override
+      protected int changeToValueB(int r, int g, int b) {
+        return new int[]{r, g, b}[source[2]] + offset;
+      }
+    };
+  }
+
+  @Test
+  public void testBrighten() {
+    assertArrayEquals(pixels(perPixel(new int[]{0, 1, 2}, 60).run(source)),
+            pixels(new BrighterDarker(60).run(source)));
+  }
+
+  @Test
+  public void testDarken() {
+    assertArrayEquals(pixels(perPixel(new int[]{0, 1, 2}, -300).run(source)),
+            pixels(new BrighterDarker(-300).run(source)));
+  }
+
+  @Test
+  public void testComponents() {
+    assertArrayEquals(pixels(perPixel(new int[]{0, 0, 0}, 0).run(source)),
+            pixels(new GreyscaleRed().run(source)));
+    assertArrayEquals(pixels(perPixel(new int[]{1, 1, 1}, 0).run(source)),
+            pixels(new GreyscaleGreen().run(source)));
+    assertArrayEquals(pixels(perPixel(new int[]{2, 2, 2}, 0).run(source)),
+            pixels(new GreyscaleBlue().run(source)));
+  }
+
+  @Test
+  public void testSelectionMatrix() {
+    ITransformation swap = new MatrixGreyscale(new double[][] {
+            {0, 0, 1},
+            {0, 1, 0},
+            {1, 0, 0}
+    });
+    assertArrayEquals(pixels(perPixel(new int[]{2, 1, 0}, 0).run(source)),
+            pixels(swap.run(source)));
+  }
+
+  @Test
+  public void testScaledMatrixRoundsLikeDouble() {
+    // one weight per row still runs through the tables, rounding the same way
+    double[][] kernel = {
+            {0.5, 0, 0},
+            {0, 1.7, 0},
+            {0, 0, 0}
+    };
+    ITransformation scaled = new MatrixGreyscale(kernel);
+    IImageState result = scaled.run(source);
+    for (int h = 0; h < 64; h++) {
+      for (int w = 0; w < 256; w++) {
+        int r = source.getRedChannel(w, h);
+        int g = source.getGreenChannel(w, h);
+        assertArrayEquals(new int[]{(int) Math.round(0.5 * r),
+                Math.min(255, (int) Math.round(1.7 * g)), 0},
+                new int[]{result.getRedChannel(w, h), result.getGreenChannel(w, h),
+                  result.getBlueChannel(w, h)});
+      }
+    }
+  }
+}
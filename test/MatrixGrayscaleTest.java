@@ -4,11 +4,14 @@ import org.junit.Test;
 import controller.loadersaver.ConventionalLoader;
 import controller.loadersaver.IImageLoader;
 import controller.loadersaver.PPMLoader;
+import model.images.IImage;
 import model.images.IImageState;
+import model.images.PackedImage;
 import model.transformation.ITransformation;
 import model.transformation.MatrixGreyscale;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A JUnit test class for the MatrixGreyscale class.
@@ -325,4 +328,47 @@ public class MatrixGrayscaleTest {
     assertEquals(12, blueImage.getBlueChannel(2, 2));
 
   }
+
+  @Test
+  public void testFixedPointWithinErrorBound() {
+    double[][] sepia = {
+            {0.393, 0.769, 0.189},
+            {0.349, 0.686, 0.168},
+            {0.272, 0.534, 0.131}};
+    double[][] luma = {
+            {0.2126, 0.7152, 0.0722},
+            {0.2126, 0.7152, 0.0722},
+            {0.2126, 0.7152, 0.0722}};
+    // every color once
+    IImage colors = new PackedImage(4096, 4096);
+    int[] row = new int[4096];
+    for (int h = 0; h < 4096; h++) {
+      for (int w = 0; w < 4096; w++) {
+        row[w] = h * 4096 + w;
+      }
+      colors.setRow(h, row);
+    }
+    for (double[][] kernel : new double[][][]{sepia, luma}) {
+      MatrixGreyscale fixed = new MatrixGreyscale(kernel, true);
+      assertTrue(fixed.isFixedPoint());
+      double error = fixed.getFixedPointError();
+      assertTrue(error < 1);
+
+      IImageState expected = new MatrixGreyscale(kernel).run(colors);
+      IImageState actual = fixed.run(colors);
+      int[] expectedRow = new int[4096];
+      int[] actualRow = new int[4096];
+      for (int h = 0; h < 4096; h++) {
+        expected.getRow(h, expectedRow);
+        actual.getRow(h, actualRow);
+        for (int w = 0; w < 4096; w++) {
+          for (int shift = 0; shift <= 16; shift += 8) {
+            int difference = ((expectedRow[w] >> shift) & 0xFF)
+                    - ((actualRow[w] >> shift) & 0xFF);
+            assertTrue(Math.abs(difference) <= Math.floor(error) + 1);
+          }
+        }
+      }
+    }
+  }
 }
@@ -1,8 +1,13 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import controller.loadersaver.IImageLoader;
 import controller.loadersaver.IImageSaver;
+import controller.loadersaver.PPMFormat;
 import controller.loadersaver.PPMLoader;
 import controller.loadersaver.PPMSaver;
 import model.images.IImageState;
@@ -42,6 +47,170 @@ public class PPMSaverLoaderTest {
     loaderTest.loadImage();
   }
 
+  // helper method to load an image from a file holding the given text
+  private IImageState loadText(String text) throws IOException {
+    return loadBytes(text.getBytes("US-ASCII"));
+  }
+
+  // helper method to load an image from a file holding the given bytes
+  private IImageState loadBytes(byte[] bytes) throws IOException {
+    Path file = Files.createTempFile("tokens", ".ppm");
+    try {
+      Files.write(file, bytes);
+      return new PPMLoader(file.toString()).loadImage();
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  // helper method to join a text header and the binary values after it
+  private byte[] binary(String header, int... values) throws IOException {
+    byte[] start = header.getBytes("US-ASCII");
+    byte[] bytes = new byte[start.length + values.length];
+    System.arraycopy(start, 0, bytes, 0, start.length);
+    for (int i = 0; i < values.length; i++) {
+      bytes[start.length + i] = (byte) values[i];
+    }
+    return bytes;
+  }
+
+  @Test
+  public void testLoaderRawFile() throws IOException {
+    IImageState image = loadBytes(binary("P6\n# binary\n2 1\n255\n",
+            0, 128, 255, 10, 32, 13));
+    assertEquals(2, image.getWidth());
+    assertEquals(128, image.getGreenChannel(0, 0));
+    assertEquals(255, image.getBlueChannel(0, 0));
+    assertEquals(10, image.getRedChannel(1, 0));
+    // a value that is a whitespace or '#' byte is read as a value
+    assertEquals(32, image.getGreenChannel(1, 0));
+    assertEquals(13, image.getBlueChannel(1, 0));
+  }
+
+  @Test
+  public void testLoaderGreyFile() throws IOException {
+    IImageState image = loadBytes(binary("P5 2 1 255 ", 7, 200));
+    assertEquals(7, image.getRedChannel(0, 0));
+    assertEquals(7, image.getGreenChannel(0, 0));
+    assertEquals(7, image.getBlueChannel(0, 0));
+    assertEquals(200, image.getBlueChannel(1, 0));
+  }
+
+  @Test
+  public void testLoaderRawTwoByteValues() throws IOException {
+    IImageState image = loadBytes(binary("P6 1 1 65535\n", 0xFF, 0xFF, 0x80, 0x00, 0x01, 0x01));
+    assertEquals(255, image.getRedChannel(0, 0));
+    assertEquals(128, image.getGreenChannel(0, 0));
+    assertEquals(1, image.getBlueChannel(0, 0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderRawFileTooShort() throws IOException {
+    loadBytes(binary("P6 2 1 255\n", 1, 2, 3, 4, 5));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderRawValueOverMaxValue() throws IOException {
+    loadBytes(binary("P5 1 1 100\n", 101));
+  }
+
+  @Test
+  public void testSaverRawRoundTrip() throws IOException {
+    IImageState three = loader.loadImage();
+    new PPMSaver("testImage/new.pnm", PPMFormat.RAW, three).run();
+    byte[] bytes = Files.readAllBytes(Path.of("testImage/new.pnm"));
+    assertEquals("P6\n3 3\n255\n".length() + 27, bytes.length);
+
+    IImageState loaded = new PPMLoader("testImage/new.pnm").loadImage();
+    for (int h = 0; h < 3; h++) {
+      for (int w = 0; w < 3; w++) {
+        assertEquals(three.getRedChannel(w, h), loaded.getRedChannel(w, h));
+        assertEquals(three.getGreenChannel(w, h), loaded.getGreenChannel(w, h));
+        assertEquals(three.getBlueChannel(w, h), loaded.getBlueChannel(w, h));
+      }
+    }
+  }
+
+  @Test
+  public void testSaverGrey() throws IOException {
+    IImageState three = loader.loadImage();
+    new PPMSaver("testImage/new.pgm", PPMFormat.GREY, three).run();
+    byte[] bytes = Files.readAllBytes(Path.of("testImage/new.pgm"));
+    int start = "P5\n3 3\n255\n".length();
+    assertEquals(start + 9, bytes.length);
+    // grey pixels keep their value, others are given their luma
+    assertEquals(0, bytes[start] & 0xFF);
+    assertEquals(255, bytes[start + 1] & 0xFF);
+    assertEquals(54, bytes[start + 2] & 0xFF);
+    assertEquals(156, bytes[start + 6] & 0xFF);
+  }
+
+  @Test
+  public void testQuietSaverSameAsEcho() throws IOException {
+    IImageState three = loader.loadImage();
+    StringBuilder log = new StringBuilder();
+    new PPMSaver("testImage/new.ppm", three, log).run();
+    new PPMSaver("testImage/quiet.ppm", PPMFormat.PLAIN, three).run();
+    assertEquals(log.toString(), Files.readString(Path.of("testImage/new.ppm")));
+    assertEquals(log.toString(), Files.readString(Path.of("testImage/quiet.ppm")));
+  }
+
+  @Test
+  public void testFormatOfFile() {
+    assertEquals(PPMFormat.PLAIN, PPMFormat.ofFile("a/b.PPM"));
+    assertEquals(PPMFormat.RAW, PPMFormat.ofFile("b.pnm"));
+    assertEquals(PPMFormat.GREY, PPMFormat.ofFile("b.pgm"));
+    assertEquals(null, PPMFormat.ofFile("b.png"));
+  }
+
+  @Test
+  public void testLoaderCommentsInline() throws IOException {
+    IImageState image = loadText("P3# magic\n#whole line\r\n2 # width\n1\t255\n"
+            + "1 2 3#first\n\f4\n5 6");
+    assertEquals(2, image.getWidth());
+    assertEquals(1, image.getHeight());
+    assertEquals(1, image.getRedChannel(0, 0));
+    assertEquals(3, image.getBlueChannel(0, 0));
+    assertEquals(4, image.getRedChannel(1, 0));
+    assertEquals(6, image.getBlueChannel(1, 0));
+  }
+
+  @Test
+  public void testLoaderScalesMaxValue() throws IOException {
+    IImageState image = loadText("P3 2 1 15 0 7 15 8 1 14");
+    assertEquals(0, image.getRedChannel(0, 0));
+    assertEquals(119, image.getGreenChannel(0, 0));
+    assertEquals(255, image.getBlueChannel(0, 0));
+    assertEquals(136, image.getRedChannel(1, 0));
+    assertEquals(17, image.getGreenChannel(1, 0));
+    assertEquals(238, image.getBlueChannel(1, 0));
+
+    image = loadText("P3 1 1 65535 65535 32768 257");
+    assertEquals(255, image.getRedChannel(0, 0));
+    assertEquals(128, image.getGreenChannel(0, 0));
+    assertEquals(1, image.getBlueChannel(0, 0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderValueOverMaxValue() throws IOException {
+    loadText("P3 1 1 15 16 0 0");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderMaxValueTooLarge() throws IOException {
+    loadText("P3 1 1 65536 0 0 0");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderValueNotNumber() throws IOException {
+    loadText("P3 1 1 255 0 1x 0");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLoaderFileTooShort() throws IOException {
+    loadText("P3 2 1 255 0 0 0 0 0 # not a value 0");
+  }
+
   @Test
   public void testLoader() {
     IImageState three = loader.loadImage();
@@ -0,0 +1,234 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import model.images.IImage;
+import model.images.PackedImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test class for the PackedImage class.
+ */
+public class PackedImageTest {
+  private IImage three;
+  private IImage rec;
+  private IImage large;
+
+  @Before
+  public void setUp() {
+    three = new PackedImage(3, 3);
+    rec = new PackedImage(1, 5);
+    large = new PackedImage(512, 1024);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWInvalid() {
+    new PackedImage(0, 5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHInvalid() {
+    new PackedImage(5, -5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooLarge() {
+    new PackedImage(100000, 100000);
+  }
+
+  @Test
+  public void testGetConstructor() {
+    assertEquals(3, three.getHeight());
+    assertEquals(3, three.getWidth());
+
+    assertEquals(1024, large.getHeight());
+    assertEquals(512, large.getWidth());
+
+    assertEquals(5, rec.getHeight());
+    assertEquals(1, rec.getWidth());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRedGetWidthOutOfBounds() {
+    large.getRedChannel(512, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGreenGetHeightOutOfBounds() {
+    rec.getGreenChannel(0, 5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBlueGetWidthOutOfBounds() {
+    rec.getBlueChannel(-1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRNotSetYet() {
+    large.getRedChannel(0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGNotSetYet() {
+    large.getGreenChannel(511, 1023);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBNotSetYet() {
+    three.setPixel(0, 0, 1, 2, 3);
+    three.getBlueChannel(1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelWidthOut() {
+    three.setPixel(3, 0, 0, 0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelHeightOut() {
+    three.setPixel(0, -1, 0, 0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelRedOut() {
+    three.setPixel(0, 0, 256, 0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelGreenOut() {
+    three.setPixel(0, 0, 0, -1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelBlueOut() {
+    three.setPixel(0, 0, 0, 0, -1);
+  }
+
+  @Test
+  public void testSetThreeGetChannel() {
+    three.setPixel(0 ,0, 0, 0, 0);
+    three.setPixel(0 ,1, 255, 255, 255);
+    three.setPixel(0 ,2, 255, 0, 0);
+    three.setPixel(1 ,0, 0, 255, 0);
+    three.setPixel(1 ,1, 0, 0, 255);
+    three.setPixel(1 ,2, 100, 1, 254);
+    three.setPixel(2 ,0, 111, 111, 111);
+    three.setPixel(2 ,1, 10, 200, 255);
+    three.setPixel(2 ,2, 12, 23, 45);
+
+    assertEquals(0, three.getRedChannel(0, 0));
+    assertEquals(0, three.getGreenChannel(0, 0));
+    assertEquals(0, three.getBlueChannel(0, 0));
+
+    assertEquals(255, three.getRedChannel(0, 1));
+    assertEquals(255, three.getGreenChannel(0, 1));
+    assertEquals(255, three.getBlueChannel(0, 1));
+
+    assertEquals(255, three.getRedChannel(0, 2));
+    assertEquals(0, three.getGreenChannel(0, 2));
+    assertEquals(0, three.getBlueChannel(0, 2));
+
+    assertEquals(100, three.getRedChannel(1, 2));
+    assertEquals(1, three.getGreenChannel(1, 2));
+    assertEquals(254, three.getBlueChannel(1, 2));
+
+    assertEquals(10, three.getRedChannel(2, 1));
+    assertEquals(200, three.getGreenChannel(2, 1));
+    assertEquals(255, three.getBlueChannel(2, 1));
+
+    assertEquals(12, three.getRedChannel(2, 2));
+    assertEquals(23, three.getGreenChannel(2, 2));
+    assertEquals(45, three.getBlueChannel(2, 2));
+
+    // overwrite a pixel in place
+    three.setPixel(2 ,2, 255, 254, 253);
+    assertEquals(255, three.getRedChannel(2, 2));
+    assertEquals(254, three.getGreenChannel(2, 2));
+    assertEquals(253, three.getBlueChannel(2, 2));
+  }
+
+  @Test
+  public void testSetGetRow() {
+    three.setRow(1, new int[]{0xFF0000, 0x00FF00, 0x0A0B0C});
+    int[] row = new int[3];
+    three.getRow(1, row);
+    assertArrayEquals(new int[]{0xFF0000, 0x00FF00, 0x0A0B0C}, row);
+    assertEquals(255, three.getRedChannel(0, 1));
+    assertEquals(255, three.getGreenChannel(1, 1));
+    assertEquals(12, three.getBlueChannel(2, 1));
+  }
+
+  @Test
+  public void testSetGetRegion() {
+    three.setRegion(1, 1, 2, 2, new int[]{1, 2, 3, 4});
+    int[] region = new int[4];
+    three.getRegion(1, 1, 2, 2, region);
+    assertArrayEquals(new int[]{1, 2, 3, 4}, region);
+    assertEquals(3, three.getBlueChannel(1, 2));
+    assertEquals(4, three.getBlueChannel(2, 2));
+  }
+
+  @Test
+  public void testSetGetRowChannels() {
+    three.setRowChannels(2, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new int[]{7, 8, 9});
+    int[] r = new int[3];
+    int[] g = new int[3];
+    int[] b = new int[3];
+    three.getRowChannels(2, r, g, b);
+    assertArrayEquals(new int[]{1, 2, 3}, r);
+    assertArrayEquals(new int[]{4, 5, 6}, g);
+    assertArrayEquals(new int[]{7, 8, 9}, b);
+    int[] row = new int[3];
+    three.getRow(2, row);
+    assertArrayEquals(new int[]{0x010407, 0x020508, 0x030609}, row);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRowNotSetYet() {
+    three.getRow(0, new int[3]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRowShortArray() {
+    three.setRow(0, new int[3]);
+    three.getRow(0, new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRowOutOfBounds() {
+    three.setRow(3, new int[3]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRowInvalidValue() {
+    three.setRow(0, new int[]{0, -1, 0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRegionOutOfBounds() {
+    three.setRegion(2, 2, 2, 1, new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRowChannelsInvalidValue() {
+    three.setRowChannels(0, new int[3], new int[]{0, 256, 0}, new int[3]);
+  }
+
+  @Test
+  public void testAsBufferedImageSharesPixels() {
+    PackedImage image = new PackedImage(2, 2);
+    image.setPixel(0, 0, 10, 20, 30);
+    image.setPixel(1, 1, 255, 0, 128);
+    BufferedImage shown = image.asBufferedImage();
+    assertEquals(BufferedImage.TYPE_INT_RGB, shown.getType());
+    assertEquals(2, shown.getWidth());
+    assertEquals(0x0A141E, shown.getRGB(0, 0) & 0xFFFFFF);
+    assertEquals(0xFF0080, shown.getRGB(1, 1) & 0xFFFFFF);
+    // the pixels are shared, not copied
+    image.setPixel(0, 0, 1, 2, 3);
+    assertEquals(0x010203, shown.getRGB(0, 0) & 0xFFFFFF);
+  }
+}
@@ -0,0 +1,156 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+import model.transformation.BlurSharpen;
+import model.transformation.BrighterDarker;
+import model.transformation.GreyscaleLuma;
+import model.transformation.ITransformation;
+import model.transformation.MatrixGreyscale;
+import model.transformation.ParallelRows;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test class for the ParallelRows class. Runs the transformations
+ * with one thread and with several threads and tests the results are the same
+ * at every pixel of the image.
+ */
+public class ParallelRowsTest {
+  private IImage source;
+  private int threads;
+
+  @Before
+  public void setUp() {
+    threads = ParallelRows.getThreads();
+
+    // large enough to be split into many bands of rows
+    Random random = new Random(42);
+    source = new PackedImage(301, 257);
+    int[] row = new int[301];
+    for (int h = 0; h < 257; h++) {
+      for (int w = 0; w < 301; w++) {
+        row[w] = random.nextInt(0x1000000);
+      }
+      source.setRow(h, row);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    ParallelRows.setThreads(threads);
+  }
+
+  // helper method to run the transformation with the given thread count
+  private int[] runWith(ITransformation t, int count) {
+    ParallelRows.setThreads(count);
+    IImageState result = t.run(source);
+    int[] pixels = new int[result.getWidth() * result.getHeight()];
+    result.getRegion(0, 0, result.getWidth(), result.getHeight(), pixels);
+    return pixels;
+  }
+
+  // helper method to test the serial and parallel results are the same
+  private void assertSameResult(ITransformation t) {
+    assertArrayEquals(runWith(t, 1), runWith(t, 8));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidThreads() {
+    ParallelRows.setThreads(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullBand() {
+    ParallelRows.run(1, 1, null);
+  }
+
+  @Test
+  public void testSetThreadsWhileRunning() throws Exception {
+    AtomicBoolean done = new AtomicBoolean(false);
+    Thread setter = new Thread(() -> {
+      for (int i = 0; !done.get(); i++) {
+        ParallelRows.setThreads(2 + i % 2);
+      }
+    });
+    setter.start();
+    try {
+      // no run is refused by a pool replaced under it
+      for (int i = 0; i < 2000; i++) {
+        AtomicInteger rows = new AtomicInteger();
+        ParallelRows.run(100, 1000, (start, end) -> rows.addAndGet(end - start));
+        assertEquals(1000, rows.get());
+      }
+    } finally {
+      done.set(true);
+      setter.join();
+    }
+  }
+
+  @Test
+  public void testSetThreads() {
+    ParallelRows.setThreads(3);
+    assertEquals(3, ParallelRows.getThreads());
+  }
+
+  @Test
+  public void testBandsCoverAllRows() {
+    ParallelRows.setThreads(4);
+    int[] visits = new int[1000];
+    ParallelRows.run(100, 1000, (start, end) -> {
+      for (int h = start; h < end; h++) {
+        visits[h]++;
+      }
+    });
+    for (int visit : visits) {
+      assertEquals(1, visit);
+    }
+  }
+
+  @Test
+  public void testBrighten() {
+    assertSameResult(new BrighterDarker(37));
+  }
+
+  @Test
+  public void testLuma() {
+    assertSameResult(new GreyscaleLuma());
+  }
+
+  @Test
+  public void testSepia() {
+    assertSameResult(new MatrixGreyscale(new double[][] {
+            {0.393, 0.769, 0.189},
+            {0.349, 0.686, 0.168},
+            {0.272, 0.534, 0.131}
+    }));
+  }
+
+  @Test
+  public void testBlur() {
+    assertSameResult(new BlurSharpen(new double[][]{
+            {1.0 / 16, 1.0 / 8, 1.0 / 16},
+            {1.0 / 8, 1.0 / 4, 1.0 / 8},
+            {1.0 / 16, 1.0 / 8, 1.0 / 16}
+    }));
+  }
+
+  @Test
+  public void testSharpen() {
+    assertSameResult(new BlurSharpen(new double[][] {
+            {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
+            {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
+            {- 1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, - 1.0 / 8},
+            {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
+            {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
+    }));
+  }
+}
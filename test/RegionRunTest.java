@@ -0,0 +1,98 @@
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+import model.transformation.BlurSharpen;
+import model.transformation.BrighterDarker;
+import model.transformation.Downscale;
+import model.transformation.EdgeMode;
+import model.transformation.GreyscaleLuma;
+import model.transformation.ITransformation;
+import model.transformation.RegionRun;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A JUnit test class for the RegionRun class, comparing each region with the
+ * same region of the chain run on the whole image.
+ */
+public class RegionRunTest {
+  private static final double[][] BLUR = {
+          {1.0 / 16, 1.0 / 8, 1.0 / 16},
+          {1.0 / 8, 1.0 / 4, 1.0 / 8},
+          {1.0 / 16, 1.0 / 8, 1.0 / 16}
+  };
+  private static final double[][] SHARPEN = {
+          {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8},
+          {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
+          {-1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, -1.0 / 8},
+          {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
+          {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8}
+  };
+
+  @Test
+  public void testHalo() {
+    assertEquals(0, new BrighterDarker(10).getHalo());
+    assertEquals(1, new BlurSharpen(BLUR).getHalo());
+    assertEquals(2, new BlurSharpen(SHARPEN, EdgeMode.MIRROR).getHalo());
+    assertEquals(-1, new BlurSharpen(BLUR, EdgeMode.WRAP).getHalo());
+    assertEquals(-1, new Downscale(0.5).getHalo());
+    assertEquals(3, RegionRun.getHalo(List.of(new BlurSharpen(BLUR),
+            new GreyscaleLuma(), new BlurSharpen(SHARPEN))));
+    assertEquals(-1, RegionRun.getHalo(List.of(new BlurSharpen(BLUR),
+            new BlurSharpen(BLUR, EdgeMode.WRAP))));
+  }
+
+  @Test
+  public void testRegionsOfChain() {
+    IImage image = randomImage(40, 30);
+    for (EdgeMode edge : EdgeMode.values()) {
+      List<ITransformation> chain = List.of(new BlurSharpen(BLUR, edge),
+              new BrighterDarker(-20), new BlurSharpen(SHARPEN, edge, true));
+      IImageState whole = image;
+      for (ITransformation transformation : chain) {
+        whole = transformation.run(whole);
+      }
+      // regions inside, on the edges and in the corners of the image
+      int[][] regions = {{10, 8, 12, 9}, {0, 0, 7, 5}, {33, 25, 7, 5}, {0, 12, 40, 3},
+          {38, 0, 2, 30}, {0, 0, 40, 30}};
+      for (int[] region : regions) {
+        int[] expected = new int[region[2] * region[3]];
+        whole.getRegion(region[0], region[1], region[2], region[3], expected);
+        int[] actual = new int[region[2] * region[3]];
+        RegionRun.run(chain, image, region[0], region[1], region[2], region[3])
+                .getRegion(0, 0, region[2], region[3], actual);
+        assertArrayEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRegionOutside() {
+    RegionRun.run(List.of(new BrighterDarker(10)), randomImage(4, 4), 2, 2, 3, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullChain() {
+    RegionRun.run(null, randomImage(4, 4), 0, 0, 1, 1);
+  }
+
+  // helper method to create an image of random pixels
+  private IImage randomImage(int width, int height) {
+    Random random = new Random(width * 31 + height);
+    IImage image = new PackedImage(width, height);
+    int[] row = new int[width];
+    for (int h = 0; h < height; h++) {
+      for (int w = 0; w < width; w++) {
+        row[w] = random.nextInt(0x1000000);
+      }
+      image.setRow(h, row);
+    }
+    return image;
+  }
+}
@@ -0,0 +1,147 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+import model.transformation.BlurSharpen;
+import model.transformation.BrighterDarker;
+import model.transformation.EdgeMode;
+import model.transformation.GreyscaleLuma;
+import model.transformation.MatrixGreyscale;
+import model.transformation.ResultCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * A JUnit test class for the ResultCache class.
+ */
+public class ResultCacheTest {
+  private static final double[][] BLUR = {
+      {0.0625, 0.125, 0.0625},
+      {0.125, 0.25, 0.125},
+      {0.0625, 0.125, 0.0625}};
+  private static final double[][] SEPIA = {
+      {0.393, 0.769, 0.189},
+      {0.349, 0.686, 0.168},
+      {0.272, 0.534, 0.131}};
+
+  private IImage image;
+  private IImage other;
+
+  @Before
+  public void setUp() {
+    image = new PackedImage(4, 4);
+    other = new PackedImage(4, 4);
+    for (int h = 0; h < 4; h++) {
+      for (int w = 0; w < 4; w++) {
+        image.setPixel(w, h, 10 * w, 20 * h, 5 * (w + h));
+        other.setPixel(w, h, 10 * h, 20 * w, 5 * (w + h));
+      }
+    }
+  }
+
+  @Test
+  public void testEqualRequestHits() {
+    ResultCache cache = new ResultCache(ResultCache.DEFAULT_CAPACITY);
+    IImageState first = cache.run(new BrighterDarker(10), image);
+    IImageState second = cache.run(new BrighterDarker(10), image);
+    assertSame(first, second);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(64, cache.getBytes());
+
+    assertSame(cache.run(new BlurSharpen(BLUR), image),
+            cache.run(new BlurSharpen(BLUR, EdgeMode.ZERO), image));
+    assertSame(cache.run(new MatrixGreyscale(SEPIA), image),
+            cache.run(new MatrixGreyscale(SEPIA), image));
+    assertEquals(3, cache.getHits());
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void testDifferentRequestMisses() {
+    ResultCache cache = new ResultCache(ResultCache.DEFAULT_CAPACITY);
+    IImageState first = cache.run(new BrighterDarker(10), image);
+    assertNotSame(first, cache.run(new BrighterDarker(20), image));
+    assertNotSame(first, cache.run(new BrighterDarker(10), other));
+    assertNotSame(cache.run(new BlurSharpen(BLUR), image),
+            cache.run(new BlurSharpen(BLUR, EdgeMode.CLAMP), image));
+    assertNotSame(cache.run(new MatrixGreyscale(SEPIA), image),
+            cache.run(new MatrixGreyscale(SEPIA, true), image));
+    assertEquals(0, cache.getHits());
+    assertEquals(7, cache.getMisses());
+  }
+
+  @Test
+  public void testSameResultAsRun() {
+    ResultCache cache = new ResultCache(ResultCache.DEFAULT_CAPACITY);
+    GreyscaleLuma luma = new GreyscaleLuma();
+    cache.run(luma, image);
+    IImageState kept = cache.run(luma, image);
+    IImageState expected = luma.run(image);
+    for (int h = 0; h < 4; h++) {
+      for (int w = 0; w < 4; w++) {
+        assertEquals(expected.getRedChannel(w, h), kept.getRedChannel(w, h));
+        assertEquals(expected.getGreenChannel(w, h), kept.getGreenChannel(w, h));
+        assertEquals(expected.getBlueChannel(w, h), kept.getBlueChannel(w, h));
+      }
+    }
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEvicted() {
+    // room for two 4x4 images
+    ResultCache cache = new ResultCache(128);
+    IImageState ten = cache.run(new BrighterDarker(10), image);
+    IImageState twenty = cache.run(new BrighterDarker(20), image);
+    // use ten again, so twenty is the least recently used one
+    assertSame(ten, cache.run(new BrighterDarker(10), image));
+    cache.run(new BrighterDarker(30), image);
+    assertEquals(128, cache.getBytes());
+
+    assertSame(ten, cache.run(new BrighterDarker(10), image));
+    assertNotSame(twenty, cache.run(new BrighterDarker(20), image));
+  }
+
+  @Test
+  public void testTooLargeNotKept() {
+    ResultCache cache = new ResultCache(63);
+    IImageState first = cache.run(new BrighterDarker(10), image);
+    assertNotSame(first, cache.run(new BrighterDarker(10), image));
+    assertEquals(0, cache.getBytes());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testClear() {
+    ResultCache cache = new ResultCache(ResultCache.DEFAULT_CAPACITY);
+    IImageState first = cache.run(new BrighterDarker(10), image);
+    cache.clear();
+    assertEquals(0, cache.getBytes());
+    assertNotSame(first, cache.run(new BrighterDarker(10), image));
+  }
+
+  @Test
+  public void testTransformationEquality() {
+    assertEquals(new BrighterDarker(5), new BrighterDarker(5));
+    assertEquals(new BrighterDarker(5).hashCode(), new BrighterDarker(5).hashCode());
+    assertNotEquals(new BrighterDarker(5), new BrighterDarker(-5));
+    assertEquals(new MatrixGreyscale(SEPIA), new MatrixGreyscale(SEPIA.clone()));
+    assertEquals(new BlurSharpen(BLUR).hashCode(), new BlurSharpen(BLUR).hashCode());
+    assertNotEquals(new BlurSharpen(BLUR), new BlurSharpen(BLUR, EdgeMode.ZERO, true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCapacity() {
+    new ResultCache(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullImage() {
+    new ResultCache(64).run(new BrighterDarker(1), null);
+  }
+}
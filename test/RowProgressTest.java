@@ -0,0 +1,120 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.images.PackedImage;
+import model.transformation.BlurSharpen;
+import model.transformation.ParallelRows;
+import model.transformation.RowProgress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A JUnit test class for the RowProgress class, counting and cancelling the
+ * rows run by ParallelRows.
+ */
+public class RowProgressTest {
+  private int threads;
+
+  @Before
+  public void setUp() {
+    threads = ParallelRows.getThreads();
+  }
+
+  @After
+  public void tearDown() {
+    ParallelRows.setThreads(threads);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullListener() {
+    new RowProgress(null);
+  }
+
+  @Test
+  public void testCountsRowsOnOneThread() {
+    ParallelRows.setThreads(1);
+    List<Integer> percents = new ArrayList<>();
+    RowProgress progress = new RowProgress(percents::add);
+    AtomicInteger rows = new AtomicInteger();
+    progress.track(() -> ParallelRows.run(1000, 1000, (start, end) -> rows.addAndGet(end - start)));
+    assertEquals(1000, rows.get());
+    assertEquals(100, progress.getPercent());
+    // the progress moves a band at a time, always growing
+    assertTrue(percents.size() > 10);
+    for (int i = 1; i < percents.size(); i++) {
+      assertTrue(percents.get(i) > percents.get(i - 1));
+    }
+  }
+
+  @Test
+  public void testCountsRowsOnSeveralThreads() {
+    ParallelRows.setThreads(4);
+    RowProgress progress = new RowProgress(percent -> { });
+    AtomicInteger rows = new AtomicInteger();
+    progress.track(() -> ParallelRows.run(1000, 1000, (start, end) -> rows.addAndGet(end - start)));
+    assertEquals(1000, rows.get());
+    assertEquals(100, progress.getPercent());
+  }
+
+  @Test
+  public void testNotCountedOutsideTrack() {
+    RowProgress progress = new RowProgress(percent -> { });
+    ParallelRows.run(1000, 1000, (start, end) -> { });
+    assertEquals(0, progress.getPercent());
+  }
+
+  @Test
+  public void testCancelledBeforeRuns() {
+    RowProgress progress = new RowProgress(percent -> { });
+    progress.cancel();
+    AtomicInteger rows = new AtomicInteger();
+    try {
+      progress.track(() -> rows.incrementAndGet());
+      fail("Cancelled work should not run.");
+    } catch (CancellationException e) {
+      assertEquals(0, rows.get());
+    }
+  }
+
+  @Test
+  public void testCancelStopsTheBands() {
+    for (int count : new int[]{1, 4}) {
+      ParallelRows.setThreads(count);
+      AtomicInteger rows = new AtomicInteger();
+      RowProgress[] progress = new RowProgress[1];
+      // cancel once a tenth of the rows are done
+      progress[0] = new RowProgress(percent -> {
+        if (percent >= 10) {
+          progress[0].cancel();
+        }
+      });
+      try {
+        progress[0].track(() -> ParallelRows.run(1000, 1000,
+                (start, end) -> rows.addAndGet(end - start)));
+        fail("Cancelled rows should throw.");
+      } catch (CancellationException e) {
+        assertTrue(rows.get() < 1000);
+      }
+    }
+  }
+
+  @Test(expected = CancellationException.class)
+  public void testCancelTransformation() {
+    PackedImage image = new PackedImage(500, 500);
+    image.setRegion(0, 0, 500, 500, new int[500 * 500]);
+    RowProgress progress = new RowProgress(percent -> { });
+    progress.track(() -> {
+      progress.cancel();
+      new BlurSharpen(new double[][]{{1.0 / 16, 1.0 / 8, 1.0 / 16},
+          {1.0 / 8, 1.0 / 4, 1.0 / 8}, {1.0 / 16, 1.0 / 8, 1.0 / 16}}).run(image);
+    });
+  }
+}
@@ -0,0 +1,149 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import controller.loadersaver.PPMLoader;
+import controller.loadersaver.PPMSaver;
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.IRowSource;
+import model.images.ImageRows;
+import model.images.PackedImage;
+import model.transformation.BlurSharpen;
+import model.transformation.BrighterDarker;
+import model.transformation.EdgeMode;
+import model.transformation.GreyscaleLuma;
+import model.transformation.ITransformation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test class for streaming the rows of images through the loader,
+ * the transformations and the saver.
+ */
+public class RowStreamTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final double[][] BLUR = {
+      {1.0 / 16, 1.0 / 8, 1.0 / 16},
+      {1.0 / 8, 1.0 / 4, 1.0 / 8},
+      {1.0 / 16, 1.0 / 8, 1.0 / 16}};
+  private static final double[][] SHARPEN = {
+      {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8},
+      {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
+      {- 1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, - 1.0 / 8},
+      {- 1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, - 1.0 / 8},
+      {- 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8, - 1.0 / 8}};
+
+  // helper method to make an image of random values
+  private IImage random(int width, int height, long seed) {
+    Random random = new Random(seed);
+    IImage image = new PackedImage(width, height);
+    int[] row = new int[width];
+    for (int h = 0; h < height; h++) {
+      for (int w = 0; w < width; w++) {
+        row[w] = random.nextInt(1 << 24);
+      }
+      image.setRow(h, row);
+    }
+    return image;
+  }
+
+  // helper method to check two images hold the same values
+  private void assertSameImage(IImageState expected, IImageState actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    int[] expectedRow = new int[expected.getWidth()];
+    int[] actualRow = new int[expected.getWidth()];
+    for (int h = 0; h < expected.getHeight(); h++) {
+      expected.getRow(h, expectedRow);
+      actual.getRow(h, actualRow);
+      assertArrayEquals(expectedRow, actualRow);
+    }
+  }
+
+  @Test
+  public void testStreamedFilterSameAsRun() {
+    int[][] sizes = {{1, 1}, {2, 3}, {3, 2}, {7, 5}, {20, 13}};
+    for (int[] size : sizes) {
+      IImage image = random(size[0], size[1], size[0] * 31 + size[1]);
+      for (EdgeMode edge : EdgeMode.values()) {
+        for (boolean fixedPoint : new boolean[]{false, true}) {
+          for (double[][] kernel : new double[][][]{BLUR, SHARPEN}) {
+            ITransformation filter = new BlurSharpen(kernel, edge, fixedPoint);
+            assertSameImage(filter.run(image),
+                    ImageRows.collect(filter.stream(new ImageRows(image))));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStreamedChainSameAsRun() {
+    IImage image = random(9, 11, 7);
+    ITransformation blur = new BlurSharpen(BLUR, EdgeMode.MIRROR);
+    ITransformation brighten = new BrighterDarker(30);
+    ITransformation luma = new GreyscaleLuma();
+    IRowSource rows = luma.stream(blur.stream(brighten.stream(new ImageRows(image))));
+    assertSameImage(luma.run(blur.run(brighten.run(image))), ImageRows.collect(rows));
+  }
+
+  @Test
+  public void testFilterReadsFewRowsAhead() {
+    IImage image = random(6, 40, 3);
+    int[] read = new int[1];
+    IRowSource counted = new ImageRows(image) {
+      @Override
+      public void nextRow(int[] dst) {
+        read[0]++;
+        super.nextRow(dst);
+      }
+    };
+    IRowSource rows = new BlurSharpen(SHARPEN, EdgeMode.CLAMP).stream(counted);
+    int[] row = new int[6];
+    for (int h = 0; h < 40; h++) {
+      rows.nextRow(row);
+      // the 5x5 kernel needs the two rows below the output row only
+      assertEquals(Math.min(h + 3, 40), read[0]);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNoRowsLeft() {
+    IRowSource rows = new BrighterDarker(1).stream(new ImageRows(random(2, 1, 1)));
+    rows.nextRow(new int[2]);
+    rows.nextRow(new int[2]);
+  }
+
+  @Test
+  public void testLoadRowsSameAsLoadImage() {
+    PPMLoader loader = new PPMLoader("testImage/three.ppm");
+    assertSameImage(loader.loadImage(), ImageRows.collect(loader.loadRows()));
+  }
+
+  @Test
+  public void testSaveStreamedRows() throws IOException {
+    IImageState three = new PPMLoader("testImage/three.ppm").loadImage();
+    ITransformation blur = new BlurSharpen(BLUR);
+    new PPMSaver(out("streamedSave.ppm"), blur.stream(
+            new PPMLoader("testImage/three.ppm").loadRows())).run();
+    new PPMSaver(out("runSave.ppm"), blur.run(three), new StringBuilder()).run();
+    assertTrue(Files.mismatch(Paths.get(out("streamedSave.ppm")),
+            Paths.get(out("runSave.ppm"))) < 0);
+  }
+
+  // helper method to give the path of a file in the temporary folder
+  private String out(String name) {
+    return new File(temp.getRoot(), name).getPath();
+  }
+}
@@ -0,0 +1,251 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Set;
+
+import controller.ControllerOption;
+import controller.commands.CmdBrighten;
+import controller.commands.CmdGaussianBlur;
+import controller.commands.CmdMatrixLuma;
+import controller.commands.CmdMatrixRed;
+import controller.commands.CmdMatrixSepia;
+import controller.commands.CmdSave;
+import controller.commands.ICmd;
+import controller.commands.ICmdCall;
+import controller.script.ScriptOptimizer;
+import controller.script.ScriptStep;
+import controller.script.ValueRange;
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+import model.transformation.AbstractTransformation;
+import model.transformation.BrighterDarker;
+import model.transformation.ComposedTransformation;
+import model.transformation.GreyscaleRed;
+import model.transformation.MatrixGreyscale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * A JUnit test class for the ScriptOptimizer, ValueRange and the
+ * ComposedTransformation classes.
+ */
+public class ScriptOptimizerTest {
+  private ScriptOptimizer fuse;
+  private IImage image;
+
+  @Before
+  public void setUp() {
+    fuse = new ScriptOptimizer(EnumSet.of(ControllerOption.FUSE));
+
+    Random random = new Random(3);
+    image = new PackedImage(23, 11);
+    int[] row = new int[23];
+    for (int h = 0; h < 11; h++) {
+      for (int w = 0; w < 23; w++) {
+        row[w] = random.nextInt(0x1000000);
+      }
+      image.setRow(h, row);
+    }
+  }
+
+  // helper method to parse a call of a command
+  private ICmdCall call(ICmd cmd, String arguments) {
+    return cmd.parse(new Scanner(arguments));
+  }
+
+  @Test
+  public void testFuseChain() {
+    List<ScriptStep> steps = fuse.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdMatrixSepia(), "b c"),
+            call(new CmdBrighten(), "-5 c d"),
+            call(new CmdSave(), "out.png d")));
+    assertEquals(2, steps.size());
+    assertEquals(3, steps.get(0).getCalls().size());
+    ICmdCall fused = steps.get(0).getReplacement();
+    assertEquals(List.of("a"), fused.getSources());
+    assertEquals("d", fused.getDestination());
+    assertNull(steps.get(1).getReplacement());
+  }
+
+  @Test
+  public void testLiveIntermediateNotFused() {
+    List<ScriptStep> steps = fuse.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdMatrixSepia(), "b c"),
+            call(new CmdSave(), "out.png b")));
+    assertEquals(3, steps.size());
+    assertNull(steps.get(0).getReplacement());
+  }
+
+  @Test
+  public void testOverwrittenIntermediateNotFused() {
+    // the call adding b anew may fail and leave b as it was
+    List<ScriptStep> steps = fuse.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdMatrixSepia(), "b c"),
+            call(new CmdBrighten(), "20 a b"),
+            call(new CmdSave(), "out.png b")));
+    assertEquals(4, steps.size());
+    assertNull(steps.get(0).getReplacement());
+  }
+
+  @Test
+  public void testUnreadIntermediateFused() {
+    List<ScriptStep> steps = fuse.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdMatrixSepia(), "b c"),
+            call(new CmdSave(), "out.png c")));
+    assertEquals(2, steps.size());
+    assertNotNull(steps.get(0).getReplacement());
+  }
+
+  @Test
+  public void testInPlaceChainFused() {
+    List<ScriptStep> steps = fuse.optimize(List.of(
+            call(new CmdBrighten(), "10 a a"),
+            call(new CmdMatrixSepia(), "a a"),
+            call(new CmdSave(), "out.png a")));
+    assertEquals(2, steps.size());
+    assertEquals("a", steps.get(0).getReplacement().getDestination());
+  }
+
+  @Test
+  public void testKernelBreaksChain() {
+    List<ScriptStep> steps = fuse.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdGaussianBlur(), "b c"),
+            call(new CmdBrighten(), "-5 c d")));
+    assertEquals(3, steps.size());
+  }
+
+  @Test
+  public void testNoFuseOption() {
+    ScriptOptimizer none = new ScriptOptimizer(EnumSet.noneOf(ControllerOption.class));
+    List<ScriptStep> steps = none.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdMatrixSepia(), "b c")));
+    assertEquals(2, steps.size());
+  }
+
+  @Test
+  public void testFoldSameSignBrighten() {
+    ScriptOptimizer simplify = new ScriptOptimizer(EnumSet.of(ControllerOption.SIMPLIFY));
+    List<ScriptStep> steps = simplify.optimize(List.of(
+            call(new CmdBrighten(), "10 a b"),
+            call(new CmdBrighten(), "20 b c")));
+    assertEquals(1, steps.size());
+    assertEquals(List.of("Folded commands 1 to 2 into one brighten by 30.\n"),
+            steps.get(0).getRewrites());
+    assertEquals(30, ((BrighterDarker) steps.get(0).getReplacement().getTransformation())
+            .getValue());
+  }
+
+  @Test
+  public void testOppositeSignNeedsRange() {
+    ScriptOptimizer simplify = new ScriptOptimizer(EnumSet.of(ControllerOption.SIMPLIFY));
+    // nothing is known about a, so brightening it by 50 may clamp
+    List<ScriptStep> steps = simplify.optimize(List.of(
+            call(new CmdBrighten(), "50 a b"),
+            call(new CmdBrighten(), "-30 b c")));
+    assertEquals(2, steps.size());
+    assertNull(steps.get(0).getReplacement());
+
+    // darkening by 100 leaves values up to 155, which brightening by 50 never clamps
+    ICmdCall darken = call(new CmdBrighten(), "-100 a b");
+    steps = simplify.optimize(List.of(darken,
+            call(new CmdBrighten(), "50 b c"),
+            call(new CmdBrighten(), "-30 c d")));
+    assertEquals(2, steps.size());
+    assertEquals(List.of("Folded commands 2 to 3 into one brighten by 20.\n"),
+            steps.get(1).getRewrites());
+    assertEquals(Set.of(darken), steps.get(1).getAssumed());
+  }
+
+  @Test
+  public void testFoldMatrixAndPick() {
+    ScriptOptimizer simplify = new ScriptOptimizer(EnumSet.of(ControllerOption.SIMPLIFY));
+    List<ScriptStep> steps = simplify.optimize(List.of(
+            call(new CmdMatrixSepia(), "a b"),
+            call(new CmdMatrixRed(), "b c")));
+    assertEquals(1, steps.size());
+    assertEquals(List.of("Folded commands 1 to 2 into one color matrix.\n"),
+            steps.get(0).getRewrites());
+    MatrixGreyscale folded = (MatrixGreyscale) steps.get(0).getReplacement()
+            .getTransformation();
+    double[] sepiaRed = {0.393, 0.769, 0.189};
+    for (double[] row : folded.getKernel()) {
+      assertArrayEquals(sepiaRed, row, 0);
+    }
+
+    IImageState expected = new MatrixGreyscale(
+            new double[][] {{1, 0, 0}, {1, 0, 0}, {1, 0, 0}}).run(
+            new MatrixGreyscale(new double[][] {
+                    {0.393, 0.769, 0.189},
+                    {0.349, 0.686, 0.168},
+                    {0.272, 0.534, 0.131}}).run(image));
+    assertArrayEquals(pixels(expected), pixels(folded.run(image)));
+
+    // two matrices that both mix channels are not folded
+    steps = simplify.optimize(List.of(
+            call(new CmdMatrixSepia(), "a b"),
+            call(new CmdMatrixLuma(), "b c")));
+    assertEquals(2, steps.size());
+  }
+
+  @Test
+  public void testValueRange() {
+    ValueRange range = ValueRange.FULL.after(new BrighterDarker(-100));
+    assertEquals(0, range.getLow(0));
+    assertEquals(155, range.getHigh(2));
+    range = range.after(new MatrixGreyscale(new double[][] {
+            {0.5, 0, 0},
+            {0, 0, 0.5},
+            {0, 0, 0}}));
+    assertEquals(0, range.getLow(0));
+    assertEquals(78, range.getHigh(0));
+    assertEquals(78, range.getHigh(1));
+    assertEquals(0, range.getHigh(2));
+    assertEquals(ValueRange.FULL, range.after(new GreyscaleRed()));
+  }
+
+  @Test
+  public void testComposedSameAsStages() {
+    AbstractTransformation brighter = new BrighterDarker(40);
+    AbstractTransformation sepia = new MatrixGreyscale(new double[][] {
+            {0.393, 0.769, 0.189},
+            {0.349, 0.686, 0.168},
+            {0.272, 0.534, 0.131}});
+    AbstractTransformation darker = new BrighterDarker(-70);
+
+    IImageState expected = darker.run(sepia.run(brighter.run(image)));
+    IImageState actual = new ComposedTransformation(List.of(brighter, sepia, darker)).run(image);
+    assertArrayEquals(pixels(expected), pixels(actual));
+
+    // a chain of single channel stages runs through lookup tables
+    AbstractTransformation red = new GreyscaleRed();
+    expected = darker.run(red.run(brighter.run(image)));
+    actual = new ComposedTransformation(List.of(brighter, red, darker)).run(image);
+    assertArrayEquals(pixels(expected), pixels(actual));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testComposedEmpty() {
+    new ComposedTransformation(List.of());
+  }
+
+  // helper method to get all packed values of an image
+  private int[] pixels(IImageState image) {
+    int[] pixels = new int[image.getWidth() * image.getHeight()];
+    image.getRegion(0, 0, image.getWidth(), image.getHeight(), pixels);
+    return pixels;
+  }
+}
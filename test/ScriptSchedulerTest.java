@@ -0,0 +1,121 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import controller.commands.CmdBrighten;
+import controller.commands.CmdLoad;
+import controller.commands.CmdSave;
+import controller.commands.ICmd;
+import controller.script.ScriptScheduler;
+import controller.script.ScriptStep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test class for the ScriptScheduler class.
+ */
+public class ScriptSchedulerTest {
+
+  // helper method to make a step of one parsed call of a command
+  private ScriptStep step(ICmd cmd, String arguments) {
+    return new ScriptStep(cmd.parse(new Scanner(arguments)));
+  }
+
+  // helper method to schedule the steps on a pool of two threads, each step
+  // adding its index to the order once the step after it has finished or a
+  // short time has passed, and give the order the steps finished in.
+  private List<Integer> finishOrder(List<ScriptStep> steps, Set<String> removed)
+          throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+    List<CountDownLatch> finished = new ArrayList<>();
+    for (int i = 0; i < steps.size(); i++) {
+      finished.add(new CountDownLatch(1));
+    }
+    try {
+      List<CompletableFuture<Integer>> results = new ScriptScheduler(pool).schedule(
+              steps, step -> steps.indexOf(step) == 0 ? removed : Set.of(), step -> {
+                int index = steps.indexOf(step);
+                if (index + 1 < steps.size()) {
+                  try {
+                    finished.get(index + 1).await(200, TimeUnit.MILLISECONDS);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                }
+                order.add(index);
+                finished.get(index).countDown();
+                return index;
+              });
+      for (int i = 0; i < steps.size(); i++) {
+        assertEquals(i, (int) results.get(i).get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return order;
+  }
+
+  @Test
+  public void testIndependentStepsOverlap() throws Exception {
+    // the first step waits for the second one to finish, which it only does
+    // when they run at the same time
+    List<Integer> order = finishOrder(List.of(
+            step(new CmdBrighten(), "10 a b"),
+            step(new CmdBrighten(), "10 c d")), Set.of());
+    assertEquals(List.of(1, 0), order);
+  }
+
+  @Test
+  public void testReaderAfterWriter() throws Exception {
+    List<Integer> order = finishOrder(List.of(
+            step(new CmdBrighten(), "10 a b"),
+            step(new CmdBrighten(), "10 b c")), Set.of());
+    assertEquals(List.of(0, 1), order);
+  }
+
+  @Test
+  public void testWriterAfterReader() throws Exception {
+    List<Integer> order = finishOrder(List.of(
+            step(new CmdBrighten(), "10 a b"),
+            step(new CmdBrighten(), "10 c a")), Set.of());
+    assertEquals(List.of(0, 1), order);
+  }
+
+  @Test
+  public void testRemovedImageOrdered() throws Exception {
+    List<Integer> order = finishOrder(List.of(
+            step(new CmdBrighten(), "10 a b"),
+            step(new CmdBrighten(), "10 x c")), Set.of("x"));
+    assertEquals(List.of(0, 1), order);
+  }
+
+  @Test
+  public void testSameFileOrdered() throws Exception {
+    List<Integer> order = finishOrder(List.of(
+            step(new CmdSave(), "testImage/out.ppm a"),
+            step(new CmdLoad(), "testImage/../testImage/out.ppm b")), Set.of());
+    assertEquals(List.of(0, 1), order);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullExecutor() {
+    new ScriptScheduler(null);
+  }
+
+  @Test
+  public void testEmptyScript() {
+    assertTrue(new ScriptScheduler(Runnable::run).schedule(List.of(),
+            step -> Set.of(), step -> step).isEmpty());
+  }
+}
@@ -0,0 +1,181 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import model.SpillingImageDatabase;
+import model.images.IImage;
+import model.images.IImageState;
+import model.images.PackedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A JUnit test class for the SpillingImageDatabase class.
+ */
+public class SpillingImageDatabaseTest {
+  private Path directory;
+  // room for two 4x4 images
+  private SpillingImageDatabase database;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("spill-test");
+    database = new SpillingImageDatabase(128, directory);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    database.close();
+    Files.deleteIfExists(directory);
+  }
+
+  // helper method to make a 4x4 image whose pixels depend on the seed
+  private IImage image(int seed) {
+    IImage image = new PackedImage(4, 4);
+    for (int h = 0; h < 4; h++) {
+      for (int w = 0; w < 4; w++) {
+        image.setPixel(w, h, (seed + w) % 256, (seed * 3 + h) % 256, (seed + w * h) % 256);
+      }
+    }
+    return image;
+  }
+
+  // helper method to check two images hold the same values
+  private void assertSameImage(IImageState expected, IImageState actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int h = 0; h < expected.getHeight(); h++) {
+      for (int w = 0; w < expected.getWidth(); w++) {
+        assertEquals(expected.getRedChannel(w, h), actual.getRedChannel(w, h));
+        assertEquals(expected.getGreenChannel(w, h), actual.getGreenChannel(w, h));
+        assertEquals(expected.getBlueChannel(w, h), actual.getBlueChannel(w, h));
+      }
+    }
+  }
+
+  // helper method to count the files in the spill directory
+  private long spillFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void testWithinBudget() throws IOException {
+    IImage a = image(1);
+    database.addImage("a", a);
+    database.addImage("b", image(2));
+    assertSame(a, database.getImage("a"));
+    assertEquals(0, database.getSpillCount());
+    assertEquals(128, database.getBytes());
+    assertEquals(0, spillFiles());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedSpilledAndReloaded() throws IOException {
+    database.addImage("a", image(1));
+    database.addImage("b", image(2));
+    // use a, so b is the least recently used image
+    database.getImage("a");
+    database.addImage("c", image(3));
+    assertEquals(1, database.getSpillCount());
+    assertEquals(1, spillFiles());
+    assertEquals(128, database.getBytes());
+
+    assertSameImage(image(2), database.getImage("b"));
+    assertEquals(1, database.getReloadCount());
+    // a was the least recently used one now
+    assertEquals(2, database.getSpillCount());
+    assertSameImage(image(1), database.getImage("a"));
+    assertSameImage(image(3), database.getImage("c"));
+    assertEquals(128, database.getBytes());
+  }
+
+  @Test
+  public void testRemoveSpilled() throws IOException {
+    database.addImage("a", image(1));
+    database.addImage("b", image(2));
+    database.addImage("c", image(3));
+    database.removeImage("a");
+    assertEquals(0, spillFiles());
+    database.addImage("b", image(4));
+    assertSameImage(image(4), database.getImage("b"));
+  }
+
+  @Test
+  public void testSpillFileThreeBytesAPixel() throws IOException {
+    IImage bright = new PackedImage(4, 4);
+    for (int h = 0; h < 4; h++) {
+      for (int w = 0; w < 4; w++) {
+        bright.setPixel(w, h, 255, 128 + w, 200 + h);
+      }
+    }
+    database.addImage("a", bright);
+    database.addImage("b", image(2));
+    database.addImage("c", image(3));
+    try (Stream<Path> files = Files.list(directory)) {
+      // the width and the height, then the red, green and blue of 16 pixels
+      assertEquals(8 + 3 * 16, Files.size(files.findFirst().get()));
+    }
+    assertEquals(56, database.getSpilledBytes());
+    assertSameImage(bright, database.getImage("a"));
+    // b was spilled to make room for a
+    assertEquals(56, database.getSpilledBytes());
+    database.removeImage("b");
+    assertEquals(0, database.getSpilledBytes());
+  }
+
+  @Test
+  public void testOwnDirectoryDeletedOnClose() {
+    Path own = directory.resolve("own");
+    SpillingImageDatabase owner = new SpillingImageDatabase(0, own);
+    owner.addImage("a", image(1));
+    owner.addImage("b", image(2));
+    assertEquals(1, owner.getSpillCount());
+    owner.close();
+    assertEquals(0, owner.getSpilledBytes());
+    assertFalse(Files.exists(own));
+    // a directory that was already there is left
+    assertTrue(Files.exists(directory));
+  }
+
+  @Test
+  public void testLargeImageKept() {
+    SpillingImageDatabase small = new SpillingImageDatabase(0, directory);
+    IImage a = image(1);
+    small.addImage("a", a);
+    assertSame(a, small.getImage("a"));
+    small.addImage("b", image(2));
+    assertEquals(1, small.getSpillCount());
+    assertSameImage(image(1), small.getImage("a"));
+    small.close();
+  }
+
+  @Test
+  public void testUnsetImageNotSpilled() {
+    IImage unset = new PackedImage(4, 4);
+    database.addImage("a", unset);
+    database.addImage("b", image(2));
+    database.addImage("c", image(3));
+    assertSame(unset, database.getImage("a"));
+    assertSameImage(image(2), database.getImage("b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNoImage() {
+    database.getImage("none");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBudget() {
+    new SpillingImageDatabase(-1, directory);
+  }
+}
@@ -5,8 +5,11 @@ import controller.loadersaver.IImageLoader;
 import controller.loadersaver.IImageSaver;
 import controller.loadersaver.PPMLoader;
 import controller.loadersaver.PPMSaver;
+import model.images.IImage;
 import model.images.IImageState;
+import model.images.PackedImage;
 import model.transformation.BrighterDarker;
+import model.transformation.Downscale;
 import model.transformation.GreyscaleBlue;
 import model.transformation.GreyscaleGreen;
 import model.transformation.GreyscaleIntensity;
@@ -16,6 +19,7 @@ import model.transformation.GreyscaleValue;
 import model.transformation.ITransformation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * A JUnit test class for the transformation classes except BlurSharpen
@@ -538,4 +542,48 @@ public class TransformationTest {
             "0 100 155\n" +
             "0 0 0\n", log.toString());
   }
+
+  @Test
+  public void testDownscale() {
+    IImage image = new PackedImage(4, 2);
+    image.setRow(0, new int[]{0x000000, 0x0A0A0A, 0xFF0000, 0xFF0000});
+    image.setRow(1, new int[]{0x000000, 0x0B0B0B, 0x00FF00, 0xFF0000});
+    IImageState small = new Downscale(0.5).run(image);
+    assertEquals(2, small.getWidth());
+    assertEquals(1, small.getHeight());
+
+    // each pixel is the rounded average of its 2 by 2 box
+    assertEquals(5, small.getRedChannel(0, 0));
+    assertEquals(5, small.getGreenChannel(0, 0));
+    assertEquals(5, small.getBlueChannel(0, 0));
+    assertEquals(191, small.getRedChannel(1, 0));
+    assertEquals(64, small.getGreenChannel(1, 0));
+    assertEquals(0, small.getBlueChannel(1, 0));
+  }
+
+  @Test
+  public void testDownscaleUnevenBoxes() {
+    IImageState small = new Downscale(0.5).run(three);
+    assertEquals(2, small.getWidth());
+    assertEquals(2, small.getHeight());
+    // the first box is the first pixel only
+    assertEquals(three.getRedChannel(0, 0), small.getRedChannel(0, 0));
+    assertEquals(three.getGreenChannel(0, 0), small.getGreenChannel(0, 0));
+    assertEquals(three.getBlueChannel(0, 0), small.getBlueChannel(0, 0));
+  }
+
+  @Test
+  public void testDownscaleToFit() {
+    assertEquals(0.2, Downscale.toFit(4000, 2000, 800, 600), 1e-12);
+    assertEquals(1, Downscale.toFit(100, 100, 800, 600), 1e-12);
+    assertEquals(new Downscale(0.2), new Downscale(0.2));
+    // a transformation of each pixel is the same on a smaller copy
+    ITransformation brighter = new BrighterDarker(10);
+    assertSame(brighter, brighter.atScale(0.2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDownscaleInvalidScale() {
+    new Downscale(1.5);
+  }
 }
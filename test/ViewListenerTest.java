@@ -1,14 +1,21 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
 import controller.ControllerGraphic;
 import model.IImageDatabase;
 import model.ImageDatabase;
+import view.ITileSource;
 import view.IView;
 import view.View;
 import view.ViewListener;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A JUnit test class for the ViewListener/Controller class.
@@ -606,4 +613,253 @@ public class ViewListenerTest {
             "164 164 164\n" +
             "27 27 27\n", log.toString());
   }
+
+  @Test
+  public void testEventsRunByExecutorInOrder() {
+    StringBuilder queuedLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener queued = new ControllerGraphic(new ImageDatabase(), new View(queuedLog),
+            tasks::add);
+    queued.handleLoadEvent("./testImage/three.bmp");
+    queued.handleBrightenEvent("100");
+    // nothing is run until the executor runs the tasks
+    assertEquals("", queuedLog.toString());
+    assertEquals(2, tasks.size());
+    tasks.forEach(Runnable::run);
+
+    // the first task handles both events and draws the brightened image only
+    c.handleLoadEvent("./testImage/three.bmp");
+    String loaded = log.toString();
+    c.handleBrightenEvent("100");
+    assertEquals(log.substring(loaded.length()), queuedLog.toString());
+  }
+
+  @Test
+  public void testWaitingBrightenMerged() {
+    StringBuilder queuedLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener queued = new ControllerGraphic(new ImageDatabase(), new View(queuedLog),
+            tasks::add);
+    queued.handleLoadEvent("./testImage/three.bmp");
+    queued.handleBrightenEvent("50");
+    queued.handleBrightenEvent("30");
+    queued.handleBrightenEvent("20");
+    tasks.forEach(Runnable::run);
+
+    // drawn once, the same as brightening by the sum
+    c.handleLoadEvent("./testImage/three.bmp");
+    String loaded = log.toString();
+    c.handleBrightenEvent("100");
+    assertEquals(log.substring(loaded.length()), queuedLog.toString());
+  }
+
+  @Test
+  public void testWaitingBrightenOppositeNotMerged() {
+    StringBuilder queuedLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener queued = new ControllerGraphic(new ImageDatabase(), new View(queuedLog),
+            tasks::add);
+    queued.handleLoadEvent("./testImage/three.bmp");
+    queued.handleBrightenEvent("200");
+    queued.handleBrightenEvent("-100");
+    tasks.forEach(Runnable::run);
+
+    // clamped at 255 before darkening, unlike brightening by 100
+    c.handleLoadEvent("./testImage/three.bmp");
+    c.handleBrightenEvent("200");
+    c.handleBrightenEvent("-100");
+    assertEquals(log.substring(log.length() - queuedLog.length()), queuedLog.toString());
+    assertEquals("100 100 100\n155 155 155\n", queuedLog.substring(0, 24));
+  }
+
+  @Test
+  public void testWaitingLoadKeepsEdits() {
+    StringBuilder queuedLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener queued = new ControllerGraphic(new ImageDatabase(), new View(queuedLog),
+            tasks::add);
+    queued.handleLoadEvent("./testImage/three.bmp");
+    queued.handleFiltersEvent("blur");
+    queued.handleBrightenEvent("a1");
+    queued.handleLoadEvent("./testImage/three.png");
+    tasks.forEach(Runnable::run);
+
+    // the edits before the second load still run, since the load may fail,
+    // and the loaded image is drawn once after them
+    c.handleLoadEvent("./testImage/three.png");
+    assertEquals("Brighten/Darken increment should be an integer.\n" + log,
+            queuedLog.toString());
+  }
+
+  @Test
+  public void testWaitingEditThenFailedLoad() {
+    StringBuilder queuedLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener queued = new ControllerGraphic(new ImageDatabase(), new View(queuedLog),
+            tasks::add);
+    queued.handleLoadEvent("./testImage/three.bmp");
+    tasks.remove(0).run();
+    queued.handleBrightenEvent("100");
+    queued.handleLoadEvent("./testImage/missing.ppm");
+    tasks.forEach(Runnable::run);
+
+    // the edit is applied and shown although the load after it fails
+    c.handleLoadEvent("./testImage/three.bmp");
+    String loaded = log.toString();
+    c.handleBrightenEvent("100");
+    String edited = log.substring(loaded.length());
+    assertEquals(loaded + "No such file." + edited, queuedLog.toString());
+  }
+
+  @Test
+  public void testCancelWaitingEvents() {
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener queued = new ControllerGraphic(new ImageDatabase(), new View(log), tasks::add);
+    queued.handleLoadEvent("./testImage/three.bmp");
+    tasks.remove(0).run();
+    String loaded = log.toString();
+    queued.handleFiltersEvent("blur");
+    queued.handleBrightenEvent("100");
+    queued.handleCancelEvent();
+    tasks.forEach(Runnable::run);
+    // cancelled events change nothing and show no message
+    assertEquals(loaded, log.toString());
+
+    // later events run as usual
+    tasks.clear();
+    queued.handleBrightenEvent("a1");
+    tasks.forEach(Runnable::run);
+    assertEquals(loaded + "Brighten/Darken increment should be an integer.\n",
+            log.toString());
+  }
+
+  @Test
+  public void testPreviewThenImage() {
+    StringBuilder previewLog = new StringBuilder();
+    ViewListener previewed = new ControllerGraphic(new ImageDatabase(),
+            new PreviewView(previewLog, () -> { }));
+    previewed.handleLoadEvent("./testImage/three.bmp");
+    String loaded = previewLog.toString();
+    previewed.handleBrightenEvent("100");
+
+    // the 2 by 2 preview stretched to 3 by 3, then the brightened image
+    c.handleLoadEvent("./testImage/three.bmp");
+    c.handleBrightenEvent("100");
+    String brightened = log.substring(loaded.length());
+    String shown = previewLog.substring(loaded.length());
+    assertTrue(shown.startsWith("preview 3 3\n"));
+    assertEquals(4, shown.split("\n").length - brightened.split("\n").length - 1);
+    assertTrue(shown.endsWith(brightened));
+  }
+
+  @Test
+  public void testPreviewGivesWayToEvent() {
+    StringBuilder previewLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener[] previewed = new ViewListener[1];
+    int[] previews = new int[1];
+    previewed[0] = new ControllerGraphic(new ImageDatabase(),
+            new PreviewView(previewLog, () -> {
+              // another click while the first preview is shown
+              if (previews[0]++ == 0) {
+                previewed[0].handleBrightenEvent("-50");
+              }
+            }), tasks::add);
+    previewed[0].handleLoadEvent("./testImage/three.bmp");
+    previewed[0].handleBrightenEvent("100");
+    tasks.remove(0).run();
+    // the full image waits for the second click
+    assertEquals(1, previews[0]);
+    assertEquals(2, tasks.size());
+    tasks.forEach(Runnable::run);
+    assertEquals(2, previews[0]);
+
+    // the image drawn last is both edits run on the full image
+    c.handleLoadEvent("./testImage/three.bmp");
+    c.handleBrightenEvent("100");
+    int start = log.length();
+    c.handleBrightenEvent("-50");
+    assertTrue(previewLog.toString().endsWith(log.substring(start)));
+    // the loaded image is never drawn, only the previews and the last image
+    assertTrue(previewLog.toString().startsWith("preview 3 3\n"));
+    assertEquals(2, previewLog.toString().split("preview").length - 1);
+  }
+
+  @Test
+  public void testCancelPreview() {
+    StringBuilder previewLog = new StringBuilder();
+    List<Runnable> tasks = new ArrayList<>();
+    ViewListener[] previewed = new ViewListener[1];
+    previewed[0] = new ControllerGraphic(new ImageDatabase(),
+            new PreviewView(previewLog, () -> previewed[0].handleCancelEvent()), tasks::add);
+    previewed[0].handleLoadEvent("./testImage/three.bmp");
+    tasks.remove(0).run();
+    previewed[0].handleFiltersEvent("blur");
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+    // the blur was never run on the full image, which is shown again
+    c.handleLoadEvent("./testImage/three.bmp");
+    assertTrue(previewLog.toString().startsWith(log.toString() + "preview 3 3\n"));
+    assertTrue(previewLog.toString().endsWith(log.toString()));
+
+    // the saved image is the full image
+    previewed[0].handleSaveEvent("testImage/saved.png");
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+    c.handleLoadEvent("./testImage/saved.png");
+    assertTrue(log.toString().endsWith(log.substring(0, log.length() / 2)));
+  }
+
+  @Test
+  public void testTilesShownBeforeImage() {
+    StringBuilder previewLog = new StringBuilder();
+    ViewListener previewed = new ControllerGraphic(new ImageDatabase(),
+            new PreviewView(previewLog, () -> { }) {
+              @Override
+              public void drawTiles(ITileSource tiles) {
+                previewLog.append("tiles ").append(tiles.getWidth()).append(" ")
+                        .append(tiles.getHeight()).append("\n");
+                // the tile is computed right away on the executor of this test
+                draw(tiles.getTile(0, 0, () -> { }));
+              }
+            });
+    previewed.handleLoadEvent("./testImage/three.bmp");
+    String loaded = previewLog.toString();
+    previewed.handleFiltersEvent("sharpen");
+
+    // the only tile of the image, then the image itself, both sharpened
+    c.handleLoadEvent("./testImage/three.bmp");
+    c.handleFiltersEvent("sharpen");
+    String sharpened = log.substring(loaded.length());
+    String shown = previewLog.substring(loaded.length());
+    assertTrue(shown.startsWith("preview 3 3\n"));
+    assertTrue(shown.endsWith("tiles 3 3\n" + sharpened + sharpened));
+  }
+
+  // a text view with a 2 by 2 area showing the image, logging each preview
+  // and running the action after it.
+  private static class PreviewView extends View {
+    private final StringBuilder log;
+    private final Runnable onPreview;
+
+    PreviewView(StringBuilder log, Runnable onPreview) {
+      super(log);
+      this.log = log;
+      this.onPreview = onPreview;
+    }
+
+    @Override
+    public void drawPreview(BufferedImage image, int width, int height) {
+      this.log.append("preview ").append(width).append(" ").append(height).append("\n");
+      super.drawPreview(image, width, height);
+      this.onPreview.run();
+    }
+
+    @Override
+    public Dimension getViewportSize() {
+      return new Dimension(2, 2);
+    }
+  }
 }